@@ -0,0 +1,166 @@
+/*************************************************************************************************************************
+ * Source Code Form License Notice
+ *************************************************************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ **************************************************************************************************************************/
+/*************************************************************************************************************************
+ *   Author: Jarek Thomas
+ *
+ *   Break Start-up Benchmark
+ *
+ *   Measures the profile paths every version of the app has, so the same harness runs against any commit and the
+ *   numbers can be compared before and after a change:
+ *      profile.load    clearSceneProperties + loadProfileFromXML of a profile with param transitions
+ *      profile.list    getProfiles with param profiles in the Profiles folder
+ *   Each benchmark runs WARMUP time-bounded iterations followed by ITERATIONS measured ones and prints one JSON line
+ *   per benchmark and parameter so runs can be diffed across commits.
+ *
+ *   Kept out of src so it is never part of the application jar. Build it against the classes of the commit to measure
+ *   and run it from an empty working directory, it creates its own Profiles// folder and removes its _bench files
+ *      javac -cp <app classpath> -d <out> benchmark/src/main/benchmark/*.java
+ *      java -cp <out>:<app classpath> main.benchmark.StartupBenchmark
+ *   Options:
+ *      -Dbeerb.bench.warmup=5          warmup iterations
+ *      -Dbeerb.bench.iterations=10     measured iterations
+ *      -Dbeerb.bench.time=200          ms per iteration
+ *      -Dbeerb.bench.out=<file>        append results to a JSONL file
+ ***************************************************************************************************************************/
+
+package main.benchmark;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.stage.Stage;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.Marshaller;
+import main.models.ProfileModel;
+import main.models.ProfileWrapper;
+
+public class StartupBenchmark extends Application {
+
+    private static final int[] PROFILE_SIZES = { 10, 1000, 10000 };
+    private static final int[] LIST_SIZES = { 10, 100, 1000 };
+    //Transitions of each profile in the list benchmark
+    private static final int LIST_PROFILE_SIZE = 10;
+
+    private final int warmup = Integer.getInteger("beerb.bench.warmup", 5);
+    private final int iterations = Integer.getInteger("beerb.bench.iterations", 10);
+    private final long iterationTime = Long.getLong("beerb.bench.time", 200) * 1000000L;
+    private final String outPath = System.getProperty("beerb.bench.out");
+
+    private final List<String> results = new ArrayList<>();
+
+    private interface Operation {
+        void run() throws Exception;
+    }
+
+    public static void main(String[] args){
+        launch(args);
+    }
+
+    //The models build nodes in their constructors so everything runs on the FX thread
+    @Override
+    public void start(Stage stage){
+        try{
+            runAll();
+        }catch(Exception e){
+            e.printStackTrace();
+        }finally{
+            cleanUp();
+            Platform.exit();
+        }
+    }
+
+    private void runAll() throws Exception {
+        Files.createDirectories(Paths.get("Profiles//"));
+        Files.createDirectories(Paths.get("Text//"));
+        Marshaller marshaller = JAXBContext.newInstance(ProfileWrapper.class).createMarshaller();
+        marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+        String mediaPath = new File("_bench_missing.mp4").getAbsolutePath();
+        String imagePath = new File("_bench_missing.png").getAbsolutePath();
+
+        int listed = 0;
+        for(int size : LIST_SIZES){
+            for(; listed < size; listed++){
+                marshaller.marshal(SyntheticProfiles.createProfile(LIST_PROFILE_SIZE, mediaPath, imagePath),
+                        new File("Profiles//_bench_list_" + listed + ".xml"));
+            }
+            measure("profile.list", size, () -> {
+                ProfileModel.getInstance().getProfiles();
+            });
+        }
+
+        for(int size : PROFILE_SIZES){
+            String profileName = "_bench_profile_" + size;
+            marshaller.marshal(SyntheticProfiles.createProfile(size, mediaPath, imagePath), new File("Profiles//" + profileName + ".xml"));
+            measure("profile.load", size, () -> {
+                ProfileModel.getInstance().clearSceneProperties();
+                ProfileModel.getInstance().loadProfileFromXML(profileName);
+            });
+        }
+        ProfileModel.getInstance().clearSceneProperties();
+
+        if(outPath != null){
+            try(PrintWriter out = new PrintWriter(new FileWriter(outPath, true))){
+                results.forEach(out::println);
+            }
+        }
+    }
+
+    //Time-bounded iterations, each records the average time of the operations that fit in iterationTime
+    private void measure(String benchmark, int param, Operation operation) throws Exception {
+        double[] scores = new double[iterations];
+        for(int i = 0; i < warmup + iterations; i++){
+            long operations = 0;
+            long start = System.nanoTime();
+            long elapsed;
+            do{
+                operation.run();
+                operations++;
+                elapsed = System.nanoTime() - start;
+            }while(elapsed < iterationTime);
+            if(i >= warmup){
+                scores[i - warmup] = elapsed / 1000.0 / operations;
+            }
+        }
+
+        double mean = 0, min = Double.MAX_VALUE;
+        for(double score : scores){
+            mean += score;
+            min = Math.min(min, score);
+        }
+        mean /= scores.length;
+        double variance = 0;
+        for(double score : scores){
+            variance += (score - mean) * (score - mean);
+        }
+        double stdev = scores.length > 1 ? Math.sqrt(variance / (scores.length - 1)) : 0;
+
+        String result = String.format(Locale.ROOT,
+                "{\"benchmark\":\"%s\",\"param\":%d,\"mode\":\"avgt\",\"unit\":\"us/op\",\"mean\":%.3f,\"stdev\":%.3f,\"min\":%.3f,"
+                + "\"warmup\":%d,\"iterations\":%d,\"seed\":%d,\"java\":\"%s\",\"os\":\"%s\"}",
+                benchmark, param, mean, stdev, min, warmup, iterations, SyntheticProfiles.SEED,
+                System.getProperty("java.version"), System.getProperty("os.name") + " " + System.getProperty("os.arch"));
+        results.add(result);
+        System.out.println(result);
+    }
+
+    //Removes the generated profiles and any copies the app made of them
+    private void cleanUp(){
+        File[] files = new File("Profiles//").listFiles((File dir, String name) -> name.startsWith("_bench_"));
+        if(files != null){
+            for(File file : files){
+                file.delete();
+            }
+        }
+    }
+}
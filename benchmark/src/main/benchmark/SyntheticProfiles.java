@@ -0,0 +1,79 @@
+/*************************************************************************************************************************
+ * Source Code Form License Notice
+ *************************************************************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ **************************************************************************************************************************/
+/*************************************************************************************************************************
+ *   Author: Jarek Thomas
+ *
+ *   Synthetic Profile Generator for StartupBenchmark
+ *
+ *   Profiles are generated from a fixed seed so every commit is measured against the same input. They are built as
+ *   ProfileWrapper string maps in the comma separated form the edit view saves, the one form every version can load.
+ *   Transition mix: 40% Text, 20% Image, 10% FF, 5% Cut, 15% Audio, 10% Video
+ ***************************************************************************************************************************/
+
+package main.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import main.models.ProfileWrapper;
+
+public final class SyntheticProfiles {
+
+    public static final long SEED = 0x42656552L;
+
+    private SyntheticProfiles(){
+
+    }
+
+    //Profile with transitionCount transitions spread over a 60 s video
+    //mediaPath is used for the main video and every audio/video transition, imagePath for every image transition
+    public static ProfileWrapper createProfile(int transitionCount, String mediaPath, String imagePath){
+        Random random = new Random(SEED + transitionCount);
+        Map<String, String> text = new HashMap<>();
+        Map<String, String> image = new HashMap<>();
+        Map<String, String> ff = new HashMap<>();
+        Map<String, String> cut = new HashMap<>();
+        Map<String, String> audio = new HashMap<>();
+        Map<String, String> video = new HashMap<>();
+
+        for(int i = 0; i < transitionCount; i++){
+            int start = random.nextInt(55000) + 1;
+            String stop = random.nextInt(10) == 0 ? "*" : Integer.toString(start + 1000 + random.nextInt(4000));
+            int type = random.nextInt(100);
+            if(type < 40){
+                text.put("Text0" + i, "_DEFAULT," + (24 + random.nextInt(48)) + "," + random.nextInt(1100) + ","
+                        + random.nextInt(650) + "," + start + "," + stop + ",Synthetic message " + i + ", with a comma");
+            } else if(type < 60){
+                image.put("Image0" + i, imagePath + "," + random.nextInt(1100) + "," + random.nextInt(650) + ","
+                        + (100 + random.nextInt(300)) + "," + (100 + random.nextInt(300)) + "," + start + "," + stop + ","
+                        + random.nextBoolean());
+            } else if(type < 70){
+                ff.put("FF0" + i, start + "," + stop + "," + (1.5 + random.nextInt(4) * 0.5) + ",1.0");
+            } else if(type < 75){
+                cut.put("Cut0" + i, start + "," + (start + 500 + random.nextInt(2000)) + ",false");
+            } else if(type < 90){
+                audio.put("Audio0" + i, mediaPath + "," + start + "," + stop + ",1.0," + random.nextDouble() + ","
+                        + random.nextDouble());
+            } else {
+                video.put("Video0" + i, mediaPath + "," + start + "," + stop + ",1.0," + random.nextDouble() + ","
+                        + random.nextInt(1100) + "," + random.nextInt(650) + ",320,180," + random.nextDouble() + ",true");
+            }
+        }
+
+        ProfileWrapper wrapper = new ProfileWrapper();
+        wrapper.setVideoProperties(new ArrayList<>(Arrays.asList(mediaPath, "1.0")));
+        wrapper.setTextTransitions(text);
+        wrapper.setImageTransitions(image);
+        wrapper.setFFTransitions(ff);
+        wrapper.setCutTransitions(cut);
+        wrapper.setAudioTransitions(audio);
+        wrapper.setVideoTransitions(video);
+        return wrapper;
+    }
+}
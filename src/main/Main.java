@@ -25,7 +25,9 @@ import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.image.Image;
 import javafx.stage.Stage;
+import main.models.BinaryProfile;
 import main.models.Context;
+import main.models.LibraryWatcher;
 import main.models.TheatreModel;
 import main.models.ProfileModel;
 
@@ -51,6 +53,13 @@ public class Main extends Application {
             Files.createDirectories(Paths.get("Text//"));
         }catch(IOException e){
         }
+        LibraryWatcher.getInstance().start();
+        
+        //Build binary copies of existing XML profiles so queued profiles load without JAXB
+        Thread convertThread = new Thread(BinaryProfile::convertAllProfiles);
+        convertThread.setDaemon(true);
+        convertThread.setPriority(Thread.MIN_PRIORITY);
+        convertThread.start();
         
         Context.getInstance().setUserInput(userInput);
         
@@ -12,10 +12,10 @@
 
 package main.controllers;
 
-import java.awt.event.ActionListener;
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
+import java.util.Arrays;
 import java.util.Optional;
 import java.util.ResourceBundle;
 import java.util.function.UnaryOperator;
@@ -33,8 +33,11 @@ import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
 import javafx.geometry.Pos;
+import javafx.geometry.Rectangle2D;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.ButtonBar;
@@ -48,6 +51,8 @@ import javafx.scene.control.TextField;
 import javafx.scene.control.TextFormatter;
 import javafx.scene.control.Tooltip;
 import javafx.scene.control.cell.TextFieldListCell;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
 import javafx.scene.input.KeyCode;
 import javafx.scene.layout.AnchorPane;
 import javafx.scene.layout.HBox;
@@ -56,6 +61,7 @@ import javafx.scene.layout.Region;
 import javafx.scene.layout.VBox;
 import javafx.scene.media.MediaPlayer;
 import javafx.scene.media.MediaView;
+import javafx.scene.paint.Color;
 import javafx.scene.text.Text;
 import javafx.stage.FileChooser;
 import javafx.stage.Modality;
@@ -63,21 +69,33 @@ import javafx.stage.Stage;
 import javafx.util.Duration;
 import javafx.util.StringConverter;
 import javafx.util.converter.NumberStringConverter;
-import javax.swing.Timer;
 import main.Main;
+import main.models.AppScheduler;
+import main.models.AudioTransition;
 import main.models.AudioTransitionModel;
+import main.models.BinaryProfile;
 import main.models.Context;
+import main.models.CutTransition;
 import main.models.CutTransitionModel;
 import main.models.DraggableModel;
+import main.models.FFTransition;
 import main.models.FFTransitionModel;
+import main.models.FilmstripModel;
+import main.models.FrameIndexModel;
+import main.models.ImageTransition;
 import main.models.ImageTransitionModel;
 import main.models.PreviewModel;
 import main.models.ProfileModel;
 import main.models.SetController;
 import main.models.TextModel;
+import main.models.TextStyleCache;
 import main.models.TheatreModel;
+import main.models.TextTransition;
 import main.models.TextTransitionModel;
+import main.models.TimelineModel;
+import main.models.VideoTransition;
 import main.models.VideoTransitionModel;
+import main.models.WaveformModel;
 
 public class EditViewController implements Initializable, SetController {
     
@@ -85,6 +103,7 @@ public class EditViewController implements Initializable, SetController {
     @FXML   private AnchorPane mwAnchorPane;
     @FXML   private Button videoBtn, volumeBtn, playPauseBtn, textBtn, imageBtn, ffBtn, cutBtn, audioBtn;
     @FXML   private Slider mainVideoTimeSlider, mainVolumeSlider;
+    @FXML   private Canvas filmstripCanvas, timelineCanvas;
     @FXML   private Label mainVolumeSliderLabel, mainVideoTimeLabel;
     @FXML   private ListView markerEventsListView;
     @FXML   private HBox controlPanelHBox;
@@ -113,10 +132,29 @@ public class EditViewController implements Initializable, SetController {
     private Tooltip videoBtnTT, textBtnTT, imageBtnTT, ffBtnTT, cutBtnTT, audioBtnTT, saveBtnTT, backBtnTT,
             mainVolumeSliderTT, mainVideoTimeSliderTT, autoPauseCheckboxTT, createTextBtnTT, editTextBtnTT, deleteTextBtnTT;
     
+    private final ImageView framePreview = new ImageView();
+    private final Tooltip framePreviewTT = new Tooltip();
+    private float[] waveformMin = new float[0], waveformMax = new float[0];
+    private int[] timelineVisible = new int[0];
+    
+    //Colors of the timeline tracks, ordered like BinaryProfile.Section
+    private static final Color[] TRACK_COLORS = {
+        Color.rgb(70, 130, 180), Color.rgb(60, 160, 110), Color.rgb(200, 150, 40),
+        Color.rgb(190, 70, 70), Color.rgb(140, 90, 180), Color.rgb(70, 160, 170)
+    };
+    //Smallest zoom of the timeline in ms per pixel
+    private static final double TIMELINE_MIN_SCALE = 1;
+    //Visible window of the timeline, start in ms and ms per pixel, a scale of 0 fits the whole video
+    private double timelineStart, timelineScale;
+    private double timelinePressX, timelinePressStart;
+    private final double[] trackEnds = new double[TRACK_COLORS.length];
+    //Redraws at most once per frame however many changes come in
+    private final AppScheduler.Throttle timelineRedraw = AppScheduler.getInstance().throttle(16, this::drawTimeline);
+    
     private final int resizeDelay = 500;
-    private Timer resizeIncreaseTimer, resizeDecreaseTimer;
+    private AppScheduler.Debounce resizeIncreaseTimer, resizeDecreaseTimer;
     
-    //Remove transition from profile and reload video with next transition and all appropriate controls for user
+    //Remove transition from profile and seek to next transition with all appropriate controls for user
     @FXML
     public void removeVideoMarker(ActionEvent event){
         try{
@@ -144,6 +182,7 @@ public class EditViewController implements Initializable, SetController {
             }
             
             ProfileModel.getInstance().getMarkerEventsList().remove(tempString);
+            PreviewModel.getInstance().removeTransition(tempString);
             
             if(!ProfileModel.getInstance().getMarkerEventsList().isEmpty()){
                 tempString = markerEventsListView.getSelectionModel().getSelectedItem().toString();
@@ -180,7 +219,7 @@ public class EditViewController implements Initializable, SetController {
             }
             Context.getInstance().setDidSave(false);
             Platform.runLater(()->{
-                PreviewModel.getInstance().reloadMediaPlayer();
+                PreviewModel.getInstance().previewCurrentTransition();
             });
         }
     }
@@ -239,7 +278,7 @@ public class EditViewController implements Initializable, SetController {
                 });
             }
             Platform.runLater(()->{
-                PreviewModel.getInstance().reloadMediaPlayer();
+                PreviewModel.getInstance().previewCurrentTransition();
             });
         }
     }
@@ -278,7 +317,7 @@ public class EditViewController implements Initializable, SetController {
         });
     }
     
-    //Create new TEXT transition object and reload player
+    //Create new TEXT transition object and add it to the preview
     //Set new transition as current transition
     @FXML
     public void addText(ActionEvent event){
@@ -317,13 +356,13 @@ public class EditViewController implements Initializable, SetController {
         
         Platform.runLater(()->{
             if(!ProfileModel.getInstance().getTextProfileList().isEmpty() && !ProfileModel.getInstance().getVideoProperties().isEmpty()){
-                PreviewModel.getInstance().reloadMediaPlayer();
+                PreviewModel.getInstance().updateTransition(PreviewModel.getInstance().getCurrentTransition());
                 addTextControls();
             }
         });   
     }
     
-    //Create new IMAGE transition object and reload player
+    //Create new IMAGE transition object and add it to the preview
     //Set new transition as current transition
     @FXML
     public void addImage(ActionEvent event) throws IOException {
@@ -367,7 +406,7 @@ public class EditViewController implements Initializable, SetController {
             
             Platform.runLater(()->{
                 if(!ProfileModel.getInstance().getVideoProperties().isEmpty()){
-                    PreviewModel.getInstance().reloadMediaPlayer();
+                    PreviewModel.getInstance().updateTransition(PreviewModel.getInstance().getCurrentTransition());
                 }
                 if(imageFile != null){
                     addImageControls();
@@ -378,7 +417,7 @@ public class EditViewController implements Initializable, SetController {
         }catch(Exception e){e.printStackTrace();}
     }
     
-    //Create new FF transition object and reload player
+    //Create new FF transition object and add it to the preview
     //Set new transition as current transition
     @FXML
     public void addFF(ActionEvent event){
@@ -411,13 +450,13 @@ public class EditViewController implements Initializable, SetController {
         
         Platform.runLater(()->{
             if(!ProfileModel.getInstance().getVideoProperties().isEmpty()){
-                PreviewModel.getInstance().reloadMediaPlayer();
+                PreviewModel.getInstance().updateTransition(PreviewModel.getInstance().getCurrentTransition());
                 addFFControls();
             }
         });
     }
     
-    //Create new CUT transition object and reload player
+    //Create new CUT transition object and add it to the preview
     //Set new transition as current transition
     @FXML
     public void addCut(ActionEvent event){
@@ -450,13 +489,13 @@ public class EditViewController implements Initializable, SetController {
         
         Platform.runLater(()->{
             if(!ProfileModel.getInstance().getVideoProperties().isEmpty()){
-                PreviewModel.getInstance().reloadMediaPlayer();
+                PreviewModel.getInstance().updateTransition(PreviewModel.getInstance().getCurrentTransition());
                 addCutControls();
             }
         });
     }
     
-    //Create new AUDIO transition object and reload player
+    //Create new AUDIO transition object and add it to the preview
     //Set new transition as current transition
     @FXML
     public void addAudio(ActionEvent event){
@@ -498,7 +537,7 @@ public class EditViewController implements Initializable, SetController {
             
             Platform.runLater(()->{
                 if(!ProfileModel.getInstance().getVideoProperties().isEmpty()){
-                    PreviewModel.getInstance().reloadMediaPlayer();
+                    PreviewModel.getInstance().updateTransition(PreviewModel.getInstance().getCurrentTransition());
                 }
                 if(audioFile != null){
                     addAudioControls();
@@ -510,7 +549,7 @@ public class EditViewController implements Initializable, SetController {
         }catch(Exception e){e.printStackTrace();}
     }
     
-    //Create new VIDEO transition object and reload player
+    //Create new VIDEO transition object and add it to the preview
     //Set new transition as current transition
     @FXML
     public void addVideo(ActionEvent event) throws IOException{
@@ -554,7 +593,7 @@ public class EditViewController implements Initializable, SetController {
             
             Platform.runLater(()->{
                 if(!ProfileModel.getInstance().getVideoProperties().isEmpty()){
-                    PreviewModel.getInstance().reloadMediaPlayer();
+                    PreviewModel.getInstance().updateTransition(PreviewModel.getInstance().getCurrentTransition());
                 }
                 if(videoFile != null){
                     addVideoControls();
@@ -779,8 +818,8 @@ public class EditViewController implements Initializable, SetController {
         markerEventsListView.setPlaceholder(new Label("No events added."));
         DraggableModel.getInstance().setEventListView(markerEventsListView);
         
-        resizeIncreaseTimer = new Timer(resizeDelay, new ResizeIncreaseDetected());
-        resizeDecreaseTimer = new Timer(resizeDelay, new ResizeDecreaseDetected());
+        resizeIncreaseTimer = AppScheduler.getInstance().debounce(resizeDelay, this::resizeIncreaseDetected);
+        resizeDecreaseTimer = AppScheduler.getInstance().debounce(resizeDelay, this::resizeDecreaseDetected);
         PreviewModel.getInstance().setMediaView(editMediaView);
         PreviewModel.getInstance().setAnchorPane(mwAnchorPane);
         PreviewModel.getInstance().setResizeIncreaseTimer(resizeIncreaseTimer);
@@ -1047,42 +1086,166 @@ public class EditViewController implements Initializable, SetController {
         prepareBindings();
     }
     
+    // Fills the canvas above the timeline with 16:9 frames, frames not extracted yet are left blank
+    private void drawFilmstrip(){
+        GraphicsContext gc = filmstripCanvas.getGraphicsContext2D();
+        double width = filmstripCanvas.getWidth();
+        double height = filmstripCanvas.getHeight();
+        gc.clearRect(0, 0, width, height);
+        Image grid = FilmstripModel.getInstance().filmstripImageProperty().get();
+        if(grid == null || width <= 0){
+            return;
+        }
+        double frameWidth = height * 1.78;
+        for(double x = 0; x < width; x += frameWidth){
+            Rectangle2D viewport = FilmstripModel.getInstance().getFrameViewport((x + frameWidth / 2) / width);
+            if(viewport != null){
+                gc.drawImage(grid, viewport.getMinX(), viewport.getMinY(), viewport.getWidth(), viewport.getHeight(), x, 0, frameWidth, height);
+            }
+        }
+        drawWaveform(gc, width, height);
+    }
+    
+    // Video audio drawn over the filmstrip once its loudness envelope is built
+    private void drawWaveform(GraphicsContext gc, double width, double height){
+        String videoPath = PreviewModel.getInstance().getVideoPath();
+        WaveformModel.Waveform waveform = videoPath == null ? null : WaveformModel.getInstance().get(videoPath);
+        int pixels = (int) width;
+        if(waveform == null || pixels <= 0){
+            return;
+        }
+        ensureWaveformBuffers(pixels);
+        waveform.getPeaks(0, waveform.getDurationMillis() / pixels, pixels, waveformMin, waveformMax);
+        double middle = height / 2;
+        gc.setStroke(Color.rgb(255, 255, 255, 0.7));
+        gc.setLineWidth(1);
+        for(int x = 0; x < pixels; x++){
+            gc.strokeLine(x + 0.5, middle - waveformMax[x] * middle, x + 0.5, middle - waveformMin[x] * middle);
+        }
+    }
+    
+    // Whole video fits the canvas until the user zooms in
+    private double getTimelineScale(){
+        Duration duration = PreviewModel.getInstance().getDuration();
+        double width = timelineCanvas.getWidth();
+        if(duration == null || duration.isUnknown() || width <= 0){
+            return 0;
+        }
+        double fit = duration.toMillis() / width;
+        if(timelineScale <= 0 || timelineScale >= fit){
+            timelineScale = 0;
+            return fit;
+        }
+        return timelineScale;
+    }
+    
+    // Bars are looked up in TimelineModel by the visible window so the cost follows what is on screen, not the profile size
+    private void drawTimeline(){
+        GraphicsContext gc = timelineCanvas.getGraphicsContext2D();
+        double width = timelineCanvas.getWidth();
+        double height = timelineCanvas.getHeight();
+        double trackHeight = height / TRACK_COLORS.length;
+        gc.setFill(Color.rgb(60, 60, 60));
+        gc.fillRect(0, 0, width, height);
+        gc.setFill(Color.rgb(140, 140, 140));
+        for(BinaryProfile.Section type : BinaryProfile.Section.values()){
+            gc.fillText(type.name(), 3, (type.ordinal() + 1) * trackHeight - 2);
+        }
+        double scale = getTimelineScale();
+        if(scale <= 0){
+            return;
+        }
+        double duration = PreviewModel.getInstance().getDuration().toMillis();
+        timelineStart = Math.max(0, Math.min(timelineStart, duration - width * scale));
+        double from = timelineStart;
+        double to = from + width * scale;
+        
+        TimelineModel timeline = TimelineModel.getInstance();
+        Object selected = markerEventsListView.getSelectionModel().getSelectedItem();
+        //Bars that fall inside what a track already drew are skipped, dense profiles draw at most a bar per pixel
+        Arrays.fill(trackEnds, -1);
+        gc.setLineWidth(1);
+        if(timelineVisible.length < timeline.size()){
+            timelineVisible = new int[timeline.size()];
+        }
+        for(int v = 0, count = timeline.query((long) from, (long) to, timelineVisible); v < count; v++){
+            int i = timelineVisible[v];
+            int stop = timeline.getStop(i);
+            int track = timeline.getType(i).ordinal();
+            String key = timeline.getKey(i);
+            boolean isSelected = key.equals(selected);
+            double x = Math.max(0, (timeline.getStart(i) - from) / scale);
+            double barWidth = Math.max(2, Math.min(width, ((stop == TimelineModel.END ? duration : stop) - from) / scale) - x);
+            if(x + barWidth <= trackEnds[track] && !isSelected){
+                continue;
+            }
+            trackEnds[track] = Math.max(trackEnds[track], x + barWidth);
+            double y = track * trackHeight + 1;
+            gc.setFill(TRACK_COLORS[track]);
+            gc.fillRect(x, y, barWidth, trackHeight - 2);
+            if(timeline.getType(i) == BinaryProfile.Section.AUDIO && barWidth > 4){
+                drawAudioWaveform(gc, key, timeline.getStart(i), from + x * scale, scale, x, y, barWidth, trackHeight - 2);
+            }
+            gc.setStroke(isSelected ? Color.WHITE : Color.rgb(0, 0, 0, 0.4));
+            gc.strokeRect(x + 0.5, y + 0.5, barWidth - 1, trackHeight - 3);
+            if(barWidth > 40){
+                gc.setFill(Color.WHITE);
+                gc.fillText(key, x + 3, y + trackHeight - 4, barWidth - 6);
+            }
+        }
+        
+        double playhead = (mainVideoTimeSlider.getValue() / 100.0 * duration - from) / scale;
+        if(playhead >= 0 && playhead <= width){
+            gc.setStroke(Color.RED);
+            gc.strokeLine(playhead + 0.5, 0, playhead + 0.5, height);
+        }
+    }
+    
+    // Clip audio under an audio bar starting at time (ms), follows the seek fraction and play rate of the transition
+    private void drawAudioWaveform(GraphicsContext gc, String key, int start, double time, double scale, double x, double y, double width, double height){
+        AudioTransition transition = AudioTransitionModel.getInstance().getAudioMarkersMap().get(key);
+        WaveformModel.Waveform waveform = transition == null ? null : WaveformModel.getInstance().get(transition.getAudioPath());
+        if(waveform == null){
+            return;
+        }
+        int pixels = (int) width;
+        ensureWaveformBuffers(pixels);
+        double clipTime = transition.getSeekTime() * waveform.getDurationMillis() + (time - start) * transition.getPlayRate();
+        waveform.getPeaks(clipTime, scale * transition.getPlayRate(), pixels, waveformMin, waveformMax);
+        double middle = y + height / 2;
+        gc.setStroke(Color.rgb(255, 255, 255, 0.6));
+        for(int i = 0; i < pixels; i++){
+            gc.strokeLine(x + i + 0.5, middle - waveformMax[i] * height / 2, x + i + 0.5, middle - waveformMin[i] * height / 2);
+        }
+    }
+    
+    private void ensureWaveformBuffers(int pixels){
+        if(waveformMin.length < pixels){
+            waveformMin = new float[pixels];
+            waveformMax = new float[pixels];
+        }
+    }
+    
     // Listens for edit scene resize and centers mediaplayer in scene
     // 1.78 = 16/9 aspect ratio
-    // 288 & 185 are the offsets for the UI elements in the scene
-    private class ResizeIncreaseDetected implements ActionListener {
-        @Override
-        public void actionPerformed(java.awt.event.ActionEvent ae) {
-            Platform.runLater(()->{
-                if(!ProfileModel.getInstance().getVideoProperties().isEmpty()){
-                    PreviewModel.getInstance().reloadMediaPlayer();
-                }
-                if(Context.getInstance().getLetterBoxingCurrent() < 0){
-                    ProfileModel.getInstance().getStage().setWidth((editMediaView.getFitHeight() * 1.78) + 288);
-                } else if (Context.getInstance().getLetterBoxingCurrent() > (60 * Context.getInstance().getWidthRatio()) && !ProfileModel.getInstance().getStage().isMaximized()){
-                    ProfileModel.getInstance().getStage().setHeight((editMediaView.getFitWidth() / 1.78) + 185);
-                }
-                editMediaView.setTranslateX((Context.getInstance().getLetterBoxingCurrent()) / 2);
-            });
-            resizeIncreaseTimer.stop();
+    // 288 & 281 are the offsets for the UI elements in the scene, 281 includes the timeline and filmstrip rows
+    // Runs on the FX thread once the resize debounce settles
+    // Overlays follow the resize through PreviewModel.updateOverlayTransform() so nothing is reloaded here
+    private void resizeIncreaseDetected(){
+        if(Context.getInstance().getLetterBoxingCurrent() < 0){
+            ProfileModel.getInstance().getStage().setWidth((editMediaView.getFitHeight() * 1.78) + 288);
+        } else if (Context.getInstance().getLetterBoxingCurrent() > (60 * Context.getInstance().getWidthRatio()) && !ProfileModel.getInstance().getStage().isMaximized()){
+            ProfileModel.getInstance().getStage().setHeight((editMediaView.getFitWidth() / 1.78) + 281);
         }
+        editMediaView.setTranslateX((Context.getInstance().getLetterBoxingCurrent()) / 2);
     }
-    private class ResizeDecreaseDetected implements ActionListener {
-        @Override
-        public void actionPerformed(java.awt.event.ActionEvent ae) {
-            Platform.runLater(()->{
-                if(!ProfileModel.getInstance().getVideoProperties().isEmpty()){
-                    PreviewModel.getInstance().reloadMediaPlayer();
-                }
-                if(Context.getInstance().getLetterBoxingCurrent() < 0){
-                    ProfileModel.getInstance().getStage().setHeight((editMediaView.getFitWidth() / 1.78) + 185);
-                } else if (Context.getInstance().getLetterBoxingCurrent() > (60 * Context.getInstance().getWidthRatio()) && !ProfileModel.getInstance().getStage().isMaximized()){
-                    ProfileModel.getInstance().getStage().setHeight(((editMediaView.getFitWidth() - Context.getInstance().getLetterBoxingCurrent()) / 1.78) + 185);
-                }
-                editMediaView.setTranslateX((Context.getInstance().getLetterBoxingCurrent()) / 2);
-            });
-            resizeDecreaseTimer.stop();
+    private void resizeDecreaseDetected(){
+        if(Context.getInstance().getLetterBoxingCurrent() < 0){
+            ProfileModel.getInstance().getStage().setHeight((editMediaView.getFitWidth() / 1.78) + 281);
+        } else if (Context.getInstance().getLetterBoxingCurrent() > (60 * Context.getInstance().getWidthRatio()) && !ProfileModel.getInstance().getStage().isMaximized()){
+            ProfileModel.getInstance().getStage().setHeight(((editMediaView.getFitWidth() - Context.getInstance().getLetterBoxingCurrent()) / 1.78) + 281);
         }
+        editMediaView.setTranslateX((Context.getInstance().getLetterBoxingCurrent()) / 2);
     }
     
     //Bind UI element properties to their respective models
@@ -1185,15 +1348,9 @@ public class EditViewController implements Initializable, SetController {
         editMediaView.fitHeightProperty().addListener((obs, oldVal, newVal) -> {
             
             if(oldVal.doubleValue() > newVal.doubleValue()){
-                if(resizeDecreaseTimer.isRunning()){
-                    resizeDecreaseTimer.stop();
-                }
-                resizeDecreaseTimer.start();
+                resizeDecreaseTimer.trigger();
             } else {
-                if(resizeIncreaseTimer.isRunning()){
-                    resizeIncreaseTimer.stop();
-                }
-                resizeIncreaseTimer.start();
+                resizeIncreaseTimer.trigger();
             }
             Platform.runLater(()->{
                 double ratioWidth = (newVal.doubleValue() * 1.78);
@@ -1203,26 +1360,17 @@ public class EditViewController implements Initializable, SetController {
                 Context.getInstance().setLetterboxingCurrent((int)remainder + 1);
 
                 Context.getInstance().setHeightRatio(newVal.doubleValue() / 720.0);
+                PreviewModel.getInstance().updateOverlayTransform();
             });
         });
         editMediaView.fitWidthProperty().addListener((obs, oldVal, newVal) -> {
             
             if(oldVal.doubleValue() > newVal.doubleValue()){
-                if(resizeDecreaseTimer.isRunning()){
-                    resizeDecreaseTimer.stop();
-                }
-                if(resizeIncreaseTimer.isRunning()){
-                    resizeIncreaseTimer.stop();
-                }
-                resizeDecreaseTimer.start();
+                resizeIncreaseTimer.stop();
+                resizeDecreaseTimer.trigger();
             } else {
-                if(resizeIncreaseTimer.isRunning()){
-                    resizeIncreaseTimer.stop();
-                }
-                if(resizeDecreaseTimer.isRunning()){
-                    resizeDecreaseTimer.stop();
-                }
-                resizeIncreaseTimer.start();
+                resizeDecreaseTimer.stop();
+                resizeIncreaseTimer.trigger();
             }
             
             Platform.runLater(()->{
@@ -1231,6 +1379,7 @@ public class EditViewController implements Initializable, SetController {
                 Context.getInstance().setLetterboxingCurrent((int)remainder + 1);
             
                 Context.getInstance().setWidthRatio((newVal.doubleValue() - ((int)remainder + 1)) / 1280.0);
+                PreviewModel.getInstance().updateOverlayTransform();
             });
         });
         
@@ -1240,17 +1389,17 @@ public class EditViewController implements Initializable, SetController {
             Platform.runLater(()->{
                 if (mainVideoTimeSlider.isValueChanging()) {
                     // multiply duration by percentage of slider position
-                    PreviewModel.getInstance().getMediaPlayer().seek(PreviewModel.getInstance().getDuration().multiply(mainVideoTimeSlider.getValue() / 100.0));
+                    PreviewModel.getInstance().seek(PreviewModel.getInstance().getDuration().multiply(mainVideoTimeSlider.getValue() / 100.0));
                 }
             });    
         });
         mainVideoTimeSlider.setOnMouseReleased((event) -> {
             Platform.runLater(()->{
-                PreviewModel.getInstance().getMediaPlayer().seek(PreviewModel.getInstance().getDuration().multiply(mainVideoTimeSlider.getValue() / 100.0));
+                PreviewModel.getInstance().seek(PreviewModel.getInstance().getDuration().multiply(mainVideoTimeSlider.getValue() / 100.0));
             });
         });
         
-        //Checking for LEFT or RIGHT arrow keys to skip or rewind video 15ms (~1 frame in a 60 FPS video)
+        //Checking for LEFT or RIGHT arrow keys to step the video one frame, 15ms when the video has no frame index
         mainVideoTimeSlider.setOnKeyPressed((event)->{
             Platform.runLater(()->{
                 if(event.getCode().equals(KeyCode.LEFT)){
@@ -1259,7 +1408,7 @@ public class EditViewController implements Initializable, SetController {
                         if ( status != MediaPlayer.Status.PAUSED || status != MediaPlayer.Status.READY || status != MediaPlayer.Status.STOPPED){
                             PreviewModel.getInstance().getMediaPlayer().pause();
                         }
-                        PreviewModel.getInstance().getMediaPlayer().seek(PreviewModel.getInstance().getMediaPlayer().getCurrentTime().subtract(Duration.millis(15)));
+                        PreviewModel.getInstance().seek(FrameIndexModel.getInstance().previousFrame(PreviewModel.getInstance().getMediaPlayer().getCurrentTime()));
                     }
                 } else if(event.getCode().equals(KeyCode.RIGHT)){
                     if(!ProfileModel.getInstance().getVideoProperties().isEmpty()){
@@ -1267,7 +1416,7 @@ public class EditViewController implements Initializable, SetController {
                         if ( status != MediaPlayer.Status.PAUSED || status != MediaPlayer.Status.READY || status != MediaPlayer.Status.STOPPED){
                             PreviewModel.getInstance().getMediaPlayer().pause();
                         }
-                        PreviewModel.getInstance().getMediaPlayer().seek(PreviewModel.getInstance().getMediaPlayer().getCurrentTime().add(Duration.millis(15)));
+                        PreviewModel.getInstance().seek(FrameIndexModel.getInstance().nextFrame(PreviewModel.getInstance().getMediaPlayer().getCurrentTime()));
                     }
                 }
                 if(!mainVideoTimeSlider.isValueChanging()){
@@ -1280,6 +1429,84 @@ public class EditViewController implements Initializable, SetController {
             mainVideoTimeSlider.requestFocus();
         });
         
+        //Filmstrip and hover previews are drawn from FilmstripModel, the preview player is never seeked for them
+        framePreview.setFitWidth(FilmstripModel.FRAME_WIDTH);
+        framePreview.setFitHeight(FilmstripModel.FRAME_HEIGHT);
+        framePreviewTT.setGraphic(framePreview);
+        framePreviewTT.setStyle(toolTipStyle);
+        filmstripCanvas.widthProperty().bind(mainVideoTimeSlider.widthProperty());
+        filmstripCanvas.widthProperty().addListener((obs) -> drawFilmstrip());
+        FilmstripModel.getInstance().filmstripImageProperty().addListener((obs) -> drawFilmstrip());
+        FilmstripModel.getInstance().framesReadyProperty().addListener((obs) -> drawFilmstrip());
+        WaveformModel.getInstance().waveformsBuiltProperty().addListener((obs) -> drawFilmstrip());
+        mainVideoTimeSlider.setOnMouseMoved((event)->{
+            double fraction = event.getX() / mainVideoTimeSlider.getWidth();
+            Rectangle2D viewport = FilmstripModel.getInstance().getFrameViewport(fraction);
+            if(viewport == null || PreviewModel.getInstance().getDuration() == null){
+                framePreviewTT.hide();
+                return;
+            }
+            framePreview.setImage(FilmstripModel.getInstance().filmstripImageProperty().get());
+            framePreview.setViewport(viewport);
+            framePreviewTT.setText(TheatreModel.getInstance().timeConversion((int) (PreviewModel.getInstance().getDuration().toSeconds() * fraction)));
+            framePreviewTT.show(mainVideoTimeSlider, event.getScreenX() - FilmstripModel.FRAME_WIDTH / 2, event.getScreenY() - FilmstripModel.FRAME_HEIGHT - 60);
+        });
+        mainVideoTimeSlider.setOnMouseExited((event)->{
+            framePreviewTT.hide();
+        });
+        
+        //Timeline tracks, only the transitions inside the visible window are drawn
+        //Scroll zooms around the mouse, drag or horizontal scroll pans, click selects and double click edits
+        timelineCanvas.widthProperty().bind(mainVideoTimeSlider.widthProperty());
+        timelineCanvas.widthProperty().addListener((obs) -> timelineRedraw.trigger());
+        mainVideoTimeSlider.valueProperty().addListener((obs) -> timelineRedraw.trigger());
+        markerEventsListView.getSelectionModel().selectedItemProperty().addListener((obs) -> timelineRedraw.trigger());
+        TimelineModel.getInstance().revisionProperty().addListener((obs) -> timelineRedraw.trigger());
+        WaveformModel.getInstance().waveformsBuiltProperty().addListener((obs) -> timelineRedraw.trigger());
+        timelineCanvas.setOnScroll((event)->{
+            double scale = getTimelineScale();
+            if(scale <= 0){
+                return;
+            }
+            if(Math.abs(event.getDeltaX()) > Math.abs(event.getDeltaY())){
+                timelineStart -= event.getDeltaX() * scale;
+            } else {
+                double time = timelineStart + event.getX() * scale;
+                timelineScale = Math.max(TIMELINE_MIN_SCALE, scale * Math.pow(1.1, -event.getDeltaY() / 40));
+                timelineStart = time - event.getX() * timelineScale;
+            }
+            timelineRedraw.trigger();
+        });
+        timelineCanvas.setOnMousePressed((event)->{
+            timelinePressX = event.getX();
+            timelinePressStart = timelineStart;
+        });
+        timelineCanvas.setOnMouseDragged((event)->{
+            double scale = getTimelineScale();
+            if(scale > 0){
+                timelineStart = timelinePressStart - (event.getX() - timelinePressX) * scale;
+                timelineRedraw.trigger();
+            }
+        });
+        timelineCanvas.setOnMouseClicked((event)->{
+            double scale = getTimelineScale();
+            if(scale <= 0 || !event.isStillSincePress()){
+                return;
+            }
+            int track = (int) (event.getY() / (timelineCanvas.getHeight() / TRACK_COLORS.length));
+            long time = (long) (timelineStart + event.getX() * scale);
+            String key = TimelineModel.getInstance().find(BinaryProfile.Section.values()[Math.min(track, TRACK_COLORS.length - 1)], time, (long) (3 * scale));
+            if(key != null){
+                markerEventsListView.getSelectionModel().select(key);
+                markerEventsListView.scrollTo(key);
+                if(event.getClickCount() == 2){
+                    editVideoMarker(null);
+                }
+            } else if(PreviewModel.getInstance().getMediaPlayer() != null){
+                PreviewModel.getInstance().seek(Duration.millis(time));
+            }
+        });
+        
         
         //************************************************************************
         //                          UNIVERSAL EVENTS                            
@@ -1295,32 +1522,32 @@ public class EditViewController implements Initializable, SetController {
                     String tempValue = event.getNewValue().replace("-", "_");
                     
                     if(TextTransitionModel.getInstance().getTextMarkers().containsKey(tempString)){
-                        String value = (String)TextTransitionModel.getInstance().getTextMarkers().get(tempString);
+                        TextTransition value = TextTransitionModel.getInstance().getTextMarkers().get(tempString);
                         TextTransitionModel.getInstance().getTextMarkers().remove(tempString);
                         TextTransitionModel.getInstance().getTextMarkers().put(tempValue, value);
                         
                     } else if(ImageTransitionModel.getInstance().getImageMarkers().containsKey(tempString)){
-                        String value = (String)ImageTransitionModel.getInstance().getImageMarkers().get(tempString);
+                        ImageTransition value = ImageTransitionModel.getInstance().getImageMarkers().get(tempString);
                         ImageTransitionModel.getInstance().getImageMarkers().remove(tempString);
                         ImageTransitionModel.getInstance().getImageMarkers().put(tempValue, value);
                         
                     } else if(FFTransitionModel.getInstance().getFFMarkers().containsKey(tempString)){
-                        String value = (String)FFTransitionModel.getInstance().getFFMarkers().get(tempString);
+                        FFTransition value = FFTransitionModel.getInstance().getFFMarkers().get(tempString);
                         FFTransitionModel.getInstance().getFFMarkers().remove(tempString);
                         FFTransitionModel.getInstance().getFFMarkers().put(tempValue, value);
                         
                     } else if(CutTransitionModel.getInstance().getCutMarkers().containsKey(tempString)){
-                        String value = (String)CutTransitionModel.getInstance().getCutMarkers().get(tempString);
+                        CutTransition value = CutTransitionModel.getInstance().getCutMarkers().get(tempString);
                         CutTransitionModel.getInstance().getCutMarkers().remove(tempString);
                         CutTransitionModel.getInstance().getCutMarkers().put(tempValue, value);
                         
                     } else if(AudioTransitionModel.getInstance().getAudioMarkers().containsKey(tempString)){
-                        String value = (String)AudioTransitionModel.getInstance().getAudioMarkers().get(tempString);
+                        AudioTransition value = AudioTransitionModel.getInstance().getAudioMarkers().get(tempString);
                         AudioTransitionModel.getInstance().getAudioMarkers().remove(tempString);
                         AudioTransitionModel.getInstance().getAudioMarkers().put(tempValue, value);
                         
                     } else if(VideoTransitionModel.getInstance().getVideoMarkers().containsKey(tempString)){
-                        String value = (String)VideoTransitionModel.getInstance().getVideoMarkers().get(tempString);
+                        VideoTransition value = VideoTransitionModel.getInstance().getVideoMarkers().get(tempString);
                         VideoTransitionModel.getInstance().getVideoMarkers().remove(tempString);
                         VideoTransitionModel.getInstance().getVideoMarkers().put(tempValue, value);
                     }
@@ -1330,7 +1557,7 @@ public class EditViewController implements Initializable, SetController {
                         ProfileModel.getInstance().getMarkerEventsList().add(tempValue);
                         PreviewModel.getInstance().setCurrentTransition(tempValue);
                         markerEventsListView.getSelectionModel().select(tempValue);
-                        PreviewModel.getInstance().reloadMediaPlayer();
+                        PreviewModel.getInstance().renameTransition(tempString, tempValue);
                     });
                 }
             }
@@ -1482,6 +1709,7 @@ public class EditViewController implements Initializable, SetController {
                     File file = new File("Text//" + textProfileCB.getSelectionModel().getSelectedItem().toString() + ".xml");
                     ProfileModel.getInstance().getTextProfileList().remove(textProfileCB.getSelectionModel().getSelectedItem().toString() );
                     file.delete();
+                    TextStyleCache.getInstance().invalidate(textProfileCB.getSelectionModel().getSelectedItem().toString());
                 }
             });
         });
@@ -1523,7 +1751,7 @@ public class EditViewController implements Initializable, SetController {
         //                          IMAGE EVENTS                                
         //************************************************************************
         
-        //Prompt user to select image file. Create transition and reload player                                    
+        //Prompt user to select image file. Create transition and rebuild it in the preview                                    
         imageFileBtn.setOnAction((event)->{
             imageFile = imageChooser.showOpenDialog(editMediaView.getScene().getWindow());
             if(imageFile != null){
@@ -1532,7 +1760,7 @@ public class EditViewController implements Initializable, SetController {
                     Platform.runLater(()->{
                         ImageTransitionModel.getInstance().setImagePath(tempPath.replace(",", ""));
                         ImageTransitionModel.getInstance().editTransitionString();
-                        PreviewModel.getInstance().reloadMediaPlayer();
+                        PreviewModel.getInstance().updateTransition(PreviewModel.getInstance().getCurrentTransition());
                     });
                 } catch (IOException ex) {
                     Logger.getLogger(EditViewController.class.getName()).log(Level.SEVERE, null, ex);
@@ -1586,12 +1814,12 @@ public class EditViewController implements Initializable, SetController {
                     imageLinkBtn.setId("imageLinkBtn-inactive");
                     imageHeightTextField.setDisable(false);
                     PreviewModel.getInstance().setImageLinkBtnActive(false);
-                    PreviewModel.getInstance().reloadMediaPlayer();
+                    PreviewModel.getInstance().updateTransition(PreviewModel.getInstance().getCurrentTransition());
                 } else {
                     imageLinkBtn.setId("imageLinkBtn-active");
                     imageHeightTextField.setDisable(true);
                     PreviewModel.getInstance().setImageLinkBtnActive(true);
-                    PreviewModel.getInstance().reloadMediaPlayer();
+                    PreviewModel.getInstance().updateTransition(PreviewModel.getInstance().getCurrentTransition());
                 }
                 ImageTransitionModel.getInstance().editTransitionString();
             });
@@ -1700,7 +1928,7 @@ public class EditViewController implements Initializable, SetController {
         });
         
         //Prompt user to select audio file with appropriate extensions
-        //Load transition string and reload mediaplayer
+        //Load transition string and rebuild it in the preview
         audioFileBtn.setOnAction((event)->{
             audioFile = audioChooser.showOpenDialog(editMediaView.getScene().getWindow());
             if(audioFile != null){
@@ -1709,7 +1937,7 @@ public class EditViewController implements Initializable, SetController {
                     Platform.runLater(()->{
                         AudioTransitionModel.getInstance().setAudioPath(tempPath.replace(",", ""));
                         AudioTransitionModel.getInstance().editTransitionString();
-                        PreviewModel.getInstance().reloadMediaPlayer();
+                        PreviewModel.getInstance().updateTransition(PreviewModel.getInstance().getCurrentTransition());
                     });
                 } catch (IOException ex) {
                     Logger.getLogger(EditViewController.class.getName()).log(Level.SEVERE, null, ex);
@@ -1766,12 +1994,12 @@ public class EditViewController implements Initializable, SetController {
                     videoLinkBtn.setId("videoLinkBtn-inactive");
                     videoHeightTextField.setDisable(false);
                     PreviewModel.getInstance().setVideoLinkBtnActive(false);
-                    PreviewModel.getInstance().reloadMediaPlayer();
+                    PreviewModel.getInstance().updateTransition(PreviewModel.getInstance().getCurrentTransition());
                 } else {
                     videoLinkBtn.setId("videoLinkBtn-active");
                     videoHeightTextField.setDisable(true);
                     PreviewModel.getInstance().setVideoLinkBtnActive(true);
-                    PreviewModel.getInstance().reloadMediaPlayer();
+                    PreviewModel.getInstance().updateTransition(PreviewModel.getInstance().getCurrentTransition());
                 }
                 VideoTransitionModel.getInstance().editTransitionString();
             });
@@ -1835,7 +2063,7 @@ public class EditViewController implements Initializable, SetController {
         });
         
         //Prompt user to select a video file with approprate extensions
-        //Load the transition and reload the media player
+        //Load the transition and rebuild it in the preview
         videoFileBtn.setOnAction((event)->{
             videoFile = videoChooser.showOpenDialog(editMediaView.getScene().getWindow());
             if(videoFile != null){
@@ -1844,7 +2072,7 @@ public class EditViewController implements Initializable, SetController {
                     Platform.runLater(()->{
                         VideoTransitionModel.getInstance().setVideoPath(tempPath.replace(",", ""));
                         VideoTransitionModel.getInstance().editTransitionString();
-                        PreviewModel.getInstance().reloadMediaPlayer();
+                        PreviewModel.getInstance().updateTransition(PreviewModel.getInstance().getCurrentTransition());
                     });
                 } catch (IOException ex) {
                     Logger.getLogger(EditViewController.class.getName()).log(Level.SEVERE, null, ex);
@@ -22,6 +22,8 @@ import main.models.TextTransitionModel;
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
+import java.util.List;
+import java.util.Map;
 import java.util.ResourceBundle;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -29,6 +31,7 @@ import javafx.application.Platform;
 import javafx.beans.binding.Bindings;
 import javafx.beans.value.ObservableValue;
 import javafx.collections.ListChangeListener;
+import javafx.collections.MapChangeListener;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
@@ -37,6 +40,7 @@ import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.DialogPane;
 import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
 import javafx.scene.control.ListView;
 import javafx.scene.control.Tooltip;
 import javafx.scene.image.Image;
@@ -47,6 +51,10 @@ import javafx.scene.web.WebView;
 import javafx.stage.FileChooser;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
+import main.models.BinaryProfile;
+import main.models.PlaybackTelemetry;
+import main.models.ProfileLibrary;
+import main.models.QueuePreflight;
 import main.models.AudioTransitionModel;
 import main.models.CutTransitionModel;
 import main.models.DraggableModel;
@@ -61,8 +69,9 @@ public class MainController implements Initializable, SetController {
             private SceneController controller;
     @FXML   private Button helpBtn, videoCreateBtn, liveCreateBtn, mainAddToQueueBtn, removeFromQueueBtn, startCommercialBtn;
     @FXML   private ImageView logoImageView, videoThumbnail;
-    @FXML   private ListView profileListView, profileQueueListView;
-    @FXML   private Text welcomeText, mainBodyText, removePlaylistText, addPlaylistText;
+    @FXML   private ListView profileListView;
+    @FXML   private ListView<String> profileQueueListView;
+    @FXML   private Text welcomeText, mainBodyText, removePlaylistText, addPlaylistText, skippedText;
             private String toolTipStyle = "-fx-font-size: 14px;";
             private File videoFile;
             private FileChooser videoChooser;
@@ -156,9 +165,14 @@ public class MainController implements Initializable, SetController {
     public void deleteProfile(ActionEvent event){
         Platform.runLater(()->{
             if(!ProfileModel.getInstance().getProfileList().isEmpty() && profileListView.getSelectionModel().getSelectedItem() != null){
-                File file = new File("Profiles//" + profileListView.getSelectionModel().getSelectedItem().toString() + ".xml");
-                ProfileModel.getInstance().getProfileList().remove(profileListView.getSelectionModel().getSelectedItem().toString() );
+                String profileName = profileListView.getSelectionModel().getSelectedItem().toString();
+                File file = new File("Profiles//" + profileName + ".xml");
+                ProfileModel.getInstance().getProfileList().remove(profileName);
                 file.delete();
+                BinaryProfile.getFile(profileName).delete();
+                ProfileLibrary.getInstance().getThumbnailFile(profileName).delete();
+                PlaybackTelemetry.deleteProfileFiles(profileName);
+                ProfileLibrary.getInstance().refresh(profileName);
             }
         });        
     }
@@ -232,7 +246,9 @@ public class MainController implements Initializable, SetController {
     public void addProfileToQueue(ActionEvent event) throws IOException{
         Platform.runLater(()->{
             if(!ProfileModel.getInstance().getProfileList().isEmpty() && profileListView.getSelectionModel().getSelectedItem() != null){
-                Context.getInstance().getProfileQueueList().add(profileListView.getSelectionModel().getSelectedItem().toString());
+                String profileName = profileListView.getSelectionModel().getSelectedItem().toString();
+                Context.getInstance().getProfileQueueList().add(profileName);
+                QueuePreflight.getInstance().preflight(profileName);
             }
         });        
     }
@@ -242,7 +258,7 @@ public class MainController implements Initializable, SetController {
     public void removeProfileFromQueue(ActionEvent event){
         Platform.runLater(()->{
             if(!Context.getInstance().getProfileQueueList().isEmpty() && profileQueueListView.getSelectionModel().getSelectedItem() != null){
-                Context.getInstance().getProfileQueueList().remove(profileQueueListView.getSelectionModel().getSelectedItem().toString());
+                Context.getInstance().getProfileQueueList().remove(profileQueueListView.getSelectionModel().getSelectedItem());
             }
         });        
     }
@@ -327,11 +343,11 @@ public class MainController implements Initializable, SetController {
         });
         profileListView.getSelectionModel().selectedItemProperty().addListener((ObservableValue observable, Object oldValue, Object newValue) -> {
             if(!Context.getInstance().getEditViewOpened() && !profileListView.getItems().isEmpty()){
-                ProfileModel.getInstance().clearSceneProperties();
-                ProfileModel.getInstance().loadProfileFromXML(newValue.toString());
-                Platform.runLater(()->{
-                    ProfileModel.getInstance().prepareScreenshot(ProfileModel.getInstance().getVideoProperties().get(0).toString());
-                });
+                if(newValue != null){
+                    Platform.runLater(()->{
+                        ProfileModel.getInstance().showThumbnail(newValue.toString());
+                    });
+                }
             }
         });
         
@@ -340,7 +356,49 @@ public class MainController implements Initializable, SetController {
         profileQueueListView.setItems(Context.getInstance().getProfileQueueList());
         profileQueueListView.setFixedCellSize(50);
         profileQueueListView.getStylesheets().add("main/stylesheets/listViewStyles.css");
-        profileQueueListView.getItems().addListener((ListChangeListener.Change c) -> {
+        //Show the preflight status of each queued profile, failed profiles list their problems in the tooltip
+        profileQueueListView.setCellFactory(listView -> new ListCell<String>(){
+            @Override
+            protected void updateItem(String item, boolean empty){
+                super.updateItem(item, empty);
+                if(empty || item == null){
+                    setText(null);
+                    setTooltip(null);
+                    setStyle("");
+                    return;
+                }
+                QueuePreflight.Status status = QueuePreflight.getInstance().getStatusMap().get(item);
+                QueuePreflight.Result result = QueuePreflight.getInstance().getResult(item);
+                setText(item);
+                if(status == QueuePreflight.Status.FAILED && result != null){
+                    setStyle("-fx-text-fill: #882222;");
+                    Tooltip problemsTT = new Tooltip(String.join("\n", result.getProblems()));
+                    problemsTT.setStyle(toolTipStyle);
+                    setTooltip(problemsTT);
+                } else if(status == QueuePreflight.Status.PENDING){
+                    setStyle("-fx-opacity: 0.6;");
+                    setTooltip(listViewTT);
+                } else {
+                    setStyle("");
+                    setTooltip(listViewTT);
+                }
+            }
+        });
+        QueuePreflight.getInstance().getStatusMap().addListener((MapChangeListener.Change<? extends String, ? extends QueuePreflight.Status> c) -> {
+            profileQueueListView.refresh();
+        });
+        //Profiles skipped on air are named under the queue, their problems are in the tooltip
+        Tooltip skippedTT = new Tooltip();
+        skippedTT.setStyle(toolTipStyle);
+        Tooltip.install(skippedText, skippedTT);
+        QueuePreflight.getInstance().getSkippedMap().addListener((MapChangeListener.Change<? extends String, ? extends List<String>> c) -> {
+            Map<String, List<String>> skipped = QueuePreflight.getInstance().getSkippedMap();
+            StringBuilder problems = new StringBuilder();
+            skipped.forEach((name, list) -> problems.append(name).append(":\n").append(String.join("\n", list)).append("\n"));
+            skippedText.setText(skipped.isEmpty() ? "" : "Skipped on air: " + String.join(", ", skipped.keySet()));
+            skippedTT.setText(problems.toString().trim());
+        });
+        profileQueueListView.getItems().addListener((ListChangeListener.Change<? extends String> c) -> {
             Platform.runLater(()->{
                 if(!profileQueueListView.getItems().isEmpty()){
                     removePlaylistText.setStyle("-fx-fill: #f2f2f2");
@@ -37,14 +37,14 @@ public class TheatreController implements Initializable {
     //Theatre plays a 5 sec timer countdown for user when start button is pressed
     
     private Text mainMessage, timer;
-    @FXML private MediaView theatreMediaView;
+    @FXML private MediaView theatreMediaView, theatreMediaViewB;
     @FXML private AnchorPane theatreAnchorPane;
     @FXML private StackPane timerStackPane;
     
     @Override
     public void initialize(URL url, ResourceBundle rb) {
         Context.getInstance().setTheatreController(this);
-        TheatreModel.getInstance().setMediaView(theatreMediaView);
+        TheatreModel.getInstance().setMediaViews(theatreMediaView, theatreMediaViewB);
         TheatreModel.getInstance().setAnchorPane(theatreAnchorPane);
         theatreAnchorPane.setStyle("-fx-background-color: black");
         
@@ -0,0 +1,248 @@
+/*************************************************************************************************************************
+ * Source Code Form License Notice
+ *************************************************************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ **************************************************************************************************************************/
+/*************************************************************************************************************************
+ *   Author: Jarek Thomas
+ *
+ *   App Scheduler
+ *
+ *   Every timer in the app runs here. UI timers (debounce, throttle, countdown) are checked on the FX pulse by a
+ *   single AnimationTimer that only runs while one of them is pending, so their actions run on the FX thread without
+ *   a timer thread or Platform.runLater hop. Background work (profile writes, telemetry files) runs on one daemon
+ *   thread. closeApplication shuts both down with shutdown()
+ ***************************************************************************************************************************/
+
+package main.models;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+
+public class AppScheduler {
+    private final static AppScheduler INSTANCE = new AppScheduler();
+
+    private final ScheduledExecutorService executor;
+    private final List<FxTask> pending = new ArrayList<>();
+    private FxTask[] firing = new FxTask[0];
+    private boolean pulseRunning;
+    private final AnimationTimer pulse = new AnimationTimer(){
+        @Override
+        public void handle(long now){
+            tick();
+        }
+    };
+
+    private AppScheduler(){
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "AppScheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    public static AppScheduler getInstance(){
+        return INSTANCE;
+    }
+
+    //Runs action once no trigger has happened for delay (ms)
+    public Debounce debounce(long delay, Runnable action){
+        return new Debounce(delay, action);
+    }
+
+    //Runs action at most once per interval (ms), the last trigger inside an interval runs when it ends
+    public Throttle throttle(long interval, Runnable action){
+        return new Throttle(interval, action);
+    }
+
+    //Calls onTick every period (ms) with count - 1 down to 0
+    public Countdown countdown(int count, long period, IntConsumer onTick){
+        return new Countdown(count, period, onTick);
+    }
+
+    //Background work, runs in submission order on the scheduler thread
+    public void execute(Runnable task){
+        executor.execute(task);
+    }
+
+    //Cancels pending UI timers and finishes background work that is already queued
+    public void shutdown(){
+        runOnFx(()->{
+            for(FxTask task : pending){
+                task.running = false;
+            }
+            pending.clear();
+            stopPulse();
+        });
+        executor.shutdown();
+        try{
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void tick(){
+        long now = System.nanoTime();
+        //Tasks fired here may arm or cancel others
+        firing = pending.toArray(firing);
+        int count = pending.size();
+        for(int i = 0; i < count; i++){
+            FxTask task = firing[i];
+            firing[i] = null;
+            if(task.running && now >= task.deadline){
+                task.running = false;
+                pending.remove(task);
+                try{
+                    task.fire(now);
+                }catch(Exception e){
+                    e.printStackTrace();
+                }
+            }
+        }
+        if(pending.isEmpty()){
+            stopPulse();
+        }
+    }
+
+    private void arm(FxTask task, long deadline){
+        task.deadline = deadline;
+        if(!task.running){
+            task.running = true;
+            pending.add(task);
+        }
+        if(!pulseRunning){
+            pulseRunning = true;
+            pulse.start();
+        }
+    }
+
+    private void cancel(FxTask task){
+        if(task.running){
+            task.running = false;
+            pending.remove(task);
+        }
+    }
+
+    private void stopPulse(){
+        if(pulseRunning){
+            pulseRunning = false;
+            pulse.stop();
+        }
+    }
+
+    private static void runOnFx(Runnable action){
+        if(Platform.isFxApplicationThread()){
+            action.run();
+        } else {
+            Platform.runLater(action);
+        }
+    }
+
+    public abstract static class FxTask {
+        private long deadline;
+        private boolean running;
+
+        public boolean isRunning(){
+            return this.running;
+        }
+
+        public void stop(){
+            runOnFx(() -> INSTANCE.cancel(this));
+        }
+
+        abstract void fire(long now);
+    }
+
+    public static final class Debounce extends FxTask {
+        private final long delay;
+        private final Runnable action;
+
+        private Debounce(long delay, Runnable action){
+            this.delay = TimeUnit.MILLISECONDS.toNanos(delay);
+            this.action = action;
+        }
+
+        //Restarts the delay
+        public void trigger(){
+            runOnFx(() -> INSTANCE.arm(this, System.nanoTime() + delay));
+        }
+
+        @Override
+        void fire(long now){
+            action.run();
+        }
+    }
+
+    public static final class Throttle extends FxTask {
+        private final long interval;
+        private final Runnable action;
+        private long lastRun = Long.MIN_VALUE;
+
+        private Throttle(long interval, Runnable action){
+            this.interval = TimeUnit.MILLISECONDS.toNanos(interval);
+            this.action = action;
+        }
+
+        public void trigger(){
+            runOnFx(()->{
+                long now = System.nanoTime();
+                if(lastRun == Long.MIN_VALUE || now - lastRun >= interval){
+                    INSTANCE.cancel(this);
+                    fire(now);
+                } else if(!isRunning()){
+                    INSTANCE.arm(this, lastRun + interval);
+                }
+            });
+        }
+
+        @Override
+        void fire(long now){
+            lastRun = now;
+            action.run();
+        }
+    }
+
+    public static final class Countdown extends FxTask {
+        private final int count;
+        private final long period;
+        private final IntConsumer onTick;
+        private int remaining;
+
+        private Countdown(int count, long period, IntConsumer onTick){
+            this.count = count;
+            this.period = TimeUnit.MILLISECONDS.toNanos(period);
+            this.onTick = onTick;
+        }
+
+        //Starts again from count
+        public void start(){
+            runOnFx(()->{
+                remaining = count;
+                INSTANCE.arm(this, System.nanoTime() + period);
+            });
+        }
+
+        @Override
+        void fire(long now){
+            remaining--;
+            if(remaining > 0){
+                //Scheduled before the tick so onTick can stop the countdown
+                INSTANCE.arm(this, deadlineAfter(now));
+            }
+            onTick.accept(remaining);
+        }
+
+        //Keeps the ticks on a fixed period instead of drifting by a pulse each time
+        private long deadlineAfter(long now){
+            long next = super.deadline + period;
+            return next > now ? next : now + period;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*************************************************************************************************************************
+ * Source Code Form License Notice
+ *************************************************************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ **************************************************************************************************************************/
+/*************************************************************************************************************************
+ *   Author: Jarek Thomas
+ *
+ *   Immutable Audio Transition
+ *   Transition String Format:  Filepath - StartTime(ms) - StopTime(ms) - Playrate(x.x) - Volume(x.x) - SeekTime(ms)
+ ***************************************************************************************************************************/
+
+package main.models;
+
+public final class AudioTransition extends Transition {
+
+    private final String audioPath;
+    private final double playRate, volume, seekTime;
+
+    public AudioTransition(String audioPath, int startTime, int stopTime, double playRate, double volume, double seekTime){
+        super(startTime, stopTime);
+        this.audioPath = audioPath;
+        this.playRate = playRate;
+        this.volume = volume;
+        this.seekTime = seekTime;
+    }
+
+    //File path is read from the right so it may contain commas
+    public static AudioTransition parse(String value){
+        String[] tempArray = TransitionCodec.splitTrailing(value, 5);
+        return new AudioTransition(tempArray[0],
+                TransitionCodec.parseTime(tempArray[1]),
+                TransitionCodec.parseTime(tempArray[2]),
+                TransitionCodec.parseDouble(tempArray[3]),
+                TransitionCodec.parseDouble(tempArray[4]),
+                TransitionCodec.parseDouble(tempArray[5]));
+    }
+
+    public String getAudioPath(){
+        return this.audioPath;
+    }
+    public double getPlayRate(){
+        return this.playRate;
+    }
+    public double getVolume(){
+        return this.volume;
+    }
+    public double getSeekTime(){
+        return this.seekTime;
+    }
+
+    @Override
+    public boolean isDefault(){
+        return this.audioPath.equals(TransitionCodec.DEFAULT_TOKEN);
+    }
+
+    @Override
+    public String toTransitionString(){
+        return audioPath + ","
+                + TransitionCodec.formatStartTime(getStartTime()) + "," + TransitionCodec.formatStopTime(getStopTime()) + ","
+                + playRate + "," + volume + "," + seekTime;
+    }
+}
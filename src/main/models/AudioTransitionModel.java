@@ -15,11 +15,13 @@ package main.models;
 
 import java.io.File;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import javafx.beans.property.DoubleProperty;
 import javafx.beans.property.SimpleDoubleProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableMap;
+import javafx.scene.media.AudioClip;
 import javafx.scene.media.Media;
 import javafx.scene.media.MediaPlayer;
 
@@ -28,15 +30,26 @@ public class AudioTransitionModel {
     private final static AudioTransitionModel INSTANCE = new AudioTransitionModel();
     public static final String TRANSITION_STRING = "_DEFAULT,0,*,1.0,1.0,0";
     public static final String TRANSITION_KEY = "Audio";
+    //Clips shorter than this (ms) play from memory through AudioClip
+    public static final long SHORT_CLIP_LENGTH = Long.getLong("beerb.shortclip", 5000);
+    //Decoded short clips kept in memory, least recently used are dropped first
+    private static final int SHORT_CLIP_CAP = Integer.getInteger("beerb.shortclip.cap", 32);
     
 
     private final SimpleDoubleProperty playRate = new SimpleDoubleProperty();
     private final SimpleDoubleProperty volume = new SimpleDoubleProperty();
     private final SimpleDoubleProperty seekTime = new SimpleDoubleProperty();
     
-    private final ObservableMap<String, String> audioMarkersObMap;
-    private final Map<String, String> audioMarkersHashMap = new HashMap<>();
+    private final ObservableMap<String, AudioTransition> audioMarkersObMap;
+    private final Map<String, AudioTransition> audioMarkersHashMap = new HashMap<>();
     private String audioPath = "";
+    //Keyed by ProfileLibrary.getClipKey so an edited file is decoded again
+    private final Map<String, AudioClip> shortClips = new LinkedHashMap<String, AudioClip>(16, 0.75f, true){
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, AudioClip> eldest){
+            return size() > SHORT_CLIP_CAP;
+        }
+    };
     
     private AudioTransitionModel(){
         this.audioMarkersObMap = FXCollections.observableMap(audioMarkersHashMap);
@@ -46,11 +59,11 @@ public class AudioTransitionModel {
         return INSTANCE;
     }
     
-    public final Map getAudioMarkersMap(){
+    public final Map<String, AudioTransition> getAudioMarkersMap(){
         return this.audioMarkersHashMap;
     }
     
-    public final ObservableMap getAudioMarkers(){
+    public final ObservableMap<String, AudioTransition> getAudioMarkers(){
         return this.audioMarkersObMap;
     }
     
@@ -106,6 +119,30 @@ public class AudioTransitionModel {
         return tempMediaPlayer;
     }
     
+    //Returns the decoded clip when the transition can use the short clip path, otherwise null
+    //Only clips with a known length under SHORT_CLIP_LENGTH that start at the beginning qualify
+    public synchronized AudioClip getShortClip(AudioTransition transition){
+        if(transition.getSeekTime() != 0){
+            return null;
+        }
+        long duration = ProfileLibrary.getInstance().getClipDuration(transition.getAudioPath());
+        if(duration < 0 || duration >= SHORT_CLIP_LENGTH){
+            return null;
+        }
+        String key = ProfileLibrary.getInstance().getClipKey(transition.getAudioPath());
+        AudioClip clip = shortClips.get(key);
+        if(clip == null){
+            try{
+                clip = new AudioClip(new File(transition.getAudioPath()).toURI().toString());
+            }catch(Exception e){
+                e.printStackTrace();
+                return null;
+            }
+            shortClips.put(key, clip);
+        }
+        return clip;
+    }
+    
     public void clearTransitionProperties(){
         this.playRate.setValue(1.0);
         this.volume.setValue(1.0);
@@ -116,55 +153,41 @@ public class AudioTransitionModel {
     public void createDefaultTransition(){
         String temp = getDefaultTransitionKey();
         ProfileModel.getInstance().getMarkerEventsList().add(temp);
-        getAudioMarkers().put(temp, TRANSITION_STRING);
+        getAudioMarkers().put(temp, AudioTransition.parse(TRANSITION_STRING));
     }
     
-    /*
-    Transition String Format:  Filepath - StartTime(ms) - StopTime(ms) - Playrate(x.x) - Volume(x.x) - SeekTime(ms)
-    */    
-    
     public void editTransitionString(){
         
-        String keyString = "";
-        String valueString = "";
-
-        keyString += PreviewModel.getInstance().getCurrentTransition();
-        
-        valueString += getAudioPath() + ",";
-        
-        valueString += PreviewModel.getInstance().getStartTimestamp() + ",";
-        
-        if(PreviewModel.getInstance().getStopTimestamp().equals("*") || PreviewModel.getInstance().getStopTimestamp().equals("0")){
-            valueString += "*,";
-        } else {
-            valueString += PreviewModel.getInstance().getStopTimestamp() + ",";
-        }
+        String keyString = PreviewModel.getInstance().getCurrentTransition();
         
-        valueString += getPlayRate() + ",";
-        valueString += getVolume() + ",";
-        valueString += getSeekTime();
+        AudioTransition transition = new AudioTransition(
+                getAudioPath(),
+                TransitionCodec.parseTime(PreviewModel.getInstance().getStartTimestamp()),
+                TransitionCodec.parseStopTimestamp(PreviewModel.getInstance().getStopTimestamp()),
+                getPlayRate(),
+                getVolume(),
+                getSeekTime());
         
-        getAudioMarkers().put(keyString, valueString);
+        getAudioMarkers().put(keyString, transition);
         
         Context.getInstance().setDidSave(false);
     }
     
     public void loadTransitionString(String keyString){
         
-        String tempString = (String)getAudioMarkers().get(keyString);
-        String[] tempArray = tempString.split(",");
+        AudioTransition transition = getAudioMarkers().get(keyString);
         
-        setAudioPath(tempArray[0]);
-        setPlayRate(Double.parseDouble(tempArray[3]));
-        setVolume(Double.parseDouble(tempArray[4]));
-        setSeekTime(Double.parseDouble(tempArray[5]));
+        setAudioPath(transition.getAudioPath());
+        setPlayRate(transition.getPlayRate());
+        setVolume(transition.getVolume());
+        setSeekTime(transition.getSeekTime());
 
-        if(tempArray[0].equals("_DEFAULT")){
+        if(transition.isDefault()){
             PreviewModel.getInstance().setStartTimestamp((int)PreviewModel.getInstance().getMediaPlayer().getCurrentTime().toMillis() + "");
         } else {
-            PreviewModel.getInstance().setStartTimestamp(tempArray[1]);
+            PreviewModel.getInstance().setStartTimestamp(TransitionCodec.formatStartTime(transition.getStartTime()));
         }
         
-        PreviewModel.getInstance().setStopTimestamp(tempArray[2]);
+        PreviewModel.getInstance().setStopTimestamp(TransitionCodec.formatStopTime(transition.getStopTime()));
     }
 }
@@ -0,0 +1,394 @@
+/*************************************************************************************************************************
+ * Source Code Form License Notice
+ *************************************************************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ **************************************************************************************************************************/
+/*************************************************************************************************************************
+ *   Author: Jarek Thomas
+ *
+ *   Compact Binary Profile Format (Profiles//<name>.bprf)
+ *
+ *   Magic(int) - Version(short) - Source - HeaderLength(int) - Header - SectionCount(int) - Section Table - Sections
+ *   Source:         XMLLastModified(long) - XMLLength(long)   Stamp of the XML the copy was made from, version 2 and up
+ *   Header:         PropertyCount(int) - VideoProperties(UTF)...
+ *   Section Table:  Type(byte) - EntryCount(int) - Offset(long) - Length(int)   Offset is from the start of the file
+ *   Section:        EntryLength(int) - Key(UTF) - Fields...   Readers skip fields they do not know about
+ *
+ *   The header and each section can be read on their own without decoding the rest of the file
+ *   The binary copy is only used while the XML still has the stamp it was made from, see isCurrent()
+ ***************************************************************************************************************************/
+
+package main.models;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+
+public final class BinaryProfile {
+
+    public static final String EXTENSION = ".bprf";
+    private static final int MAGIC = 0x42524250;
+    private static final short VERSION = 2;
+    private static final int TABLE_ENTRY_LENGTH = 17;
+
+    //Section type ids are written to the file so never reorder or reuse them
+    public enum Section {
+        TEXT(1), IMAGE(2), FF(3), CUT(4), AUDIO(5), VIDEO(6);
+
+        private final byte id;
+
+        Section(int id){
+            this.id = (byte) id;
+        }
+
+        private static Section fromId(byte id){
+            for(Section section : values()){
+                if(section.id == id){
+                    return section;
+                }
+            }
+            return null;
+        }
+    }
+
+    private BinaryProfile(){
+
+    }
+
+    public static File getFile(String profileName){
+        return new File("Profiles//" + profileName + EXTENSION);
+    }
+
+    /*********************************************************************************************************************
+     *  Writing
+     *********************************************************************************************************************/
+
+    //Checks the copy was made from the XML as it is now, older copies without a stamp never are
+    public static boolean isCurrent(File file, File xmlFile){
+        if(!file.exists()){
+            return false;
+        }
+        if(!xmlFile.exists()){
+            return true;
+        }
+        try(DataInputStream in = new DataInputStream(new FileInputStream(file))){
+            if(in.readInt() != MAGIC || in.readShort() < 2){
+                return false;
+            }
+            return in.readLong() == xmlFile.lastModified() && in.readLong() == xmlFile.length();
+        }catch(IOException e){
+            return false;
+        }
+    }
+
+    //source is the XML the profile was read from or written to, its stamp is kept to tell when the copy is stale
+    public static void write(ProfileData profile, File file, File source) throws IOException {
+        Map<Section, byte[]> sections = new EnumMap<>(Section.class);
+        Map<Section, Integer> counts = new EnumMap<>(Section.class);
+        sections.put(Section.TEXT, writeSection(profile.getTextTransitions(), BinaryProfile::writeText));
+        sections.put(Section.IMAGE, writeSection(profile.getImageTransitions(), BinaryProfile::writeImage));
+        sections.put(Section.FF, writeSection(profile.getFFTransitions(), BinaryProfile::writeFF));
+        sections.put(Section.CUT, writeSection(profile.getCutTransitions(), BinaryProfile::writeCut));
+        sections.put(Section.AUDIO, writeSection(profile.getAudioTransitions(), BinaryProfile::writeAudio));
+        sections.put(Section.VIDEO, writeSection(profile.getVideoTransitions(), BinaryProfile::writeVideo));
+        counts.put(Section.TEXT, profile.getTextTransitions().size());
+        counts.put(Section.IMAGE, profile.getImageTransitions().size());
+        counts.put(Section.FF, profile.getFFTransitions().size());
+        counts.put(Section.CUT, profile.getCutTransitions().size());
+        counts.put(Section.AUDIO, profile.getAudioTransitions().size());
+        counts.put(Section.VIDEO, profile.getVideoTransitions().size());
+
+        ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+        DataOutputStream header = new DataOutputStream(headerBytes);
+        header.writeInt(profile.getVideoProperties().size());
+        for(String property : profile.getVideoProperties()){
+            header.writeUTF(property);
+        }
+        header.flush();
+
+        //Magic + version + source + header length + header + section count + table
+        long offset = 4 + 2 + 16 + 4 + headerBytes.size() + 4 + (long) TABLE_ENTRY_LENGTH * sections.size();
+
+        ByteArrayOutputStream fileBytes = new ByteArrayOutputStream((int) offset + 1024);
+        DataOutputStream out = new DataOutputStream(fileBytes);
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeLong(source.lastModified());
+        out.writeLong(source.length());
+        out.writeInt(headerBytes.size());
+        headerBytes.writeTo(out);
+        out.writeInt(sections.size());
+        for(Map.Entry<Section, byte[]> section : sections.entrySet()){
+            out.writeByte(section.getKey().id);
+            out.writeInt(counts.get(section.getKey()));
+            out.writeLong(offset);
+            out.writeInt(section.getValue().length);
+            offset += section.getValue().length;
+        }
+        for(byte[] section : sections.values()){
+            out.write(section);
+        }
+        out.flush();
+
+        Files.write(file.toPath(), fileBytes.toByteArray());
+    }
+
+    //Writes to a temp file in the same folder and moves it over the old copy so readers never see a partial file
+    public static void writeAtomic(ProfileData profile, File file, File source) throws IOException {
+        File tempFile = File.createTempFile(file.getName(), ".tmp", file.getAbsoluteFile().getParentFile());
+        try{
+            write(profile, tempFile, source);
+            try{
+                Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            }catch(AtomicMoveNotSupportedException e){
+                Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }finally{
+            tempFile.delete();
+        }
+    }
+
+    private interface EntryWriter<T extends Transition> {
+        void write(DataOutputStream out, T transition) throws IOException;
+    }
+
+    private static <T extends Transition> byte[] writeSection(Map<String, T> transitions, EntryWriter<T> writer) throws IOException {
+        ByteArrayOutputStream sectionBytes = new ByteArrayOutputStream();
+        DataOutputStream section = new DataOutputStream(sectionBytes);
+        ByteArrayOutputStream entryBytes = new ByteArrayOutputStream();
+        DataOutputStream entry = new DataOutputStream(entryBytes);
+        for(Map.Entry<String, T> transition : transitions.entrySet()){
+            entryBytes.reset();
+            entry.writeUTF(transition.getKey());
+            writer.write(entry, transition.getValue());
+            entry.flush();
+            section.writeInt(entryBytes.size());
+            entryBytes.writeTo(section);
+        }
+        section.flush();
+        return sectionBytes.toByteArray();
+    }
+
+    private static void writeText(DataOutputStream out, TextTransition transition) throws IOException {
+        out.writeUTF(transition.getTextProfile());
+        out.writeDouble(transition.getFontSize());
+        out.writeInt(transition.getXPosition());
+        out.writeInt(transition.getYPosition());
+        out.writeInt(transition.getStartTime());
+        out.writeInt(transition.getStopTime());
+        out.writeUTF(transition.getMessage());
+    }
+
+    private static void writeImage(DataOutputStream out, ImageTransition transition) throws IOException {
+        out.writeUTF(transition.getImagePath());
+        out.writeInt(transition.getXPosition());
+        out.writeInt(transition.getYPosition());
+        out.writeDouble(transition.getFitWidth());
+        out.writeDouble(transition.getFitHeight());
+        out.writeInt(transition.getStartTime());
+        out.writeInt(transition.getStopTime());
+        out.writeBoolean(transition.getPreserveRatio());
+    }
+
+    private static void writeFF(DataOutputStream out, FFTransition transition) throws IOException {
+        out.writeInt(transition.getStartTime());
+        out.writeInt(transition.getStopTime());
+        out.writeDouble(transition.getStartRate());
+        out.writeDouble(transition.getStopRate());
+    }
+
+    private static void writeCut(DataOutputStream out, CutTransition transition) throws IOException {
+        out.writeInt(transition.getStartTime());
+        out.writeInt(transition.getStopTime());
+        out.writeBoolean(transition.getRewind());
+    }
+
+    private static void writeAudio(DataOutputStream out, AudioTransition transition) throws IOException {
+        out.writeUTF(transition.getAudioPath());
+        out.writeInt(transition.getStartTime());
+        out.writeInt(transition.getStopTime());
+        out.writeDouble(transition.getPlayRate());
+        out.writeDouble(transition.getVolume());
+        out.writeDouble(transition.getSeekTime());
+    }
+
+    private static void writeVideo(DataOutputStream out, VideoTransition transition) throws IOException {
+        out.writeUTF(transition.getVideoPath());
+        out.writeInt(transition.getStartTime());
+        out.writeInt(transition.getStopTime());
+        out.writeDouble(transition.getPlayRate());
+        out.writeDouble(transition.getVolume());
+        out.writeInt(transition.getXPosition());
+        out.writeInt(transition.getYPosition());
+        out.writeDouble(transition.getFitWidth());
+        out.writeDouble(transition.getFitHeight());
+        out.writeDouble(transition.getSeekTime());
+        out.writeBoolean(transition.getPreserveRatio());
+    }
+
+    /*********************************************************************************************************************
+     *  Reading
+     *********************************************************************************************************************/
+
+    //Only the video properties are read, transitions are left on disk
+    public static List<String> readHeader(File file) throws IOException {
+        try(RandomAccessFile raf = new RandomAccessFile(file, "r")){
+            return readHeader(raf);
+        }
+    }
+
+    //Reads a single transition type by seeking straight to its section
+    @SuppressWarnings("unchecked")
+    public static <T extends Transition> Map<String, T> readSection(File file, Section section) throws IOException {
+        try(RandomAccessFile raf = new RandomAccessFile(file, "r")){
+            readMagic(raf);
+            raf.skipBytes(raf.readInt());
+            return (Map<String, T>) readSection(raf, readTable(raf).get(section), section);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public static ProfileData read(File file) throws IOException {
+        try(RandomAccessFile raf = new RandomAccessFile(file, "r")){
+            List<String> videoProperties = readHeader(raf);
+            Map<Section, long[]> table = readTable(raf);
+            return new ProfileData(videoProperties,
+                    (Map<String, TextTransition>) readSection(raf, table.get(Section.TEXT), Section.TEXT),
+                    (Map<String, ImageTransition>) readSection(raf, table.get(Section.IMAGE), Section.IMAGE),
+                    (Map<String, FFTransition>) readSection(raf, table.get(Section.FF), Section.FF),
+                    (Map<String, CutTransition>) readSection(raf, table.get(Section.CUT), Section.CUT),
+                    (Map<String, AudioTransition>) readSection(raf, table.get(Section.AUDIO), Section.AUDIO),
+                    (Map<String, VideoTransition>) readSection(raf, table.get(Section.VIDEO), Section.VIDEO));
+        }
+    }
+
+    private static void readMagic(RandomAccessFile raf) throws IOException {
+        if(raf.readInt() != MAGIC){
+            throw new IOException("Not a binary profile");
+        }
+        short version = raf.readShort();
+        if(version > VERSION){
+            throw new IOException("Unsupported binary profile version " + version);
+        }
+        if(version >= 2){
+            raf.skipBytes(16);
+        }
+    }
+
+    private static List<String> readHeader(RandomAccessFile raf) throws IOException {
+        readMagic(raf);
+        int headerLength = raf.readInt();
+        long tableStart = raf.getFilePointer() + headerLength;
+        int propertyCount = raf.readInt();
+        List<String> videoProperties = new ArrayList<>(propertyCount);
+        for(int i = 0; i < propertyCount; i++){
+            videoProperties.add(raf.readUTF());
+        }
+        raf.seek(tableStart);
+        return videoProperties;
+    }
+
+    //Section -> {entryCount, offset, length}, unknown section types from newer versions are ignored
+    private static Map<Section, long[]> readTable(RandomAccessFile raf) throws IOException {
+        Map<Section, long[]> table = new EnumMap<>(Section.class);
+        int sectionCount = raf.readInt();
+        for(int i = 0; i < sectionCount; i++){
+            Section section = Section.fromId(raf.readByte());
+            long[] entry = new long[]{ raf.readInt(), raf.readLong(), raf.readInt() };
+            if(section != null){
+                table.put(section, entry);
+            }
+        }
+        return table;
+    }
+
+    private static Map<String, ? extends Transition> readSection(RandomAccessFile raf, long[] tableEntry, Section section) throws IOException {
+        Map<String, Transition> transitions = new HashMap<>();
+        if(tableEntry == null || tableEntry[0] == 0){
+            return transitions;
+        }
+        byte[] sectionBytes = new byte[(int) tableEntry[2]];
+        raf.seek(tableEntry[1]);
+        raf.readFully(sectionBytes);
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(sectionBytes));
+        for(int i = 0; i < tableEntry[0]; i++){
+            byte[] entryBytes = new byte[in.readInt()];
+            in.readFully(entryBytes);
+            DataInputStream entry = new DataInputStream(new ByteArrayInputStream(entryBytes));
+            transitions.put(entry.readUTF(), readEntry(entry, section));
+        }
+        return transitions;
+    }
+
+    private static Transition readEntry(DataInputStream in, Section section) throws IOException {
+        switch(section){
+            case TEXT:
+                return new TextTransition(in.readUTF(), in.readDouble(), in.readInt(), in.readInt(), in.readInt(), in.readInt(), in.readUTF());
+            case IMAGE:
+                return new ImageTransition(in.readUTF(), in.readInt(), in.readInt(), in.readDouble(), in.readDouble(), in.readInt(), in.readInt(), in.readBoolean());
+            case FF:
+                return new FFTransition(in.readInt(), in.readInt(), in.readDouble(), in.readDouble());
+            case CUT:
+                return new CutTransition(in.readInt(), in.readInt(), in.readBoolean());
+            case AUDIO:
+                return new AudioTransition(in.readUTF(), in.readInt(), in.readInt(), in.readDouble(), in.readDouble(), in.readDouble());
+            default:
+                return new VideoTransition(in.readUTF(), in.readInt(), in.readInt(), in.readDouble(), in.readDouble(), in.readInt(), in.readInt(),
+                        in.readDouble(), in.readDouble(), in.readDouble(), in.readBoolean());
+        }
+    }
+
+    /*********************************************************************************************************************
+     *  XML Conversion
+     *********************************************************************************************************************/
+
+    public static void convertXMLToBinary(File xmlFile, File binaryFile) throws IOException, JAXBException {
+        ProfileWrapper wrapper = (ProfileWrapper) ProfileModel.getInstance().getProfileContext().createUnmarshaller().unmarshal(xmlFile);
+        writeAtomic(ProfileData.fromWrapper(wrapper), binaryFile, xmlFile);
+    }
+
+    //The binary copy is stamped again afterwards since writing the XML changes the stamp it was made from
+    public static void convertBinaryToXML(File binaryFile, File xmlFile) throws IOException, JAXBException {
+        ProfileData profile = read(binaryFile);
+        Marshaller m = ProfileModel.getInstance().getProfileContext().createMarshaller();
+        m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+        m.marshal(profile.toWrapper(), xmlFile);
+        writeAtomic(profile, binaryFile, xmlFile);
+    }
+
+    //Create or refresh the binary copy of every profile XML whose copy was not made from it as it is now
+    public static void convertAllProfiles(){
+        File path = new File("Profiles//");
+        File[] fileList = path.listFiles((File dir, String name) -> name.toLowerCase().endsWith(".xml"));
+        if(fileList == null){
+            return;
+        }
+        for(File file : fileList){
+            File binaryFile = getFile(file.getName().substring( 0,  file.getName().length() - 4 ));
+            if(!isCurrent(binaryFile, file)){
+                try{
+                    convertXMLToBinary(file, binaryFile);
+                }catch(Exception e){
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+}
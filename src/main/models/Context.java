@@ -42,7 +42,7 @@ public class Context {
         return INSTANCE;
     }
 
-    public ObservableList getProfileQueueList(){
+    public ObservableList<String> getProfileQueueList(){
         return this.profileQueueList;
     }
     public ArrayList getUserInput(){
@@ -103,6 +103,9 @@ public class Context {
     
     public void setDidSave(boolean didSave){
         this.didSave = didSave;
+        if(!didSave){
+            ProfileWriter.getInstance().scheduleAutosave();
+        }
     }
     public boolean getDidSave(){
         return this.didSave;
@@ -136,13 +139,11 @@ public class Context {
         return this.letterBoxingPrevious;
     }
     
-    //Check for running timers and stop them
+    //Stop every timer and finish queued writes
     public void closeApplication(){
-        if(TheatreModel.getInstance().getStandbyTimer().isRunning()){
-            TheatreModel.getInstance().getStandbyTimer().stop();
-        }
-        if(PreviewModel.getInstance().getResizeIncreaseTimer().isRunning()){
-            PreviewModel.getInstance().getResizeIncreaseTimer().stop();
-        }
+        LibraryWatcher.getInstance().stop();
+        AppScheduler.getInstance().shutdown();
+        ProfileLibrary.getInstance().flush();
+        MediaPlayerCache.getInstance().clear();
     }
 }
@@ -0,0 +1,47 @@
+/*************************************************************************************************************************
+ * Source Code Form License Notice
+ *************************************************************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ **************************************************************************************************************************/
+/*************************************************************************************************************************
+ *   Author: Jarek Thomas
+ *
+ *   Immutable Cut Transition
+ *
+ *   Transition String Format:  StartTime - StopTime - RewindBoolean
+ *   StopTime is the position the player seeks to when StartTime is reached
+ ***************************************************************************************************************************/
+
+package main.models;
+
+public final class CutTransition extends Transition {
+
+    private final boolean rewind;
+
+    public CutTransition(int startTime, int stopTime, boolean rewind){
+        super(startTime, stopTime);
+        this.rewind = rewind;
+    }
+
+    public static CutTransition parse(String value){
+        String[] tempArray = TransitionCodec.splitLeading(value, 3);
+        return new CutTransition(TransitionCodec.parseTime(tempArray[0]),
+                TransitionCodec.parseTime(tempArray[1]),
+                Boolean.parseBoolean(tempArray[2].trim()));
+    }
+
+    public boolean getRewind(){
+        return this.rewind;
+    }
+
+    @Override
+    public boolean isDefault(){
+        return !hasStartTime();
+    }
+
+    @Override
+    public String toTransitionString(){
+        return TransitionCodec.formatStartTime(getStartTime()) + "," + TransitionCodec.formatStopTime(getStopTime()) + "," + rewind;
+    }
+}
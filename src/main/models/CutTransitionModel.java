@@ -26,8 +26,8 @@ public class CutTransitionModel {
     public static final String TRANSITION_STRING = "_DEFAULT,*,false";
     public static final String TRANSITION_KEY = "Cut";
     
-    private final ObservableMap<String, String> cutMarkersObMap;
-    private final Map<String, String> cutMarkersHashMap = new HashMap<>();
+    private final ObservableMap<String, CutTransition> cutMarkersObMap;
+    private final Map<String, CutTransition> cutMarkersHashMap = new HashMap<>();
     
     private CutTransitionModel(){
         this.cutMarkersObMap = FXCollections.observableMap(cutMarkersHashMap);
@@ -37,11 +37,11 @@ public class CutTransitionModel {
         return INSTANCE;
     }
     
-    public final Map getCutMarkersMap(){
+    public final Map<String, CutTransition> getCutMarkersMap(){
         return this.cutMarkersHashMap;
     }
     
-    public final ObservableMap getCutMarkers(){
+    public final ObservableMap<String, CutTransition> getCutMarkers(){
         return this.cutMarkersObMap;
     }
     
@@ -56,43 +56,37 @@ public class CutTransitionModel {
     public void createDefaultTransition(){
         String temp = getDefaultTransitionKey();
         ProfileModel.getInstance().getMarkerEventsList().add(temp);
-        getCutMarkers().put(temp, TRANSITION_STRING);
+        getCutMarkers().put(temp, CutTransition.parse(TRANSITION_STRING));
     }
     
     public void editTransitionString(){
         
-        String keyString = "";
-        String valueString = "";
-
-        keyString += PreviewModel.getInstance().getCurrentTransition();
-        
-        valueString += PreviewModel.getInstance().getStartTimestamp() + ",";
+        String keyString = PreviewModel.getInstance().getCurrentTransition();
+        int startTime = TransitionCodec.parseTime(PreviewModel.getInstance().getStartTimestamp());
+        int stopTime = TransitionCodec.parseStopTimestamp(PreviewModel.getInstance().getStopTimestamp());
         
-        if(PreviewModel.getInstance().getStopTimestamp().equals("*") || PreviewModel.getInstance().getStopTimestamp().equals("0")){
-            valueString += (Integer.parseInt(PreviewModel.getInstance().getStartTimestamp()) + 10 ) + ",";
-        } else {
-            valueString += PreviewModel.getInstance().getStopTimestamp() + ",";
+        //A cut always needs a destination so default to just past the start
+        if(stopTime == Transition.NONE){
+            stopTime = startTime + 10;
         }
         
-        valueString += PreviewModel.getInstance().getRewindCut();
-        getCutMarkers().put(keyString, valueString);
+        getCutMarkers().put(keyString, new CutTransition(startTime, stopTime, PreviewModel.getInstance().getRewindCut()));
         
         Context.getInstance().setDidSave(false);
     }
     
     public void loadTransitionString(String keyString){
         
-        String tempString = (String)getCutMarkers().get(keyString);
-        String[] tempArray = tempString.split(",");
+        CutTransition transition = getCutMarkers().get(keyString);
 
-        if(tempArray[0].equals("_DEFAULT")){
+        if(transition.isDefault()){
             PreviewModel.getInstance().setStartTimestamp((int)PreviewModel.getInstance().getMediaPlayer().getCurrentTime().toMillis() + "");
         } else {
-            PreviewModel.getInstance().setStartTimestamp(tempArray[0]);
+            PreviewModel.getInstance().setStartTimestamp(TransitionCodec.formatStartTime(transition.getStartTime()));
         }
         
-        PreviewModel.getInstance().setStopTimestamp(tempArray[1]);
-        PreviewModel.getInstance().setRewindCut(Boolean.parseBoolean(tempArray[2]));
+        PreviewModel.getInstance().setStopTimestamp(TransitionCodec.formatStopTime(transition.getStopTime()));
+        PreviewModel.getInstance().setRewindCut(transition.getRewind());
     }
     
 }
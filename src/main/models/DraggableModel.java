@@ -16,6 +16,7 @@ import javafx.application.Platform;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.property.StringProperty;
 import javafx.event.EventHandler;
+import javafx.geometry.Point2D;
 import javafx.scene.Node;
 import javafx.scene.control.ListView;
 import javafx.scene.image.ImageView;
@@ -67,12 +68,22 @@ public class DraggableModel {
         node.setOnMouseReleased(onMouseReleasedEventHandler);
     }
     
+    //Mouse position in the coordinates of the overlay layer the node is in, overlays are scaled to the preview
+    private Point2D toOverlay(MouseEvent event){
+        Node node = (Node) event.getSource();
+        if(node.getParent() == null){
+            return new Point2D(event.getSceneX(), event.getSceneY());
+        }
+        return node.getParent().sceneToLocal(event.getSceneX(), event.getSceneY());
+    }
+    
     //Check the object instanceof to know which list to check for object
     //Drag context adjust for mouse placement on the object itself
     //Loads the transition associated with the object being clicked on pressed
     EventHandler<MouseEvent> onMousePressedEventHandler = new EventHandler<MouseEvent>() {
         @Override
         public void handle(MouseEvent event) {
+            Point2D point = toOverlay(event);
 
             if( event.getSource() instanceof TextFlow) {
                 TextFlow text = ((TextFlow) (event.getSource()));
@@ -85,8 +96,8 @@ public class DraggableModel {
                     }
                 });
                 
-                dragContext.x = text.getTranslateX() - event.getSceneX();
-                dragContext.y = text.getTranslateY() - event.getSceneY();
+                dragContext.x = text.getTranslateX() - point.getX();
+                dragContext.y = text.getTranslateY() - point.getY();
                 
             } else if (event.getSource() instanceof ImageView) {
                 
@@ -100,8 +111,8 @@ public class DraggableModel {
                     }
                 });
                 
-                dragContext.x = image.getX() - event.getSceneX();
-                dragContext.y = image.getY() - event.getSceneY();
+                dragContext.x = image.getX() - point.getX();
+                dragContext.y = image.getY() - point.getY();
             } else if (event.getSource() instanceof MediaView) {
                 
                 MediaView video = ((MediaView) (event.getSource()));
@@ -114,8 +125,8 @@ public class DraggableModel {
                     }
                 });
                 
-                dragContext.x = video.getX() - event.getSceneX();
-                dragContext.y = video.getY() - event.getSceneY();
+                dragContext.x = video.getX() - point.getX();
+                dragContext.y = video.getY() - point.getY();
             }
         }
     };
@@ -125,25 +136,26 @@ public class DraggableModel {
 
         @Override
         public void handle(MouseEvent event) {
+            Point2D point = toOverlay(event);
 
             if( event.getSource() instanceof TextFlow) {
                 TextFlow text = ((TextFlow) (event.getSource()));
                 
-                text.setTranslateX( dragContext.x + event.getSceneX());
-                text.setTranslateY( dragContext.y + event.getSceneY());
+                text.setTranslateX( dragContext.x + point.getX());
+                text.setTranslateY( dragContext.y + point.getY());
                 
             } else if (event.getSource() instanceof ImageView) {
 
                 ImageView image = ((ImageView) (event.getSource()));
 
-                image.setX( dragContext.x + event.getSceneX());
-                image.setY( dragContext.y + event.getSceneY());
+                image.setX( dragContext.x + point.getX());
+                image.setY( dragContext.y + point.getY());
             } else if (event.getSource() instanceof MediaView) {
 
                 MediaView video = ((MediaView) (event.getSource()));
 
-                video.setX( dragContext.x + event.getSceneX());
-                video.setY( dragContext.y + event.getSceneY());
+                video.setX( dragContext.x + point.getX());
+                video.setY( dragContext.y + point.getY());
             }
 
         }
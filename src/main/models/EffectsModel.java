@@ -681,107 +681,140 @@ public class EffectsModel {
         
         if(!effectList.isEmpty()){
             for(String effect : effectList){
-                List<String> tempList = Arrays.asList(effect.split("\\s*,\\s*"));
-
-                switch(tempList.get(0)){
-
-                    case "Bloom": {
-
-                        Bloom bloom = new Bloom();
-                        bloom.setThreshold( Double.parseDouble( tempList.get(1)) );
-
-                        getEffectsObjectList().add(bloom);
-                        getEffectsAddedList().add("Bloom");
-
-                        break;
-                    }
-                    case "BoxBlur": {
-
-                        BoxBlur boxBlur = new BoxBlur();
-                        boxBlur.setHeight( Double.parseDouble( tempList.get(1)));
-                        boxBlur.setWidth( Double.parseDouble( tempList.get(2)));
-                        boxBlur.setIterations( Integer.parseInt( tempList.get(3)));
-
-                        getEffectsObjectList().add(boxBlur);
-                        getEffectsAddedList().add("Box Blur");
-
-                        break;
-                    }
-                    case "GaussianBlur": {
-                        GaussianBlur gausBlur = new GaussianBlur();
-                        gausBlur.setRadius(Double.parseDouble( tempList.get(1)));
-
-                        getEffectsObjectList().add(gausBlur);
-                        getEffectsAddedList().add("Gaussian Blur");
-
-                        break;
-                    }
-                    case "DropShadow": {
-
-                        DropShadow dropShadow = new DropShadow();
-                        dropShadow.setBlurType(BlurType.GAUSSIAN);
-                        dropShadow.setColor(Color.web(tempList.get(1)));
-                        dropShadow.setHeight(Double.parseDouble( tempList.get(2)));
-                        dropShadow.setOffsetX(Double.parseDouble( tempList.get(3)));
-                        dropShadow.setOffsetY(Double.parseDouble( tempList.get(4)));
-                        dropShadow.setRadius(Double.parseDouble( tempList.get(5)));
-                        dropShadow.setSpread(Double.parseDouble( tempList.get(6)));
-                        dropShadow.setWidth(Double.parseDouble( tempList.get(7)));
-
-                        getEffectsObjectList().add(dropShadow);
-                        getEffectsAddedList().add("Drop Shadow");
-
-                        break;
-                    }
-                    case "InnerShadow": {
-
-                        InnerShadow innerShadow = new InnerShadow();
-                        innerShadow.setBlurType(BlurType.GAUSSIAN);
-                        innerShadow.setChoke(Double.parseDouble( tempList.get(1)));
-                        innerShadow.setColor(Color.web(tempList.get(2)));
-                        innerShadow.setHeight(Double.parseDouble( tempList.get(3)));
-                        innerShadow.setOffsetX(Double.parseDouble( tempList.get(4)));
-                        innerShadow.setOffsetY(Double.parseDouble( tempList.get(5)));
-                        innerShadow.setRadius(Double.parseDouble( tempList.get(6)));
-                        innerShadow.setWidth(Double.parseDouble( tempList.get(7)));
-
-                        getEffectsObjectList().add(innerShadow);
-                        getEffectsAddedList().add("Inner Shadow");
-
-                        break;
-                    }
-                    case "Reflection": {
-
-                        Reflection reflection = new Reflection();
-                        reflection.setBottomOpacity(Double.parseDouble( tempList.get(1)));
-                        reflection.setFraction(Double.parseDouble( tempList.get(2)));
-                        reflection.setTopOffset(Double.parseDouble( tempList.get(3)));
-                        reflection.setTopOpacity(Double.parseDouble( tempList.get(4)));
-
-                        getEffectsObjectList().add(reflection);
-                        getEffectsAddedList().add("Reflection");
-
-                        break;
-                    }
-                    case "PerspectiveTransform": {
-
-                        PerspectiveTransform perspectiveTransform = new PerspectiveTransform();
-                        perspectiveTransform.setLlx(Double.parseDouble( tempList.get(1)));
-                        perspectiveTransform.setLly(Double.parseDouble( tempList.get(2)));
-                        perspectiveTransform.setLrx(Double.parseDouble( tempList.get(3)));
-                        perspectiveTransform.setLry(Double.parseDouble( tempList.get(4)));
-                        perspectiveTransform.setUlx(Double.parseDouble( tempList.get(5)));
-                        perspectiveTransform.setUly(Double.parseDouble( tempList.get(6)));
-                        perspectiveTransform.setUrx(Double.parseDouble( tempList.get(7)));
-                        perspectiveTransform.setUry(Double.parseDouble( tempList.get(8)));
+                Effect tempEffect = createEffect(effect);
+                if(tempEffect != null){
+                    getEffectsObjectList().add(tempEffect);
+                    getEffectsAddedList().add(getEffectName(tempEffect));
+                }
+            }    
+        }
+    }
+    
+    //Builds a single effect from its saved string without touching the effect lists
+    public Effect createEffect(String effect){
+        List<String> tempList = Arrays.asList(effect.split("\\s*,\\s*"));
 
-                        getEffectsObjectList().add(perspectiveTransform);
-                        getEffectsAddedList().add("Perspective Transform");
+        switch(tempList.get(0)){
 
-                        break;
-                    }
+            case "Bloom": {
+                Bloom bloom = new Bloom();
+                bloom.setThreshold( Double.parseDouble( tempList.get(1)) );
+                return bloom;
+            }
+            case "BoxBlur": {
+                BoxBlur boxBlur = new BoxBlur();
+                boxBlur.setHeight( Double.parseDouble( tempList.get(1)));
+                boxBlur.setWidth( Double.parseDouble( tempList.get(2)));
+                boxBlur.setIterations( Integer.parseInt( tempList.get(3)));
+                return boxBlur;
+            }
+            case "GaussianBlur": {
+                GaussianBlur gausBlur = new GaussianBlur();
+                gausBlur.setRadius(Double.parseDouble( tempList.get(1)));
+                return gausBlur;
+            }
+            case "DropShadow": {
+                DropShadow dropShadow = new DropShadow();
+                dropShadow.setBlurType(BlurType.GAUSSIAN);
+                dropShadow.setColor(Color.web(tempList.get(1)));
+                dropShadow.setHeight(Double.parseDouble( tempList.get(2)));
+                dropShadow.setOffsetX(Double.parseDouble( tempList.get(3)));
+                dropShadow.setOffsetY(Double.parseDouble( tempList.get(4)));
+                dropShadow.setRadius(Double.parseDouble( tempList.get(5)));
+                dropShadow.setSpread(Double.parseDouble( tempList.get(6)));
+                dropShadow.setWidth(Double.parseDouble( tempList.get(7)));
+                return dropShadow;
+            }
+            case "InnerShadow": {
+                InnerShadow innerShadow = new InnerShadow();
+                innerShadow.setBlurType(BlurType.GAUSSIAN);
+                innerShadow.setChoke(Double.parseDouble( tempList.get(1)));
+                innerShadow.setColor(Color.web(tempList.get(2)));
+                innerShadow.setHeight(Double.parseDouble( tempList.get(3)));
+                innerShadow.setOffsetX(Double.parseDouble( tempList.get(4)));
+                innerShadow.setOffsetY(Double.parseDouble( tempList.get(5)));
+                innerShadow.setRadius(Double.parseDouble( tempList.get(6)));
+                innerShadow.setWidth(Double.parseDouble( tempList.get(7)));
+                return innerShadow;
+            }
+            case "Reflection": {
+                Reflection reflection = new Reflection();
+                reflection.setBottomOpacity(Double.parseDouble( tempList.get(1)));
+                reflection.setFraction(Double.parseDouble( tempList.get(2)));
+                reflection.setTopOffset(Double.parseDouble( tempList.get(3)));
+                reflection.setTopOpacity(Double.parseDouble( tempList.get(4)));
+                return reflection;
+            }
+            case "PerspectiveTransform": {
+                PerspectiveTransform perspectiveTransform = new PerspectiveTransform();
+                perspectiveTransform.setLlx(Double.parseDouble( tempList.get(1)));
+                perspectiveTransform.setLly(Double.parseDouble( tempList.get(2)));
+                perspectiveTransform.setLrx(Double.parseDouble( tempList.get(3)));
+                perspectiveTransform.setLry(Double.parseDouble( tempList.get(4)));
+                perspectiveTransform.setUlx(Double.parseDouble( tempList.get(5)));
+                perspectiveTransform.setUly(Double.parseDouble( tempList.get(6)));
+                perspectiveTransform.setUrx(Double.parseDouble( tempList.get(7)));
+                perspectiveTransform.setUry(Double.parseDouble( tempList.get(8)));
+                return perspectiveTransform;
+            }
+        }
+        return null;
+    }
+    
+    //Display name used by the effects list in the text editor
+    public String getEffectName(Effect effect){
+        if(effect instanceof Bloom){
+            return "Bloom";
+        } else if(effect instanceof BoxBlur){
+            return "Box Blur";
+        } else if(effect instanceof GaussianBlur){
+            return "Gaussian Blur";
+        } else if(effect instanceof DropShadow){
+            return "Drop Shadow";
+        } else if(effect instanceof InnerShadow){
+            return "Inner Shadow";
+        } else if(effect instanceof Reflection){
+            return "Reflection";
+        } else if(effect instanceof PerspectiveTransform){
+            return "Perspective Transform";
+        }
+        return "";
+    }
+    
+    //Builds the full effect chain for a list of effect strings in saved order
+    //Returns the last effect in the chain or null when the list is empty
+    public Effect createEffectChain(List<String> effectList){
+        Effect previous = null;
+        if(effectList != null){
+            for(String effect : effectList){
+                Effect tempEffect = createEffect(effect);
+                if(tempEffect == null){
+                    continue;
                 }
-            }    
+                if(previous != null){
+                    setEffectInput(tempEffect, previous);
+                }
+                previous = tempEffect;
+            }
+        }
+        return previous;
+    }
+    
+    private void setEffectInput(Effect effect, Effect input){
+        if(effect instanceof Bloom){
+            ((Bloom) effect).setInput(input);
+        } else if(effect instanceof BoxBlur){
+            ((BoxBlur) effect).setInput(input);
+        } else if(effect instanceof GaussianBlur){
+            ((GaussianBlur) effect).setInput(input);
+        } else if(effect instanceof PerspectiveTransform){
+            ((PerspectiveTransform) effect).setInput(input);
+        } else if(effect instanceof InnerShadow){
+            ((InnerShadow) effect).setInput(input);
+        } else if(effect instanceof Reflection){
+            ((Reflection) effect).setInput(input);
+        } else if(effect instanceof DropShadow){
+            ((DropShadow) effect).setInput(input);
         }
     }
     
@@ -0,0 +1,52 @@
+/*************************************************************************************************************************
+ * Source Code Form License Notice
+ *************************************************************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ **************************************************************************************************************************/
+/*************************************************************************************************************************
+ *   Author: Jarek Thomas
+ *
+ *   Immutable Fast-forward Transition
+ *
+ *   Transition String Format:  StartTime - StopTime - StartRate(x.x) - StopRate(x.x)
+ ***************************************************************************************************************************/
+
+package main.models;
+
+public final class FFTransition extends Transition {
+
+    private final double startRate, stopRate;
+
+    public FFTransition(int startTime, int stopTime, double startRate, double stopRate){
+        super(startTime, stopTime);
+        this.startRate = startRate;
+        this.stopRate = stopRate;
+    }
+
+    public static FFTransition parse(String value){
+        String[] tempArray = TransitionCodec.splitLeading(value, 4);
+        return new FFTransition(TransitionCodec.parseTime(tempArray[0]),
+                TransitionCodec.parseTime(tempArray[1]),
+                TransitionCodec.parseDouble(tempArray[2]),
+                TransitionCodec.parseDouble(tempArray[3]));
+    }
+
+    public double getStartRate(){
+        return this.startRate;
+    }
+    public double getStopRate(){
+        return this.stopRate;
+    }
+
+    @Override
+    public boolean isDefault(){
+        return !hasStartTime();
+    }
+
+    @Override
+    public String toTransitionString(){
+        return TransitionCodec.formatStartTime(getStartTime()) + "," + TransitionCodec.formatStopTime(getStopTime()) + ","
+                + startRate + "," + stopRate;
+    }
+}
@@ -29,8 +29,8 @@ public class FFTransitionModel {
     private final SimpleDoubleProperty startRate = new SimpleDoubleProperty();
     private final SimpleDoubleProperty stopRate = new SimpleDoubleProperty();
     
-    private final ObservableMap<String, String> ffMarkersObMap;
-    private final Map<String, String> ffMarkersHashMap = new HashMap<>();
+    private final ObservableMap<String, FFTransition> ffMarkersObMap;
+    private final Map<String, FFTransition> ffMarkersHashMap = new HashMap<>();
     
     private FFTransitionModel(){
         this.ffMarkersObMap = FXCollections.observableMap(ffMarkersHashMap);
@@ -40,11 +40,11 @@ public class FFTransitionModel {
         return INSTANCE;
     }
     
-    public final Map getFFMarkersMap(){
+    public final Map<String, FFTransition> getFFMarkersMap(){
         return this.ffMarkersHashMap;
     }
     
-    public final ObservableMap getFFMarkers(){
+    public final ObservableMap<String, FFTransition> getFFMarkers(){
         return this.ffMarkersObMap;
     }
     
@@ -84,47 +84,38 @@ public class FFTransitionModel {
     public void createDefaultTransition(){
         String temp = getDefaultTransitionKey();
         ProfileModel.getInstance().getMarkerEventsList().add(temp);
-        getFFMarkers().put(temp, TRANSITION_STRING);
+        getFFMarkers().put(temp, FFTransition.parse(TRANSITION_STRING));
     }
     
     public void editTransitionString(){
         
-        String keyString = "";
-        String valueString = "";
-
-        keyString += PreviewModel.getInstance().getCurrentTransition();
-        
-        valueString += PreviewModel.getInstance().getStartTimestamp() + ",";
-        
-        if(PreviewModel.getInstance().getStopTimestamp().equals("*") || PreviewModel.getInstance().getStopTimestamp().equals("0")){
-            valueString += "*,";
-        } else {
-            valueString += PreviewModel.getInstance().getStopTimestamp() + ",";
-        }
+        String keyString = PreviewModel.getInstance().getCurrentTransition();
         
-        valueString +=  getStartRate() + ",";
-        valueString +=  getStopRate();
+        FFTransition transition = new FFTransition(
+                TransitionCodec.parseTime(PreviewModel.getInstance().getStartTimestamp()),
+                TransitionCodec.parseStopTimestamp(PreviewModel.getInstance().getStopTimestamp()),
+                getStartRate(),
+                getStopRate());
         
-        getFFMarkers().put(keyString, valueString);
+        getFFMarkers().put(keyString, transition);
         
         Context.getInstance().setDidSave(false);
     }
     
     public void loadTransitionString(String keyString){
         
-        String tempString = (String)getFFMarkers().get(keyString);
-        String[] tempArray = tempString.split(",");
+        FFTransition transition = getFFMarkers().get(keyString);
         
-        setStartRate(Double.parseDouble(tempArray[2]));
-        setStopRate(Double.parseDouble(tempArray[3]));
+        setStartRate(transition.getStartRate());
+        setStopRate(transition.getStopRate());
 
-        if(tempArray[0].equals("_DEFAULT")){
+        if(transition.isDefault()){
             PreviewModel.getInstance().setStartTimestamp((int)PreviewModel.getInstance().getMediaPlayer().getCurrentTime().toMillis() + "");
         } else {
-            PreviewModel.getInstance().setStartTimestamp(tempArray[0]);
+            PreviewModel.getInstance().setStartTimestamp(TransitionCodec.formatStartTime(transition.getStartTime()));
         }
         
-        PreviewModel.getInstance().setStopTimestamp(tempArray[1]);
+        PreviewModel.getInstance().setStopTimestamp(TransitionCodec.formatStopTime(transition.getStopTime()));
     }
     
 }
@@ -0,0 +1,245 @@
+/*************************************************************************************************************************
+ * Source Code Form License Notice
+ *************************************************************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ **************************************************************************************************************************/
+/*************************************************************************************************************************
+ *   Author: Jarek Thomas
+ *
+ *   Edit Timeline Filmstrip
+ *
+ *   Frames of the edit video are sampled at a fixed interval into a grid image so the timeline can show a strip and
+ *   hover previews without seeking the preview player. Frames are taken like the main screen thumbnail, with a hidden
+ *   MediaView and snapshot, one frame per step so the FX thread is never held. The finished grid is cached as a PNG in
+ *   Profiles//Filmstrips// (see MediaCache), the .frames file beside it holds the modified time and interval it was
+ *   made with and its frame count. Interval is set with -Dbeerb.filmstrip.interval (ms)
+ ***************************************************************************************************************************/
+
+package main.models;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.SimpleIntegerProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.embed.swing.SwingFXUtils;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.image.Image;
+import javafx.scene.image.WritableImage;
+import javafx.scene.media.Media;
+import javafx.scene.media.MediaPlayer;
+import javafx.scene.media.MediaView;
+import javafx.util.Duration;
+import javax.imageio.ImageIO;
+
+public class FilmstripModel {
+    private final static FilmstripModel INSTANCE = new FilmstripModel();
+
+    private static final String FILMSTRIP_DIRECTORY = "Profiles//Filmstrips//";
+    public static final int FRAME_WIDTH = 160;
+    public static final int FRAME_HEIGHT = 90;
+    //Frames per row of the grid, keeps the image inside texture size limits
+    private static final int COLUMNS = 16;
+    private static final int MAX_FRAMES = 256;
+    private static final long INTERVAL = Long.getLong("beerb.filmstrip.interval", 2000);
+    //Time given to the hidden player to present the frame after a seek
+    private static final Duration FRAME_DELAY = Duration.millis(120);
+
+    private final ObjectProperty<Image> filmstripImage = new SimpleObjectProperty<>();
+    private final SimpleIntegerProperty framesReady = new SimpleIntegerProperty();
+    private final MediaView frameView = new MediaView();
+    private String videoPath;
+    private long frameInterval;
+    private int frameCount;
+    //Bumped for every video so steps of an abandoned extraction stop
+    private int generation;
+
+    private FilmstripModel(){
+        frameView.setFitWidth(FRAME_WIDTH);
+        frameView.setFitHeight(FRAME_HEIGHT);
+        frameView.setPreserveRatio(false);
+    }
+    public static FilmstripModel getInstance(){
+        return INSTANCE;
+    }
+
+    public ObjectProperty<Image> filmstripImageProperty(){
+        return filmstripImage;
+    }
+    //Frames of the grid that are filled in, grows while the filmstrip is extracted
+    public ReadOnlyIntegerProperty framesReadyProperty(){
+        return framesReady;
+    }
+    public int getFrameCount(){
+        return this.frameCount;
+    }
+
+    //Grid cell of the frame sampled at fraction (0 - 1) of the video, null when it is not extracted yet
+    public Rectangle2D getFrameViewport(double fraction){
+        int ready = framesReady.get();
+        if(filmstripImage.get() == null || ready == 0){
+            return null;
+        }
+        int frame = Math.min(frameCount - 1, (int) (Math.max(0, fraction) * frameCount));
+        if(frame >= ready){
+            return null;
+        }
+        return new Rectangle2D((frame % COLUMNS) * FRAME_WIDTH, (frame / COLUMNS) * FRAME_HEIGHT, FRAME_WIDTH, FRAME_HEIGHT);
+    }
+
+    //Shows the cached filmstrip of the video or starts extracting it, called on the FX thread
+    public void load(String videoPath){
+        if(videoPath.equals(this.videoPath)){
+            return;
+        }
+        this.videoPath = videoPath;
+        int current = ++generation;
+        filmstripImage.set(null);
+        framesReady.set(0);
+        frameCount = 0;
+        disposePlayer();
+
+        MediaCache.execute(() -> {
+            File cacheFile = MediaCache.getFile(FILMSTRIP_DIRECTORY, MediaCache.getCanonicalPath(videoPath), ".png");
+            String stamp = getStamp(videoPath);
+            //A grid made from an older version of the video or another interval is extracted again over it
+            int count = readFrameCount(cacheFile, stamp);
+            Image cached = null;
+            if(count > 0 && cacheFile.exists()){
+                cached = new Image(cacheFile.toURI().toString());
+                if(cached.isError()){
+                    cached = null;
+                }
+            }
+            Image image = cached;
+            Platform.runLater(()->{
+                if(current != generation){
+                    return;
+                }
+                if(image != null){
+                    int rows = (int) image.getHeight() / FRAME_HEIGHT;
+                    frameCount = Math.max(1, Math.min(Math.min(MAX_FRAMES, rows * COLUMNS), count));
+                    filmstripImage.set(image);
+                    framesReady.set(frameCount);
+                } else {
+                    extract(videoPath, cacheFile, stamp, current);
+                }
+            });
+        });
+    }
+
+    private void extract(String videoPath, File cacheFile, String stamp, int current){
+        MediaPlayer player;
+        try{
+            player = new MediaPlayer(new Media(new File(videoPath).toURI().toString()));
+        }catch(Exception e){
+            e.printStackTrace();
+            return;
+        }
+        player.setMute(true);
+        player.setAutoPlay(false);
+        frameView.setMediaPlayer(player);
+        player.setOnError(() -> {
+            player.getError().printStackTrace();
+            disposePlayer();
+        });
+        player.setOnReady(()->{
+            if(current != generation){
+                return;
+            }
+            long duration = (long) player.getMedia().getDuration().toMillis();
+            frameCount = (int) Math.max(1, Math.min(MAX_FRAMES, duration / INTERVAL + 1));
+            frameInterval = frameCount > 1 ? duration / frameCount : 0;
+            int rows = (frameCount + COLUMNS - 1) / COLUMNS;
+            WritableImage grid = new WritableImage(COLUMNS * FRAME_WIDTH, rows * FRAME_HEIGHT);
+            filmstripImage.set(grid);
+            player.pause();
+            step(player, grid, 0, cacheFile, stamp, current);
+        });
+    }
+
+    //Seeks to frame, waits for it to be presented and copies the snapshot into its cell
+    private void step(MediaPlayer player, WritableImage grid, int frame, File cacheFile, String stamp, int current){
+        if(current != generation){
+            return;
+        }
+        if(frame == frameCount){
+            disposePlayer();
+            save(grid, cacheFile, stamp);
+            return;
+        }
+        player.seek(Duration.millis(frame * frameInterval));
+        PauseTransition wait = new PauseTransition(FRAME_DELAY);
+        wait.setOnFinished(event -> {
+            if(current != generation){
+                return;
+            }
+            WritableImage snapshot = frameView.snapshot(new SnapshotParameters(), null);
+            int width = (int) Math.min(FRAME_WIDTH, snapshot.getWidth());
+            int height = (int) Math.min(FRAME_HEIGHT, snapshot.getHeight());
+            grid.getPixelWriter().setPixels((frame % COLUMNS) * FRAME_WIDTH, (frame / COLUMNS) * FRAME_HEIGHT,
+                    width, height, snapshot.getPixelReader(), 0, 0);
+            framesReady.set(frame + 1);
+            step(player, grid, frame + 1, cacheFile, stamp, current);
+        });
+        wait.play();
+    }
+
+    //The stamp and frame count are kept next to the grid since the last row may be partly empty
+    private void save(WritableImage grid, File cacheFile, String stamp){
+        BufferedImage image = SwingFXUtils.fromFXImage(grid, null);
+        int count = frameCount;
+        MediaCache.execute(() -> {
+            try{
+                Files.createDirectories(cacheFile.toPath().getParent());
+                File temp = new File(cacheFile.getPath() + ".tmp");
+                ImageIO.write(image, "png", temp);
+                Files.move(temp.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                //Written last so a grid is never matched to a stamp it was not made from
+                File countFile = getCountFile(cacheFile);
+                File countTemp = new File(countFile.getPath() + ".tmp");
+                Files.write(countTemp.toPath(), (stamp + "\n" + count).getBytes("UTF-8"));
+                Files.move(countTemp.toPath(), countFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }catch(IOException e){
+                e.printStackTrace();
+            }
+        });
+    }
+
+    //Frame count of the cached grid, 0 when there is none or it was made from another stamp
+    private int readFrameCount(File cacheFile, String stamp){
+        try{
+            String[] lines = new String(Files.readAllBytes(getCountFile(cacheFile).toPath()), "UTF-8").split("\n");
+            if(lines.length < 2 || !lines[0].equals(stamp)){
+                return 0;
+            }
+            return Integer.parseInt(lines[1].trim());
+        }catch(IOException | NumberFormatException e){
+            return 0;
+        }
+    }
+
+    private void disposePlayer(){
+        MediaPlayer player = frameView.getMediaPlayer();
+        if(player != null){
+            frameView.setMediaPlayer(null);
+            player.dispose();
+        }
+    }
+
+    private String getStamp(String videoPath){
+        return new File(videoPath).lastModified() + "|" + INTERVAL;
+    }
+
+    private File getCountFile(File cacheFile){
+        return new File(cacheFile.getPath().replace(".png", ".frames"));
+    }
+}
@@ -0,0 +1,184 @@
+/*************************************************************************************************************************
+ * Source Code Form License Notice
+ *************************************************************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ **************************************************************************************************************************/
+/*************************************************************************************************************************
+ *   Author: Jarek Thomas
+ *
+ *   Frame Timestamp Index (Profiles//Frames//<hash>.fidx)
+ *
+ *   Presentation time of every frame of the edit video so the time slider steps exactly one frame and captured
+ *   start/stop times land on a frame instead of between two. Times are read from the MP4 sample tables by
+ *   Mp4FrameTimes on the MediaCache thread and cached beside the library index, one file per video (see MediaCache)
+ *   holding the modified time it was read from
+ *
+ *   Magic(int) - Version(short) - Modified(long) - FrameCount(int) - Times(long, microseconds)...
+ *
+ *   Videos without an index (flv, fragmented mp4) keep stepping a fixed 15ms and captured times are not snapped
+ ***************************************************************************************************************************/
+
+package main.models;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import javafx.util.Duration;
+
+public class FrameIndexModel {
+    private final static FrameIndexModel INSTANCE = new FrameIndexModel();
+
+    private static final String FRAME_INDEX_DIRECTORY = "Profiles//Frames//";
+    private static final int MAGIC = 0x42524658;
+    private static final short VERSION = 2;
+    //Step used when the video has no index, about one frame at 60 FPS
+    private static final double FALLBACK_STEP = 15;
+    //The player reports a position a little off the time it was seeked to
+    private static final long TOLERANCE = 1000;
+
+    private volatile String videoPath;
+    private volatile long[] frameTimes;
+
+    private FrameIndexModel(){
+
+    }
+    public static FrameIndexModel getInstance(){
+        return INSTANCE;
+    }
+
+    //Loads the cached index of the video or reads it from its sample tables
+    public void load(String videoPath){
+        if(videoPath.equals(this.videoPath)){
+            return;
+        }
+        this.videoPath = videoPath;
+        this.frameTimes = null;
+        MediaCache.execute(() -> {
+            File video = new File(videoPath);
+            File cacheFile = MediaCache.getFile(FRAME_INDEX_DIRECTORY, MediaCache.getCanonicalPath(videoPath), ".fidx");
+            long lastModified = video.lastModified();
+            long[] times = read(cacheFile, lastModified);
+            if(times == null){
+                try{
+                    times = Mp4FrameTimes.read(video);
+                }catch(IOException e){
+                    e.printStackTrace();
+                }
+                //Not an mp4 or no video track, the fixed step is used
+                if(times == null){
+                    return;
+                }
+                write(times, cacheFile, lastModified);
+            }
+            //A newer video may have been loaded while this one was read
+            if(videoPath.equals(this.videoPath)){
+                this.frameTimes = times;
+            }
+        });
+    }
+
+    public boolean isIndexed(){
+        return this.frameTimes != null;
+    }
+
+    //Start of the frame after the one shown at time
+    public Duration nextFrame(Duration time){
+        long[] times = frameTimes;
+        if(times == null){
+            return time.add(Duration.millis(FALLBACK_STEP));
+        }
+        int frame = frameAt(times, toMicros(time));
+        return toDuration(times[Math.min(frame + 1, times.length - 1)]);
+    }
+
+    //Start of the frame before the one shown at time
+    public Duration previousFrame(Duration time){
+        long[] times = frameTimes;
+        if(times == null){
+            return time.subtract(Duration.millis(FALLBACK_STEP));
+        }
+        int frame = frameAt(times, toMicros(time));
+        return toDuration(times[Math.max(frame - 1, 0)]);
+    }
+
+    //Captured time moved to the first whole millisecond of the frame shown at time
+    public int snap(Duration time){
+        long[] times = frameTimes;
+        if(times == null){
+            return (int) time.toMillis();
+        }
+        long start = times[frameAt(times, toMicros(time))];
+        return (int) ((start + 999) / 1000);
+    }
+
+    //Index of the last frame starting at or before micros, within the tolerance
+    private int frameAt(long[] times, long micros){
+        int low = 0, high = times.length;
+        long time = micros + TOLERANCE;
+        while(low < high){
+            int mid = (low + high) >>> 1;
+            if(times[mid] <= time){
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return Math.max(0, low - 1);
+    }
+
+    private long toMicros(Duration time){
+        return Math.round(time.toMillis() * 1000);
+    }
+
+    private Duration toDuration(long micros){
+        return Duration.millis(micros / 1000.0);
+    }
+
+    //Null when the index is missing, damaged or was read from another version of the video
+    private long[] read(File cacheFile, long lastModified){
+        if(!cacheFile.exists()){
+            return null;
+        }
+        try(DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)))){
+            if(in.readInt() != MAGIC || in.readShort() != VERSION || in.readLong() != lastModified){
+                return null;
+            }
+            long[] times = new long[in.readInt()];
+            for(int i = 0; i < times.length; i++){
+                times[i] = in.readLong();
+            }
+            return times.length == 0 ? null : times;
+        }catch(IOException e){
+            //A damaged index is read from the video again
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private void write(long[] times, File cacheFile, long lastModified){
+        File temp = new File(cacheFile.getPath() + ".tmp");
+        try{
+            Files.createDirectories(cacheFile.toPath().getParent());
+            try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))){
+                out.writeInt(MAGIC);
+                out.writeShort(VERSION);
+                out.writeLong(lastModified);
+                out.writeInt(times.length);
+                for(long time : times){
+                    out.writeLong(time);
+                }
+            }
+            Files.move(temp.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }catch(IOException e){
+            e.printStackTrace();
+        }
+    }
+}
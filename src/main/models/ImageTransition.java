@@ -0,0 +1,78 @@
+/*************************************************************************************************************************
+ * Source Code Form License Notice
+ *************************************************************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ **************************************************************************************************************************/
+/*************************************************************************************************************************
+ *   Author: Jarek Thomas
+ *
+ *   Immutable Image Transition
+ *
+ *   Transition String Format:  FilePath - xPosition - yPosition - FitWidth - FitHeight - StartTime - StopTime - AspectRatioBoolean
+ ***************************************************************************************************************************/
+
+package main.models;
+
+public final class ImageTransition extends Transition {
+
+    private final String imagePath;
+    private final int xPosition, yPosition;
+    private final double fitWidth, fitHeight;
+    private final boolean preserveRatio;
+
+    public ImageTransition(String imagePath, int xPosition, int yPosition, double fitWidth, double fitHeight, int startTime, int stopTime, boolean preserveRatio){
+        super(startTime, stopTime);
+        this.imagePath = imagePath;
+        this.xPosition = xPosition;
+        this.yPosition = yPosition;
+        this.fitWidth = fitWidth;
+        this.fitHeight = fitHeight;
+        this.preserveRatio = preserveRatio;
+    }
+
+    //File path is read from the right so it may contain commas
+    public static ImageTransition parse(String value){
+        String[] tempArray = TransitionCodec.splitTrailing(value, 7);
+        return new ImageTransition(tempArray[0],
+                TransitionCodec.parseInt(tempArray[1]),
+                TransitionCodec.parseInt(tempArray[2]),
+                TransitionCodec.parseDouble(tempArray[3]),
+                TransitionCodec.parseDouble(tempArray[4]),
+                TransitionCodec.parseTime(tempArray[5]),
+                TransitionCodec.parseTime(tempArray[6]),
+                Boolean.parseBoolean(tempArray[7].trim()));
+    }
+
+    public String getImagePath(){
+        return this.imagePath;
+    }
+    public int getXPosition(){
+        return this.xPosition;
+    }
+    public int getYPosition(){
+        return this.yPosition;
+    }
+    public double getFitWidth(){
+        return this.fitWidth;
+    }
+    public double getFitHeight(){
+        return this.fitHeight;
+    }
+    public boolean getPreserveRatio(){
+        return this.preserveRatio;
+    }
+
+    @Override
+    public boolean isDefault(){
+        return this.imagePath.equals(TransitionCodec.DEFAULT_TOKEN);
+    }
+
+    @Override
+    public String toTransitionString(){
+        return imagePath + "," + xPosition + "," + yPosition + ","
+                + TransitionCodec.formatSize(fitWidth) + "," + TransitionCodec.formatSize(fitHeight) + ","
+                + TransitionCodec.formatStartTime(getStartTime()) + "," + TransitionCodec.formatStopTime(getStopTime()) + ","
+                + preserveRatio;
+    }
+}
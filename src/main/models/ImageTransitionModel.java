@@ -37,8 +37,8 @@ public class ImageTransitionModel {
     private final SimpleIntegerProperty yPosition = new SimpleIntegerProperty();
     
     private String imagePath = "";
-    private final ObservableMap<String, String> imageMarkersObMap;
-    private final Map<String, String> imageMarkersHashMap = new HashMap<>();
+    private final ObservableMap<String, ImageTransition> imageMarkersObMap;
+    private final Map<String, ImageTransition> imageMarkersHashMap = new HashMap<>();
     
     private ImageTransitionModel() {
         this.imageMarkersObMap = FXCollections.observableMap(imageMarkersHashMap);
@@ -52,10 +52,10 @@ public class ImageTransitionModel {
         return (TRANSITION_KEY + "0" + getTransitionCounter());
     }
     
-    public final Map getImageMarkersMap(){
+    public final Map<String, ImageTransition> getImageMarkersMap(){
         return this.imageMarkersHashMap;
     }
-    public final ObservableMap getImageMarkers(){
+    public final ObservableMap<String, ImageTransition> getImageMarkers(){
         return this.imageMarkersObMap;
     }
     
@@ -113,17 +113,25 @@ public class ImageTransitionModel {
     public void createDefaultTransition(){
         String temp = getDefaultTransitionKey();
         ProfileModel.getInstance().getMarkerEventsList().add(temp);
-        getImageMarkers().put(temp, TRANSITION_STRING);
+        getImageMarkers().put(temp, ImageTransition.parse(TRANSITION_STRING));
     }
     
     public ImageView createImageObject(String imagePath){
-        File temp = new File(imagePath);
-        Image tempImage = new Image(temp.toURI().toString());
-        ImageView tempImageView = new ImageView(tempImage);
+        ImageView tempImageView = new ImageView(loadImage(imagePath));
         tempImageView.scaleZProperty().setValue(10);
         return tempImageView;
     }
     
+    //Images of queued profiles are already decoded by QueuePreflight
+    public Image loadImage(String imagePath){
+        Image tempImage = QueuePreflight.getInstance().getImage(imagePath);
+        if(tempImage == null){
+            File temp = new File(imagePath);
+            tempImage = new Image(temp.toURI().toString());
+        }
+        return tempImage;
+    }
+    
     public void clearTransitionProperties(){
         setYPosition(0);
         setXPosition(0);
@@ -133,42 +141,36 @@ public class ImageTransitionModel {
     }
     
     public void editTransitionString(){
-        String keyString = "";
-        String valueString = "";
+        String keyString = PreviewModel.getInstance().getCurrentTransition();
         
-        keyString += PreviewModel.getInstance().getCurrentTransition();
-        valueString += getImagePath() + ",";
-        valueString += getXPosition() + ",";
-        valueString += getYPosition() + ",";
-        valueString += getFitWidth() + ",";
-        valueString += getFitHeight() + ",";
-        valueString += PreviewModel.getInstance().getStartTimestamp() + ",";
-        if(PreviewModel.getInstance().getStopTimestamp().equals("*") || PreviewModel.getInstance().getStopTimestamp().equals("0")){
-            valueString += "*,";
-        } else {
-            valueString += PreviewModel.getInstance().getStopTimestamp() + ",";
-        }
-        valueString += PreviewModel.getInstance().getImageLinkBtnActive();
+        ImageTransition transition = new ImageTransition(
+                getImagePath(),
+                getXPosition(),
+                getYPosition(),
+                TransitionCodec.parseDouble(getFitWidth()),
+                TransitionCodec.parseDouble(getFitHeight()),
+                TransitionCodec.parseTime(PreviewModel.getInstance().getStartTimestamp()),
+                TransitionCodec.parseStopTimestamp(PreviewModel.getInstance().getStopTimestamp()),
+                PreviewModel.getInstance().getImageLinkBtnActive());
         
-        getImageMarkers().put(keyString, valueString);
+        getImageMarkers().put(keyString, transition);
         Context.getInstance().setDidSave(false);
     }
     
     public void loadTransitionString(String keyString){
-        String tempString = (String)getImageMarkers().get(keyString);
-        String[] tempArray = tempString.split(",");
-        setImagePath(tempArray[0]);
-        setXPosition(Integer.parseInt(tempArray[1])); 
-        setYPosition(Integer.parseInt(tempArray[2]));
-        setFitWidth(tempArray[3]);
-        setFitHeight(tempArray[4]);
+        ImageTransition transition = getImageMarkers().get(keyString);
+        setImagePath(transition.getImagePath());
+        setXPosition(transition.getXPosition()); 
+        setYPosition(transition.getYPosition());
+        setFitWidth(TransitionCodec.formatSize(transition.getFitWidth()));
+        setFitHeight(TransitionCodec.formatSize(transition.getFitHeight()));
 
-        if(tempArray[0].equals("_DEFAULT")){
+        if(transition.isDefault()){
             PreviewModel.getInstance().setStartTimestamp((int)PreviewModel.getInstance().getMediaPlayer().getCurrentTime().toMillis() + "");
         } else {
-            PreviewModel.getInstance().setStartTimestamp(tempArray[5]);
+            PreviewModel.getInstance().setStartTimestamp(TransitionCodec.formatStartTime(transition.getStartTime()));
         }
-        PreviewModel.getInstance().setStopTimestamp(tempArray[6]);
-        PreviewModel.getInstance().setImageLinkBtnActive(Boolean.parseBoolean(tempArray[7]));
+        PreviewModel.getInstance().setStopTimestamp(TransitionCodec.formatStopTime(transition.getStopTime()));
+        PreviewModel.getInstance().setImageLinkBtnActive(transition.getPreserveRatio());
     }
 }
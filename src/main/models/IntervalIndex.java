@@ -0,0 +1,117 @@
+/*************************************************************************************************************************
+ * Source Code Form License Notice
+ *************************************************************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ **************************************************************************************************************************/
+/*************************************************************************************************************************
+ *   Author: Jarek Thomas
+ *
+ *   Interval Index
+ *
+ *   Static interval tree of [start, stop) intervals over primitive arrays. Intervals are sorted by start and the sorted
+ *   array is used as an implicit balanced tree (the middle of every range is its root) with the largest stop of every
+ *   subtree stored alongside, so a stabbing or range query only visits subtrees that can contain a match: O(log n + k)
+ ***************************************************************************************************************************/
+
+package main.models;
+
+import java.util.Arrays;
+
+public class IntervalIndex {
+
+    private long[] starts = new long[16];
+    private long[] stops = new long[16];
+    private int[] ids = new int[16];
+    private long[] maxStops = new long[0];
+    private int size;
+    private boolean built;
+
+    //Registers an interval, stop Long.MAX_VALUE for intervals that never end
+    public void add(long start, long stop, int id){
+        if(size == starts.length){
+            starts = Arrays.copyOf(starts, size * 2);
+            stops = Arrays.copyOf(stops, size * 2);
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        starts[size] = start;
+        stops[size] = stop;
+        ids[size] = id;
+        size++;
+        built = false;
+    }
+
+    public int size(){
+        return this.size;
+    }
+
+    public void clear(){
+        size = 0;
+        built = false;
+    }
+
+    public void build(){
+        if(built){
+            return;
+        }
+        Integer[] order = new Integer[size];
+        for(int i = 0; i < size; i++){
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(starts[a], starts[b]));
+        long[] sortedStarts = new long[Math.max(size, 16)];
+        long[] sortedStops = new long[sortedStarts.length];
+        int[] sortedIds = new int[sortedStarts.length];
+        for(int i = 0; i < size; i++){
+            sortedStarts[i] = starts[order[i]];
+            sortedStops[i] = stops[order[i]];
+            sortedIds[i] = ids[order[i]];
+        }
+        starts = sortedStarts;
+        stops = sortedStops;
+        ids = sortedIds;
+        maxStops = new long[size];
+        buildMaxStops(0, size);
+        built = true;
+    }
+
+    private long buildMaxStops(int low, int high){
+        if(low >= high){
+            return Long.MIN_VALUE;
+        }
+        int mid = (low + high) >>> 1;
+        long max = Math.max(stops[mid], Math.max(buildMaxStops(low, mid), buildMaxStops(mid + 1, high)));
+        maxStops[mid] = max;
+        return max;
+    }
+
+    //Writes the ids of all intervals with start <= time < stop into result and returns how many were found
+    public int query(long time, int[] result){
+        return query(time, time, result);
+    }
+
+    //Writes the ids of all intervals overlapping [from, to] (start <= to and from < stop) into result in start order
+    public int query(long from, long to, int[] result){
+        build();
+        return query(from, to, 0, size, result, 0);
+    }
+
+    private int query(long from, long to, int low, int high, int[] result, int count){
+        if(low >= high){
+            return count;
+        }
+        int mid = (low + high) >>> 1;
+        if(maxStops[mid] <= from){
+            return count;
+        }
+        count = query(from, to, low, mid, result, count);
+        //Everything right of an interval starting after to starts after to as well
+        if(starts[mid] <= to){
+            if(from < stops[mid]){
+                result[count++] = ids[mid];
+            }
+            count = query(from, to, mid + 1, high, result, count);
+        }
+        return count;
+    }
+}
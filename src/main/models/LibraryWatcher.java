@@ -0,0 +1,178 @@
+/*************************************************************************************************************************
+ * Source Code Form License Notice
+ *************************************************************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ **************************************************************************************************************************/
+/*************************************************************************************************************************
+ *   Author: Jarek Thomas
+ *
+ *   Watches the Profiles and Text folders so profiles written by other tools show up without a refresh
+ *
+ *   Events are collected until the folders have been quiet for BATCH_DELAY ms, then each changed name is checked
+ *   once and the add/remove deltas are applied to the ProfileModel lists in a single Platform.runLater
+ ***************************************************************************************************************************/
+
+package main.models;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import javafx.application.Platform;
+import javafx.collections.ObservableList;
+
+public class LibraryWatcher {
+    private final static LibraryWatcher INSTANCE = new LibraryWatcher();
+
+    private static final long BATCH_DELAY = 250;
+
+    private final Path profilePath = Paths.get("Profiles//");
+    private final Path textPath = Paths.get("Text//");
+    private WatchService watchService;
+    private Thread watchThread;
+
+    private LibraryWatcher(){
+
+    }
+    public static LibraryWatcher getInstance(){
+        return INSTANCE;
+    }
+
+    public synchronized void start(){
+        if(watchThread != null){
+            return;
+        }
+        try{
+            watchService = FileSystems.getDefault().newWatchService();
+            profilePath.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+            textPath.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+        }catch(IOException e){
+            e.printStackTrace();
+            return;
+        }
+        watchThread = new Thread(this::watch, "LibraryWatcher");
+        watchThread.setDaemon(true);
+        watchThread.start();
+    }
+
+    public synchronized void stop(){
+        if(watchService != null){
+            try{
+                watchService.close();
+            }catch(IOException e){
+                e.printStackTrace();
+            }
+        }
+        watchThread = null;
+        watchService = null;
+    }
+
+    private void watch(){
+        WatchService service = watchService;
+        try{
+            while(true){
+                Set<String> profileNames = new LinkedHashSet<>();
+                Set<String> textNames = new LinkedHashSet<>();
+                boolean overflow = false;
+
+                //Block for the first event then keep collecting until the folders go quiet
+                WatchKey key = service.take();
+                while(key != null){
+                    Path directory = (Path) key.watchable();
+                    for(WatchEvent<?> event : key.pollEvents()){
+                        if(event.kind() == StandardWatchEventKinds.OVERFLOW){
+                            overflow = true;
+                            continue;
+                        }
+                        String fileName = event.context().toString();
+                        if(!fileName.toLowerCase().endsWith(".xml")){
+                            continue;
+                        }
+                        String name = fileName.substring( 0,  fileName.length() - 4 );
+                        if(directory.equals(profilePath)){
+                            profileNames.add(name);
+                        } else {
+                            textNames.add(name);
+                        }
+                    }
+                    key.reset();
+                    key = service.poll(BATCH_DELAY, TimeUnit.MILLISECONDS);
+                }
+
+                if(overflow){
+                    Platform.runLater(()->{
+                        ProfileModel.getInstance().getProfiles();
+                        ProfileModel.getInstance().getTextProfiles();
+                    });
+                } else {
+                    applyBatch(profileNames, textNames);
+                }
+            }
+        }catch(InterruptedException | ClosedWatchServiceException e){
+            //Watcher stopped
+        }
+    }
+
+    //Index changed profiles off the FX thread, then apply only the list deltas on it
+    private void applyBatch(Set<String> profileNames, Set<String> textNames){
+        List<String> addedProfiles = new ArrayList<>();
+        List<String> removedProfiles = new ArrayList<>();
+        for(String name : profileNames){
+            if(ProfileLibrary.getInstance().refresh(name)){
+                addedProfiles.add(name);
+            } else {
+                removedProfiles.add(name);
+            }
+        }
+
+        List<String> addedText = new ArrayList<>();
+        List<String> removedText = new ArrayList<>();
+        for(String name : textNames){
+            TextStyleCache.getInstance().invalidate(name);
+            if(new File("Text//" + name + ".xml").exists()){
+                addedText.add(name);
+            } else {
+                removedText.add(name);
+            }
+        }
+
+        if(addedProfiles.isEmpty() && removedProfiles.isEmpty() && addedText.isEmpty() && removedText.isEmpty()){
+            return;
+        }
+        Platform.runLater(()->{
+            ObservableList<String> profileList = ProfileModel.getInstance().getProfileList();
+            profileList.removeAll(removedProfiles);
+            for(String name : addedProfiles){
+                insertSorted(profileList, name, 0);
+            }
+
+            //_DEFAULT always stays first in the text profile list
+            ObservableList<String> textProfileList = ProfileModel.getInstance().getTextProfileList();
+            textProfileList.removeAll(removedText);
+            for(String name : addedText){
+                insertSorted(textProfileList, name, 1);
+            }
+        });
+    }
+
+    private void insertSorted(ObservableList<String> list, String name, int fromIndex){
+        if(list.contains(name)){
+            return;
+        }
+        int index = Collections.binarySearch(list.subList(Math.min(fromIndex, list.size()), list.size()), name, String.CASE_INSENSITIVE_ORDER);
+        list.add(Math.min(fromIndex, list.size()) + (index < 0 ? -index - 1 : index), name);
+    }
+}
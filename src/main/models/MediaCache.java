@@ -0,0 +1,74 @@
+/*************************************************************************************************************************
+ * Source Code Form License Notice
+ *************************************************************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ **************************************************************************************************************************/
+/*************************************************************************************************************************
+ *   Author: Jarek Thomas
+ *
+ *   Media Cache Files
+ *
+ *   Files derived from a media file (filmstrips, waveforms, frame indexes) are named by the SHA-1 of its canonical path
+ *   so every media file has exactly one entry. The file time and settings the entry was made from are stored with it,
+ *   an entry whose stamp no longer matches is built again and overwrites the old one in place
+ *
+ *   Reading and writing filmstrips and frame indexes runs on one low priority daemon thread so AppScheduler stays free
+ *   for profile writes, waveforms are decoded on their own WaveformBuilder thread
+ ***************************************************************************************************************************/
+
+package main.models;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public final class MediaCache {
+
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "MediaCache");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    private MediaCache(){
+
+    }
+
+    public static void execute(Runnable task){
+        EXECUTOR.execute(task);
+    }
+
+    public static String getCanonicalPath(String path){
+        File file = new File(path);
+        try{
+            return file.getCanonicalPath();
+        }catch(IOException e){
+            return file.getAbsolutePath();
+        }
+    }
+
+    //Entry for the media file in directory, the same file for every version of the media
+    public static File getFile(String directory, String canonicalPath, String extension){
+        return new File(directory + sha1(canonicalPath) + extension);
+    }
+
+    private static String sha1(String value){
+        try{
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(value.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for(byte b : digest){
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        }catch(NoSuchAlgorithmException e){
+            //Every JRE ships SHA-1
+            throw new IllegalStateException(e);
+        }
+    }
+}
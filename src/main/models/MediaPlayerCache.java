@@ -0,0 +1,141 @@
+/*************************************************************************************************************************
+ * Source Code Form License Notice
+ *************************************************************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ **************************************************************************************************************************/
+/*************************************************************************************************************************
+ *   Author: Jarek Thomas
+ *
+ *   Warm MediaPlayer Cache
+ *
+ *   Audio and video transition players are leased from here instead of being created and disposed with every profile.
+ *   A released player is paused, seeked back to its start point and kept idle, keyed by canonical path, rate, volume
+ *   and seek point, so a clip that recurs across profiles is already READY and pre-seeked when it is shown again.
+ *   Idle players are evicted least recently used first. RETAIN_CAP is a retention limit, not a decoder limit: a
+ *   transition always gets its player, but players opened while RETAIN_CAP are already open are disposed on release
+ *   instead of being kept. Only used on the FX thread
+ ***************************************************************************************************************************/
+
+package main.models;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javafx.scene.media.Media;
+import javafx.scene.media.MediaPlayer;
+import javafx.util.Duration;
+
+public class MediaPlayerCache {
+    private final static MediaPlayerCache INSTANCE = new MediaPlayerCache();
+
+    private static final int IDLE_CAP = Integer.getInteger("beerb.players.idle", 8);
+    //Open players (idle and leased) past which new players are not kept once released
+    private static final int RETAIN_CAP = Integer.getInteger("beerb.players.retained", 16);
+
+    //Idle players in least recently released order
+    private final LinkedHashMap<MediaPlayer, String> idle = new LinkedHashMap<>();
+    private final Map<MediaPlayer, String> leased = new IdentityHashMap<>();
+    private long requests, hits;
+
+    private MediaPlayerCache(){
+
+    }
+    public static MediaPlayerCache getInstance(){
+        return INSTANCE;
+    }
+
+    //Returns an idle player for the same clip and settings or opens a new one
+    //seekTime is the fraction of the clip the player starts at
+    public MediaPlayer acquire(String path, double rate, double volume, double seekTime){
+        requests++;
+        String key = getKey(path, rate, volume, seekTime);
+        for(Iterator<Map.Entry<MediaPlayer, String>> it = idle.entrySet().iterator(); it.hasNext();){
+            Map.Entry<MediaPlayer, String> entry = it.next();
+            if(entry.getValue().equals(key)){
+                it.remove();
+                leased.put(entry.getKey(), key);
+                hits++;
+                return entry.getKey();
+            }
+        }
+
+        //Make room for the new player by closing the least recently used idle players
+        while(idle.size() + leased.size() >= RETAIN_CAP && !idle.isEmpty()){
+            evictEldest();
+        }
+        MediaPlayer player = new MediaPlayer(new Media(new File(path).toURI().toString()));
+        player.setAutoPlay(false);
+        player.setRate(rate);
+        player.setVolume(volume);
+        player.setOnReady(()->{
+            player.seek(player.getMedia().getDuration().multiply(seekTime));
+        });
+        //Players opened above the retention limit are not kept once released
+        if(idle.size() + leased.size() < RETAIN_CAP){
+            leased.put(player, key);
+        }
+        return player;
+    }
+
+    //Rewinds the player to its start point and keeps it warm, players not from the cache are disposed
+    public void release(MediaPlayer player){
+        String key = leased.remove(player);
+        if(key == null || player.getError() != null){
+            player.dispose();
+            return;
+        }
+        rewind(player, getSeekTime(key));
+        idle.put(player, key);
+        while(idle.size() > IDLE_CAP){
+            evictEldest();
+        }
+    }
+
+    //Pauses the player at its start point, unlike stop() which goes back to 0
+    public static void rewind(MediaPlayer player, double seekTime){
+        player.pause();
+        if(player.getMedia().getDuration().greaterThan(Duration.ZERO)){
+            player.seek(player.getMedia().getDuration().multiply(seekTime));
+        }
+    }
+
+    public void clear(){
+        idle.keySet().forEach(MediaPlayer::dispose);
+        idle.clear();
+    }
+
+    public double getHitRate(){
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+
+    @Override
+    public String toString(){
+        return String.format("MediaPlayerCache %d/%d hits, %d idle, %d leased", hits, requests, idle.size(), leased.size());
+    }
+
+    private void evictEldest(){
+        Iterator<MediaPlayer> it = idle.keySet().iterator();
+        MediaPlayer eldest = it.next();
+        it.remove();
+        eldest.dispose();
+    }
+
+    private String getKey(String path, double rate, double volume, double seekTime){
+        String canonicalPath;
+        try{
+            canonicalPath = new File(path).getCanonicalPath();
+        }catch(IOException e){
+            canonicalPath = new File(path).getAbsolutePath();
+        }
+        return rate + "|" + volume + "|" + seekTime + "|" + canonicalPath;
+    }
+
+    private double getSeekTime(String key){
+        String[] values = key.split("\\|", 4);
+        return Double.parseDouble(values[2]);
+    }
+}
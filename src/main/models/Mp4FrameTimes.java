@@ -0,0 +1,230 @@
+/*************************************************************************************************************************
+ * Source Code Form License Notice
+ *************************************************************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ **************************************************************************************************************************/
+/*************************************************************************************************************************
+ *   Author: Jarek Thomas
+ *
+ *   MP4 Frame Times
+ *
+ *   Reads the presentation time of every frame of the first video track from the moov box of an MP4/M4V file.
+ *   Only the moov box is read, mdat is skipped over. Decode times come from stts, reordering offsets from ctts and
+ *   the start of the track from its edit list (elst), the same boxes the player uses so the times match its clock
+ *
+ *   moov - mvhd (movie timescale)
+ *        - trak - edts - elst
+ *               - mdia - mdhd (media timescale)
+ *                      - hdlr ("vide")
+ *                      - minf - stbl - stts, ctts
+ *
+ *   Fragmented files (moof) keep their samples outside moov and are not supported
+ ***************************************************************************************************************************/
+
+package main.models;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+public final class Mp4FrameTimes {
+
+    //Larger moov boxes are not a video this app can play
+    private static final long MAX_MOOV_SIZE = 256L * 1024 * 1024;
+    private static final int MAX_SAMPLES = 20000000;
+
+    private Mp4FrameTimes(){
+
+    }
+
+    //Sorted presentation times (microseconds) of the video frames, null when the file has no readable video track
+    public static long[] read(File file) throws IOException {
+        try(RandomAccessFile in = new RandomAccessFile(file, "r")){
+            long length = in.length();
+            long position = 0;
+            while(position + 8 <= length){
+                in.seek(position);
+                long size = in.readInt() & 0xFFFFFFFFL;
+                int type = in.readInt();
+                int header = 8;
+                if(size == 1){
+                    size = in.readLong();
+                    header = 16;
+                } else if(size == 0){
+                    size = length - position;
+                }
+                if(size < header){
+                    return null;
+                }
+                if(type == type("moov")){
+                    if(size - header > MAX_MOOV_SIZE){
+                        return null;
+                    }
+                    byte[] moov = new byte[(int) (size - header)];
+                    in.readFully(moov);
+                    return readMoov(ByteBuffer.wrap(moov));
+                }
+                position += size;
+            }
+        }
+        return null;
+    }
+
+    private static long[] readMoov(ByteBuffer moov){
+        ByteBuffer mvhd = child(moov, "mvhd");
+        if(mvhd == null){
+            return null;
+        }
+        long movieTimescale = readTimescale(mvhd);
+        ByteBuffer trak;
+        int from = 0;
+        while((trak = child(moov, "trak", from)) != null){
+            from = trak.arrayOffset() + trak.limit();
+            ByteBuffer mdia = child(trak, "mdia");
+            ByteBuffer hdlr = mdia == null ? null : child(mdia, "hdlr");
+            if(hdlr == null || hdlr.getInt(8) != type("vide")){
+                continue;
+            }
+            ByteBuffer mdhd = child(mdia, "mdhd");
+            ByteBuffer stbl = path(mdia, "minf", "stbl");
+            ByteBuffer stts = stbl == null ? null : child(stbl, "stts");
+            if(mdhd == null || stts == null){
+                continue;
+            }
+            return readTrack(readTimescale(mdhd), movieTimescale, stts, child(stbl, "ctts"), path(trak, "edts", "elst"));
+        }
+        return null;
+    }
+
+    private static long[] readTrack(long timescale, long movieTimescale, ByteBuffer stts, ByteBuffer ctts, ByteBuffer elst){
+        if(timescale <= 0){
+            return null;
+        }
+        int sampleCount = 0;
+        int entries = stts.getInt(4);
+        for(int i = 0; i < entries; i++){
+            sampleCount += stts.getInt(8 + i * 8);
+            if(sampleCount < 0 || sampleCount > MAX_SAMPLES){
+                return null;
+            }
+        }
+        if(sampleCount == 0){
+            return null;
+        }
+
+        //Decode times
+        long[] times = new long[sampleCount];
+        long time = 0;
+        int sample = 0;
+        for(int i = 0; i < entries; i++){
+            int count = stts.getInt(8 + i * 8);
+            long delta = stts.getInt(12 + i * 8) & 0xFFFFFFFFL;
+            for(int j = 0; j < count; j++){
+                times[sample++] = time;
+                time += delta;
+            }
+        }
+
+        //Composition offsets, signed in version 1 and in practice in version 0 as well
+        if(ctts != null){
+            sample = 0;
+            int cttsEntries = ctts.getInt(4);
+            for(int i = 0; i < cttsEntries && sample < sampleCount; i++){
+                int count = ctts.getInt(8 + i * 8);
+                int offset = ctts.getInt(12 + i * 8);
+                for(int j = 0; j < count && sample < sampleCount; j++){
+                    times[sample++] += offset;
+                }
+            }
+        }
+
+        //Edit list, empty edits delay the track and the first media edit sets which media time plays at that point
+        long mediaStart = 0;
+        long emptyDuration = 0;
+        if(elst != null){
+            boolean version1 = elst.get(0) == 1;
+            int elstEntries = elst.getInt(4);
+            int entrySize = version1 ? 20 : 12;
+            for(int i = 0; i < elstEntries; i++){
+                int offset = 8 + i * entrySize;
+                long duration = version1 ? elst.getLong(offset) : elst.getInt(offset) & 0xFFFFFFFFL;
+                long start = version1 ? elst.getLong(offset + 8) : elst.getInt(offset + 4);
+                if(start == -1){
+                    emptyDuration += duration;
+                } else {
+                    mediaStart = start;
+                    break;
+                }
+            }
+        }
+        long delay = movieTimescale > 0 ? emptyDuration * 1000000L / movieTimescale : 0;
+
+        Arrays.sort(times);
+        long[] micros = new long[sampleCount];
+        int count = 0;
+        for(int i = 0; i < sampleCount; i++){
+            long presentation = times[i] - mediaStart;
+            //Frames before the edit start are decoded but never shown
+            if(presentation >= 0){
+                micros[count++] = presentation * 1000000L / timescale + delay;
+            }
+        }
+        return count == 0 ? null : Arrays.copyOf(micros, count);
+    }
+
+    //Timescale of an mvhd or mdhd box, both put it after the creation and modification times
+    private static long readTimescale(ByteBuffer box){
+        return (box.get(0) == 1 ? box.getInt(20) : box.getInt(12)) & 0xFFFFFFFFL;
+    }
+
+    private static ByteBuffer path(ByteBuffer box, String... types){
+        for(String type : types){
+            if(box == null){
+                return null;
+            }
+            box = child(box, type);
+        }
+        return box;
+    }
+
+    private static ByteBuffer child(ByteBuffer parent, String type){
+        return child(parent, type, parent.arrayOffset());
+    }
+
+    //Content of the first child box of type starting at or after from (offset in the backing array)
+    private static ByteBuffer child(ByteBuffer parent, String type, int from){
+        int wanted = type(type);
+        int position = Math.max(0, from - parent.arrayOffset());
+        while(position + 8 <= parent.limit()){
+            long size = parent.getInt(position) & 0xFFFFFFFFL;
+            int header = 8;
+            if(size == 1){
+                if(position + 16 > parent.limit()){
+                    return null;
+                }
+                size = parent.getLong(position + 8);
+                header = 16;
+            } else if(size == 0){
+                size = parent.limit() - position;
+            }
+            if(size < header || position + size > parent.limit()){
+                return null;
+            }
+            if(parent.getInt(position + 4) == wanted){
+                ByteBuffer content = parent.duplicate();
+                content.position(position + header);
+                content.limit(position + (int) size);
+                return content.slice();
+            }
+            position += size;
+        }
+        return null;
+    }
+
+    private static int type(String type){
+        return (type.charAt(0) << 24) | (type.charAt(1) << 16) | (type.charAt(2) << 8) | type.charAt(3);
+    }
+}
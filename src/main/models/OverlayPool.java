@@ -0,0 +1,145 @@
+/*************************************************************************************************************************
+ * Source Code Form License Notice
+ *************************************************************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ **************************************************************************************************************************/
+/*************************************************************************************************************************
+ *   Author: Jarek Thomas
+ *
+ *   Overlay Node Pool
+ *
+ *   Text, ImageView and MediaView overlays of finished Theatre profiles are reset and kept here so the next profile
+ *   reconfigures them from its transition records instead of creating new nodes. Every pool is capped, nodes released
+ *   to a full pool are dropped. Only used on the FX thread
+ ***************************************************************************************************************************/
+
+package main.models;
+
+import java.util.ArrayDeque;
+import javafx.scene.image.ImageView;
+import javafx.scene.media.MediaPlayer;
+import javafx.scene.media.MediaView;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontSmoothingType;
+import javafx.scene.text.Text;
+
+public class OverlayPool {
+    private final static OverlayPool INSTANCE = new OverlayPool();
+
+    private static final int TEXT_CAP = Integer.getInteger("beerb.pool.text", 64);
+    private static final int IMAGE_CAP = Integer.getInteger("beerb.pool.image", 32);
+    private static final int VIDEO_CAP = Integer.getInteger("beerb.pool.video", 8);
+
+    private final ArrayDeque<Text> textPool = new ArrayDeque<>();
+    private final ArrayDeque<ImageView> imagePool = new ArrayDeque<>();
+    private final ArrayDeque<MediaView> videoPool = new ArrayDeque<>();
+
+    private long textRequests, textHits, imageRequests, imageHits, videoRequests, videoHits;
+
+    private OverlayPool(){
+
+    }
+    public static OverlayPool getInstance(){
+        return INSTANCE;
+    }
+
+    public Text acquireText(String textName, Double fontSize){
+        textRequests++;
+        Text temp = textPool.poll();
+        if(temp == null){
+            temp = new Text();
+            temp.setFontSmoothingType(FontSmoothingType.LCD);
+            temp.scaleZProperty().setValue(0);
+        } else {
+            textHits++;
+        }
+        TextModel.getInstance().styleTextObject(temp, textName, fontSize);
+        return temp;
+    }
+
+    public ImageView acquireImage(String imagePath){
+        imageRequests++;
+        ImageView temp = imagePool.poll();
+        if(temp == null){
+            temp = new ImageView();
+            temp.scaleZProperty().setValue(10);
+        } else {
+            imageHits++;
+        }
+        temp.setImage(ImageTransitionModel.getInstance().loadImage(imagePath));
+        return temp;
+    }
+
+    public MediaView acquireVideo(MediaPlayer mediaPlayer){
+        videoRequests++;
+        MediaView temp = videoPool.poll();
+        if(temp == null){
+            temp = new MediaView();
+        } else {
+            videoHits++;
+        }
+        temp.setMediaPlayer(mediaPlayer);
+        return temp;
+    }
+
+    //Nodes must already be removed from the scene
+    //Text goes back to the look of a new Text, styleTextObject leaves it alone when the text profile is missing
+    public void release(Text temp){
+        temp.setText("");
+        temp.setEffect(null);
+        temp.setFont(Font.getDefault());
+        temp.setFill(Color.BLACK);
+        temp.setX(0);
+        temp.setY(0);
+        temp.setScaleX(1);
+        temp.setOpacity(1);
+        if(textPool.size() < TEXT_CAP){
+            textPool.push(temp);
+        }
+    }
+
+    public void release(ImageView temp){
+        temp.setImage(null);
+        temp.setX(0);
+        temp.setY(0);
+        temp.setFitWidth(0);
+        temp.setFitHeight(0);
+        temp.setPreserveRatio(false);
+        temp.setOpacity(1);
+        if(imagePool.size() < IMAGE_CAP){
+            imagePool.push(temp);
+        }
+    }
+
+    public void release(MediaView temp){
+        temp.setMediaPlayer(null);
+        temp.setX(0);
+        temp.setY(0);
+        temp.setFitWidth(0);
+        temp.setFitHeight(0);
+        temp.setPreserveRatio(true);
+        temp.setOpacity(1);
+        if(videoPool.size() < VIDEO_CAP){
+            videoPool.push(temp);
+        }
+    }
+
+    public double getTextHitRate(){
+        return textRequests == 0 ? 0 : (double) textHits / textRequests;
+    }
+    public double getImageHitRate(){
+        return imageRequests == 0 ? 0 : (double) imageHits / imageRequests;
+    }
+    public double getVideoHitRate(){
+        return videoRequests == 0 ? 0 : (double) videoHits / videoRequests;
+    }
+
+    @Override
+    public String toString(){
+        return String.format("OverlayPool text %d/%d hits (%d pooled), image %d/%d hits (%d pooled), video %d/%d hits (%d pooled)",
+                textHits, textRequests, textPool.size(), imageHits, imageRequests, imagePool.size(),
+                videoHits, videoRequests, videoPool.size());
+    }
+}
@@ -0,0 +1,238 @@
+/*************************************************************************************************************************
+ * Source Code Form License Notice
+ *************************************************************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ **************************************************************************************************************************/
+/*************************************************************************************************************************
+ *   Author: Jarek Thomas
+ *
+ *   Theatre Playback Telemetry
+ *
+ *   Every transition the Theatre dispatches records its authored time, the player position when it was applied and
+ *   the delay between the FX pulse and the action finishing. Overlay fade-ins record the player position when the
+ *   fade completed. Values go into per-break latency histograms, p50/p99 are published as properties for the UI.
+ *   At the end of a break the events are appended as JSON lines to Profiles//<profile>.telemetry.jsonl and a
+ *   summary line, with the overlay pool and player cache hit rates since start, to Profiles//theatre.telemetry.jsonl.
+ *   Off unless started with -Dbeerb.telemetry=true
+ *   A file over MAX_FILE_SIZE is rotated to <file>.1 before the next append, so each log keeps at most two files
+ ***************************************************************************************************************************/
+
+package main.models;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import javafx.beans.property.ReadOnlyDoubleProperty;
+import javafx.beans.property.SimpleDoubleProperty;
+
+public class PlaybackTelemetry {
+    private final static PlaybackTelemetry INSTANCE = new PlaybackTelemetry();
+
+    private final boolean enabled = Boolean.getBoolean("beerb.telemetry");
+    private static final long MAX_FILE_SIZE = 5 * 1024 * 1024;
+
+    //Late by this much (ms) behind the authored time
+    private final Histogram lateness = new Histogram();
+    //FX pulse to action applied (us)
+    private final Histogram pulseDelay = new Histogram();
+    //Authored time to fade-in completed (ms)
+    private final Histogram fadeCompletion = new Histogram();
+    private final Map<String, List<String>> events = new LinkedHashMap<>();
+    private long breakStarted;
+    //Keeps the published percentiles cheap while still following the break
+    private final AppScheduler.Throttle publishThrottle = AppScheduler.getInstance().throttle(500, this::publish);
+
+    private final SimpleDoubleProperty latenessP50 = new SimpleDoubleProperty();
+    private final SimpleDoubleProperty latenessP99 = new SimpleDoubleProperty();
+    private final SimpleDoubleProperty pulseDelayP99 = new SimpleDoubleProperty();
+
+    private PlaybackTelemetry(){
+
+    }
+    public static PlaybackTelemetry getInstance(){
+        return INSTANCE;
+    }
+
+    public boolean getEnabled(){
+        return this.enabled;
+    }
+
+    public ReadOnlyDoubleProperty latenessP50Property(){
+        return latenessP50;
+    }
+    public ReadOnlyDoubleProperty latenessP99Property(){
+        return latenessP99;
+    }
+    public ReadOnlyDoubleProperty pulseDelayP99Property(){
+        return pulseDelayP99;
+    }
+
+    public void startBreak(){
+        publishThrottle.stop();
+        lateness.reset();
+        pulseDelay.reset();
+        fadeCompletion.reset();
+        events.clear();
+        breakStarted = System.currentTimeMillis();
+        publish();
+    }
+
+    //Called on the FX thread for every dispatched action, actions replayed to reconcile a seek are not measured
+    public void recordAction(String profileName, long authoredTime, long position, long pulseNanos, long appliedNanos, boolean seeking){
+        if(!enabled){
+            return;
+        }
+        long delay = Math.max(0, (appliedNanos - pulseNanos) / 1000);
+        if(!seeking){
+            lateness.record(Math.max(0, position - authoredTime));
+            pulseDelay.record(delay);
+        }
+        getEvents(profileName).add(String.format(Locale.ROOT,
+                "{\"type\":\"action\",\"authoredMs\":%d,\"positionMs\":%d,\"latenessMs\":%d,\"pulseDelayUs\":%d,\"seek\":%b}",
+                authoredTime, position, position - authoredTime, delay, seeking));
+        publishThrottle.trigger();
+    }
+
+    public void recordFade(String profileName, long authoredTime, long position){
+        if(!enabled){
+            return;
+        }
+        fadeCompletion.record(Math.max(0, position - authoredTime));
+        getEvents(profileName).add(String.format(Locale.ROOT,
+                "{\"type\":\"fade\",\"authoredMs\":%d,\"completedMs\":%d}", authoredTime, position));
+    }
+
+    //Publishes the final percentiles and appends the break to the telemetry files in the background
+    public void endBreak(){
+        if(!enabled || events.isEmpty()){
+            return;
+        }
+        publishThrottle.stop();
+        publish();
+        Map<String, List<String>> breakEvents = new LinkedHashMap<>(events);
+        String summary = String.format(Locale.ROOT,
+                "{\"type\":\"break\",\"started\":%d,\"ended\":%d,\"profiles\":%d,\"lateness\":%s,\"pulseDelay\":%s,\"fadeCompletion\":%s,"
+                + "\"overlayPoolHitRate\":{\"text\":%.3f,\"image\":%.3f,\"video\":%.3f},\"playerCacheHitRate\":%.3f}",
+                breakStarted, System.currentTimeMillis(), breakEvents.size(),
+                lateness.toJson("ms"), pulseDelay.toJson("us"), fadeCompletion.toJson("ms"),
+                OverlayPool.getInstance().getTextHitRate(), OverlayPool.getInstance().getImageHitRate(),
+                OverlayPool.getInstance().getVideoHitRate(), MediaPlayerCache.getInstance().getHitRate());
+        events.clear();
+
+        AppScheduler.getInstance().execute(() -> {
+            breakEvents.forEach((profileName, lines) -> append(getProfileFile(profileName).getPath(), lines));
+            List<String> lines = new ArrayList<>();
+            lines.add(summary);
+            append("Profiles//theatre.telemetry.jsonl", lines);
+        });
+    }
+
+    private List<String> getEvents(String profileName){
+        return events.computeIfAbsent(profileName, key -> new ArrayList<>());
+    }
+
+    private void publish(){
+        latenessP50.set(lateness.getPercentile(0.50));
+        latenessP99.set(lateness.getPercentile(0.99));
+        pulseDelayP99.set(pulseDelay.getPercentile(0.99));
+    }
+
+    public static File getProfileFile(String profileName){
+        return new File("Profiles//" + profileName + ".telemetry.jsonl");
+    }
+
+    //Called when a profile is deleted, its rotated file goes with it
+    public static void deleteProfileFiles(String profileName){
+        File file = getProfileFile(profileName);
+        file.delete();
+        new File(file.getPath() + ".1").delete();
+    }
+
+    private void append(String path, List<String> lines){
+        File file = new File(path);
+        if(file.length() > MAX_FILE_SIZE){
+            try{
+                Files.move(file.toPath(), new File(path + ".1").toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }catch(IOException e){
+                e.printStackTrace();
+            }
+        }
+        try(PrintWriter out = new PrintWriter(new FileWriter(path, true))){
+            lines.forEach(out::println);
+        }catch(IOException e){
+            e.printStackTrace();
+        }
+    }
+
+    //Log-linear histogram of non-negative values, exact below 128 and within 1/64 of the value above
+    public static final class Histogram {
+        private static final int LINEAR = 128;
+        private static final int SUB_BUCKETS = 64;
+        private final long[] counts = new long[LINEAR + (64 - 7) * SUB_BUCKETS];
+        private long count, max;
+
+        public void record(long value){
+            counts[index(value)]++;
+            count++;
+            max = Math.max(max, value);
+        }
+
+        public void reset(){
+            Arrays.fill(counts, 0);
+            count = 0;
+            max = 0;
+        }
+
+        public long getCount(){
+            return this.count;
+        }
+
+        //Lower bound of the bucket holding the percentile, 0 when empty
+        public long getPercentile(double percentile){
+            if(count == 0){
+                return 0;
+            }
+            long rank = (long) Math.ceil(percentile * count);
+            long seen = 0;
+            for(int i = 0; i < counts.length; i++){
+                seen += counts[i];
+                if(seen >= rank){
+                    return Math.min(value(i), max);
+                }
+            }
+            return max;
+        }
+
+        public String toJson(String unit){
+            return String.format(Locale.ROOT, "{\"unit\":\"%s\",\"count\":%d,\"p50\":%d,\"p90\":%d,\"p99\":%d,\"max\":%d}",
+                    unit, count, getPercentile(0.50), getPercentile(0.90), getPercentile(0.99), max);
+        }
+
+        private static int index(long value){
+            if(value < LINEAR){
+                return (int) value;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            return LINEAR + (exponent - 7) * SUB_BUCKETS + (int) ((value >>> (exponent - 6)) & (SUB_BUCKETS - 1));
+        }
+
+        private static long value(int index){
+            if(index < LINEAR){
+                return index;
+            }
+            int exponent = (index - LINEAR) / SUB_BUCKETS + 7;
+            long sub = (index - LINEAR) % SUB_BUCKETS;
+            return (SUB_BUCKETS + sub) << (exponent - 6);
+        }
+    }
+}
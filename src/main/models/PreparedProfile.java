@@ -0,0 +1,118 @@
+/*************************************************************************************************************************
+ * Source Code Form License Notice
+ *************************************************************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ **************************************************************************************************************************/
+/*************************************************************************************************************************
+ *   Author: Jarek Thomas
+ *
+ *   A queued profile prepared for the Theatre
+ *
+ *   Holds the decoded profile, its Media and MediaPlayer and every overlay object with its actions scheduled so the
+ *   Theatre can switch to it without any parsing or construction. Created on the FX thread
+ ***************************************************************************************************************************/
+
+package main.models;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javafx.animation.Animation;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.AnchorPane;
+import javafx.scene.media.Media;
+import javafx.scene.media.MediaPlayer;
+import javafx.scene.media.MediaView;
+import javafx.scene.text.Text;
+
+public class PreparedProfile {
+
+    private final String profileName;
+    private final ProfileData profile;
+    private final Media media;
+    private final MediaPlayer mediaPlayer;
+    private final Map<String, Text> textObjects = new HashMap<>();
+    private final Map<String, ImageView> imageObjects = new HashMap<>();
+    private final Map<String, MediaPlayer> audioObjects = new HashMap<>();
+    private final Map<String, MediaView> videoObjects = new HashMap<>();
+    private final TransitionScheduler scheduler = new TransitionScheduler();
+    private final List<Animation> animations = new ArrayList<>();
+
+    //The player is created paused so it reaches READY in the background while another profile plays
+    public PreparedProfile(String profileName, ProfileData profile){
+        this.profileName = profileName;
+        this.profile = profile;
+        this.media = new Media(new File(profile.getVideoPath()).toURI().toString());
+        this.mediaPlayer = new MediaPlayer(media);
+        this.mediaPlayer.setAutoPlay(false);
+        this.mediaPlayer.setVolume(profile.getVolume());
+    }
+
+    public String getProfileName(){
+        return this.profileName;
+    }
+    public ProfileData getProfile(){
+        return this.profile;
+    }
+    public Media getMedia(){
+        return this.media;
+    }
+    public MediaPlayer getMediaPlayer(){
+        return this.mediaPlayer;
+    }
+    //Overlay animations, stopped before the nodes go back to the OverlayPool
+    public List<Animation> getAnimations(){
+        return this.animations;
+    }
+    public TransitionScheduler getScheduler(){
+        return this.scheduler;
+    }
+    public Map<String, Text> getTextObjects(){
+        return this.textObjects;
+    }
+    public Map<String, ImageView> getImageObjects(){
+        return this.imageObjects;
+    }
+    public Map<String, MediaPlayer> getAudioObjects(){
+        return this.audioObjects;
+    }
+    public Map<String, MediaView> getVideoObjects(){
+        return this.videoObjects;
+    }
+
+    public boolean isReady(){
+        MediaPlayer.Status status = mediaPlayer.getStatus();
+        return status == MediaPlayer.Status.READY || status == MediaPlayer.Status.PAUSED || status == MediaPlayer.Status.PLAYING;
+    }
+
+    //Stop all overlay players, remove all overlay objects from the scene and return the nodes to the OverlayPool
+    public void clearOverlays(AnchorPane theatreAnchorPane){
+        animations.forEach(Animation::stop);
+        animations.clear();
+        //Players go back to the MediaPlayerCache warm for the next profile using the same clip
+        audioObjects.values().forEach(MediaPlayerCache.getInstance()::release);
+        videoObjects.values().forEach(tempView -> MediaPlayerCache.getInstance().release(tempView.getMediaPlayer()));
+        if(theatreAnchorPane != null){
+            theatreAnchorPane.getChildren().removeAll(videoObjects.values());
+            theatreAnchorPane.getChildren().removeAll(imageObjects.values());
+            theatreAnchorPane.getChildren().removeAll(textObjects.values());
+        }
+        videoObjects.values().forEach(OverlayPool.getInstance()::release);
+        imageObjects.values().forEach(OverlayPool.getInstance()::release);
+        textObjects.values().forEach(OverlayPool.getInstance()::release);
+        videoObjects.clear();
+        audioObjects.clear();
+        imageObjects.clear();
+        textObjects.clear();
+    }
+
+    //Release everything including the main player, the profile can not be played afterwards
+    public void dispose(AnchorPane theatreAnchorPane){
+        scheduler.clear();
+        clearOverlays(theatreAnchorPane);
+        mediaPlayer.dispose();
+    }
+}
@@ -15,8 +15,10 @@
 package main.models;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import javafx.application.Platform;
@@ -26,21 +28,20 @@ import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.property.SimpleDoubleProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.property.StringProperty;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableMap;
+import javafx.scene.Node;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.AnchorPane;
+import javafx.scene.layout.Pane;
 import javafx.scene.layout.StackPane;
 import javafx.scene.media.Media;
-import javafx.scene.media.MediaMarkerEvent;
 import javafx.scene.media.MediaPlayer;
 import javafx.scene.media.MediaView;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 import javafx.scene.text.Text;
 import javafx.scene.text.TextFlow;
+import javafx.scene.transform.Affine;
 import javafx.util.Duration;
-import javax.swing.Timer;
 
 public class PreviewModel {
     private final static PreviewModel INSTANCE = new PreviewModel();
@@ -67,19 +68,25 @@ public class PreviewModel {
     private final Set<MediaPlayer> activeAudio = new HashSet();
     private final Set<MediaView> activeVideo = new HashSet();
     
-    private ObservableMap<String, Duration> videoMarkersObMap;
+    private final TransitionScheduler scheduler = new TransitionScheduler();
+    //Scheduler action ids of every transition so a single edit only replaces its own actions
+    private final Map<String, List<Integer>> transitionActions = new HashMap();
     private final Set<String> profileMarkersHashSet = new HashSet();
     private int textTransitionCounter, imageTransitionCounter, audioTransitionCounter, videoTransitionCounter;
     private MediaView mediaView;
     private Media media;
+    private String videoPath;
     private MediaPlayer mediaPlayer;
     private Duration duration;
     private AnchorPane previewAnchorPane;
+    //Overlays are laid out in 1280x720 profile coordinates, one transform scales them onto the preview
+    private final Pane overlayLayer = new Pane();
+    private final Affine overlayTransform = new Affine();
     private StackPane previewStackPane;
     private String currentProfile, currentTransitionSelected;
     private int eventCounter;
-    private boolean stopTimeClicked = false, rewindCut = false, imageLinkBtnActive = true, videoLinkBtnActive = true, editTransitionClicked = false;
-    private Timer resizeIncreaseTimer, resizeDecreaseTimer;
+    private boolean rewindCut = false, imageLinkBtnActive = true, videoLinkBtnActive = true, editTransitionClicked = false;
+    private AppScheduler.Debounce resizeIncreaseTimer, resizeDecreaseTimer;
     
     
     private PreviewModel(){
@@ -94,7 +101,9 @@ public class PreviewModel {
         this.audioTransitionCounter = 0;
         this.videoTransitionCounter = 0;
         this.eventCounter = 1;
-        this.videoMarkersObMap = FXCollections.observableHashMap();
+        this.overlayLayer.setManaged(false);
+        this.overlayLayer.setPickOnBounds(false);
+        this.overlayLayer.getTransforms().add(overlayTransform);
     }
     
     public final int getEventCounter(){
@@ -104,17 +113,17 @@ public class PreviewModel {
         this.eventCounter++;
     }
     
-    public final Timer getResizeIncreaseTimer(){
+    public final AppScheduler.Debounce getResizeIncreaseTimer(){
         return this.resizeIncreaseTimer;
     }
-    public final void setResizeIncreaseTimer(Timer resizeIncreaseTimer){
+    public final void setResizeIncreaseTimer(AppScheduler.Debounce resizeIncreaseTimer){
         this.resizeIncreaseTimer = resizeIncreaseTimer;
     }
     
-    public final Timer getResizeDecreaseTimer(){
+    public final AppScheduler.Debounce getResizeDecreaseTimer(){
         return this.resizeDecreaseTimer;
     }
-    public final void setResizeDecreaseTimer(Timer resizeDecreaseTimer){
+    public final void setResizeDecreaseTimer(AppScheduler.Debounce resizeDecreaseTimer){
         this.resizeDecreaseTimer = resizeDecreaseTimer;
     }
     
@@ -129,6 +138,13 @@ public class PreviewModel {
         return this.previewAnchorPane;
     }
     
+    //Called on every preview resize, overlays and players are left alone
+    public void updateOverlayTransform(){
+        overlayTransform.setMxx(Context.getInstance().getWidthRatio());
+        overlayTransform.setMyy(Context.getInstance().getHeightRatio());
+        overlayTransform.setTx(Context.getInstance().getLetterBoxingCurrent() / 2);
+    }
+    
     public final void setStackPane(StackPane previewStackPane){
         this.previewStackPane = previewStackPane;
     }
@@ -375,6 +391,9 @@ public class PreviewModel {
     public Duration getDuration(){
         return this.duration;
     }
+    public String getVideoPath(){
+        return this.videoPath;
+    }
     
     public void setCurrentProfile(String currentProfile){
         this.currentProfile = currentProfile;
@@ -391,6 +410,10 @@ public class PreviewModel {
     }
     
     public void startPreview(String videoPath){
+        this.videoPath = videoPath;
+        FilmstripModel.getInstance().load(videoPath);
+        WaveformModel.getInstance().build(videoPath);
+        FrameIndexModel.getInstance().load(videoPath);
         createMedia(videoPath);
     }
     
@@ -399,7 +422,6 @@ public class PreviewModel {
         File temp = new File(videoPath);
         Media media = new Media(temp.toURI().toString());
         this.media = media;
-        videoMarkersObMap = media.getMarkers();
         
         if(!AudioTransitionModel.getInstance().getAudioMarkers().isEmpty()){
             createAudioMarkers();
@@ -442,8 +464,8 @@ public class PreviewModel {
         deleteAllMarkers();
     }
     
-    //Completely close player and rebuild player and transitions.
-    //Needs optimized to only recreate the current object being edited
+    //Completely close player and rebuild player and transitions
+    //Edits of a single transition use updateTransition() instead
     public void reloadMediaPlayer(){
         Platform.runLater(()->{
             closeMediaPlayer();
@@ -453,7 +475,7 @@ public class PreviewModel {
     }
     
     //Loads new mediaplayer when called and loads parameters into UI elements onReady
-    //Uses built-in onmarker event to load transitions
+    //Uses the transition scheduler to load transitions
     //Current volume property and currentTime property have listeners to update UI
     public void loadVideoPlayer(){
         MediaPlayer mediaPlayer = new MediaPlayer(media);
@@ -461,7 +483,8 @@ public class PreviewModel {
         this.mediaView.setMediaPlayer(mediaPlayer);
         Platform.runLater(()->{
             if(previewAnchorPane.getChildren().isEmpty()){
-                previewAnchorPane.getChildren().add(this.mediaView);
+                previewAnchorPane.getChildren().addAll(this.mediaView, overlayLayer);
+                updateOverlayTransform();
             }
         });
         
@@ -497,10 +520,8 @@ public class PreviewModel {
         mediaPlayer.setOnReady(()->{
             duration = media.getDuration();
             
-            if(stopTimeClicked){
-                mediaPlayer.seek(Duration.millis(Double.parseDouble(getStopTimestamp()) + 50));
-            } else if(!getStartTimestamp().isEmpty()){
-                mediaPlayer.seek(Duration.millis(Double.parseDouble(getStartTimestamp()) - 50));
+            if(!getStartTimestamp().isEmpty()){
+                seek(Duration.millis(Double.parseDouble(getStartTimestamp()) - 50));
             }
             
             Platform.runLater(()->{
@@ -512,130 +533,8 @@ public class PreviewModel {
                 videoTimeText.setValue(formatTime(currentTime, duration));
                 mediaPlayer.play();
             });
-            
-            stopTimeClicked = false;
-        });
-        mediaPlayer.setOnMarker((MediaMarkerEvent event) -> {
-            try {
-                
-                String tempKey = event.getMarker().getKey();
-                String[] tempArray = tempKey.split("-");
-                
-                if(autoPause.getValue() || editTransitionClicked){
-                    MediaPlayer.Status status = PreviewModel.getInstance().getMediaPlayer().getStatus();
-                    if (status == MediaPlayer.Status.UNKNOWN  || status == MediaPlayer.Status.HALTED){
-                        System.out.println(event.toString() + "  " + status);
-                        return;
-                    }
-                    if ( status != MediaPlayer.Status.PAUSED || status != MediaPlayer.Status.READY || status != MediaPlayer.Status.STOPPED){
-                        PreviewModel.getInstance().getMediaPlayer().pause();
-                    }
-                    setEditTransitionClicked(false);
-                }
-                
-                if(tempArray[0].equals("Add")){
-                    switch(tempArray[1]){
-                        case TextTransitionModel.TRANSITION_KEY:
-                            Platform.runLater(()->{
-                                if(!previewAnchorPane.getChildren().contains(textObjects.get(tempArray[2]))){
-                                    previewAnchorPane.getChildren().add(textObjects.get(tempArray[2]));
-                                    DraggableModel.getInstance().makeDraggable(textObjects.get(tempArray[2]));
-                                }
-                            });
-                            break;
-                        case ImageTransitionModel.TRANSITION_KEY:
-                            Platform.runLater(()->{
-                                if(!previewAnchorPane.getChildren().contains(imageObjects.get(tempArray[2]))){
-                                    if(imageObjects.get(tempArray[2]) != null){
-                                        previewAnchorPane.getChildren().add(imageObjects.get(tempArray[2]));
-                                        DraggableModel.getInstance().makeDraggable(imageObjects.get(tempArray[2]));
-                                    }
-                                }
-                            });
-                            break;
-                        case FFTransitionModel.TRANSITION_KEY:
-                            Platform.runLater(()->{
-                                mediaPlayer.setRate(Double.parseDouble(tempArray[2])); //Need to reference object in videoMarkers 
-                            });
-                            break;
-                        case CutTransitionModel.TRANSITION_KEY:
-                            Platform.runLater(()->{
-                                if(!tempArray[2].equals("*")){
-                                    mediaPlayer.seek(Duration.millis(Double.parseDouble(tempArray[2])));
-                                    videoMarkersObMap.remove(tempKey);
-                                }
-                            });
-                            break;
-                        case AudioTransitionModel.TRANSITION_KEY:
-                            Platform.runLater(()->{
-                                MediaPlayer tempPlayer = audioObjects.get(tempArray[2]);
-                                if(tempPlayer != null){
-                                    tempPlayer.play();
-                                    activeAudio.add(tempPlayer);
-                                }
-                            });
-                            break;
-                        case VideoTransitionModel.TRANSITION_KEY:
-                            Platform.runLater(()->{
-                                MediaView tempView = videoObjects.get(tempArray[2]);
-                                if(tempView != null){
-                                    if(!previewAnchorPane.getChildren().contains(tempView)){
-                                        previewAnchorPane.getChildren().add(tempView);
-                                        DraggableModel.getInstance().makeDraggable(tempView);
-                                        tempView.getMediaPlayer().play();
-                                        activeVideo.add(tempView);
-                                    }
-                                }
-                            });
-                            break;
-                        default:
-                            break;
-                    }
-                } else {
-                    switch(tempArray[1]){
-                        case TextTransitionModel.TRANSITION_KEY:
-                            Platform.runLater(()->{
-                                previewAnchorPane.getChildren().remove(textObjects.get(tempArray[2]));
-                            });
-                            
-                            break;
-                        case ImageTransitionModel.TRANSITION_KEY:
-                            Platform.runLater(()->{
-                                previewAnchorPane.getChildren().remove(imageObjects.get(tempArray[2]));
-                            });
-                            break;
-                        case FFTransitionModel.TRANSITION_KEY:
-                            Platform.runLater(()->{
-                                mediaPlayer.setRate(Double.parseDouble(tempArray[2]));
-                            });
-                            break;
-                        case AudioTransitionModel.TRANSITION_KEY:
-                            Platform.runLater(()->{
-                                MediaPlayer tempPlayer = audioObjects.get(tempArray[2]);
-                                if(tempPlayer != null){
-                                    tempPlayer.stop();
-                                }
-                                activeAudio.remove(tempPlayer);
-                            });
-                            break;
-                        case VideoTransitionModel.TRANSITION_KEY:
-                            Platform.runLater(()->{
-                                MediaView tempView = videoObjects.get(tempArray[2]);
-                                if(tempView != null){
-                                    if(previewAnchorPane.getChildren().contains(tempView)){
-                                        previewAnchorPane.getChildren().remove(tempView);
-                                        tempView.getMediaPlayer().stop();
-                                        activeVideo.remove(tempView);
-                                    }
-                                }
-                            });
-                            break;
-                        default:
-                            break;
-                    }
-                }
-            }catch(Exception e){e.printStackTrace();}
         });
+        scheduler.start(mediaPlayer);
         mediaPlayer.volumeProperty().addListener((ChangeListener) -> {
             Integer tempDouble = (int)(mediaPlayer.getVolume() * 100);
             Platform.runLater(()->{
@@ -658,214 +557,339 @@ public class PreviewModel {
     }
     
     //Loops through map to create objects for each transition string value
-    //Created objects are stored in another map for retrieval by mediaplayer onMarker listener
+    //Created objects are stored in another map and shown and hidden by the transition scheduler
     //Text object placed in TextFlow for compatibiilty with DraggableModel
     public void createTextMarkers(){
-        TextTransitionModel.getInstance().getTextMarkersMap().forEach((key, value) ->{
-            
-            String[] tempArray = value.toString().split(",");
-            Text tempText = TextModel.getInstance().createTextObject(tempArray[0], (Double.parseDouble(tempArray[1]) + 2) * Context.getInstance().getHeightRatio());
-            
-            tempText.setX(Double.parseDouble(tempArray[2]) * Context.getInstance().getWidthRatio());
-            tempText.setY(Double.parseDouble(tempArray[3]) * Context.getInstance().getHeightRatio());
-            
-            videoMarkersObMap.put("Add-Text-" + key, Duration.millis( Integer.parseInt(tempArray[4]) ));
-            getProfileMarkersSet().add(tempArray[4]);
-
-            if(!tempArray[5].equals("*")){
-                videoMarkersObMap.put("Remove-Text-" + key, Duration.millis( Integer.parseInt(tempArray[5]) ));
-                getProfileMarkersSet().add(tempArray[5]);
-            }
-            
-            String message = "";
-            for(int i = 6; i < tempArray.length; i++){
-                if(i != 6){
-                    message += ",";
-                }
-                message += tempArray[i];
-            }
-            tempText.setText(message);
-            TextFlow tempTextFlow = new TextFlow(tempText);
-            
-            tempTextFlow.setTranslateX((Double.parseDouble(tempArray[2]) * Context.getInstance().getWidthRatio()) + Context.getInstance().getLetterBoxingCurrent() / 2);
-            tempTextFlow.setTranslateY(Double.parseDouble(tempArray[3]) * Context.getInstance().getHeightRatio());
-            
-            textObjects.put(key + "", tempTextFlow);
-            
-        });
+        TextTransitionModel.getInstance().getTextMarkersMap().forEach(this::createTextMarker);
+    }
+    private void createTextMarker(String key, TextTransition transition){
+        Text tempText = TextModel.getInstance().createTextObject(transition.getTextProfile(), transition.getFontSize() + 2);
+        
+        tempText.setX(transition.getXPosition());
+        tempText.setY(transition.getYPosition());
+        
+        tempText.setText(transition.getMessage());
+        TextFlow tempTextFlow = new TextFlow(tempText);
+        
+        tempTextFlow.setTranslateX(transition.getXPosition());
+        tempTextFlow.setTranslateY(transition.getYPosition());
+        
+        addOverlay(key, tempTextFlow, null, 0, transition);
+        
+        textObjects.put(key, tempTextFlow);
     }
     
     //Loops through map to create objects for each transition string value
-    //Created objects are stored in another map for retrieval by mediaplayer onMarker listener
+    //Created objects are stored in another map and shown and hidden by the transition scheduler
     public void createImageMarkers(){
-        ImageTransitionModel.getInstance().getImageMarkersMap().forEach((key, value)->{
+        ImageTransitionModel.getInstance().getImageMarkersMap().forEach(this::createImageMarker);
+    }
+    private void createImageMarker(String key, ImageTransition transition){
+        ImageView tempImage = ImageTransitionModel.getInstance().createImageObject(transition.getImagePath());
         
-            String[] tempArray = value.toString().split(",");
-            
-            ImageView tempImage = ImageTransitionModel.getInstance().createImageObject(tempArray[0]);
-            
-            tempImage.setX((Double.parseDouble(tempArray[1]) * Context.getInstance().getWidthRatio()) + Context.getInstance().getLetterBoxingCurrent() / 2);
-            tempImage.setY(Double.parseDouble(tempArray[2]) * Context.getInstance().getHeightRatio());
-            tempImage.setFitWidth(Double.parseDouble(tempArray[3]) * Context.getInstance().getWidthRatio());
-            tempImage.setFitHeight(Double.parseDouble(tempArray[4]) * Context.getInstance().getHeightRatio());
-            tempImage.setPreserveRatio(Boolean.parseBoolean(tempArray[7]));
-            
-            videoMarkersObMap.put("Add-Image-" + key, Duration.millis( Integer.parseInt(tempArray[5]) ));
-            getProfileMarkersSet().add(tempArray[5]);
-
-            if(!tempArray[6].equals("*")){
-                videoMarkersObMap.put("Remove-Image-" + key, Duration.millis( Integer.parseInt(tempArray[6]) ));
-                getProfileMarkersSet().add(tempArray[6]);
-            }
-            
-            imageObjects.put(key + "", tempImage);
-        });
+        tempImage.setX(transition.getXPosition());
+        tempImage.setY(transition.getYPosition());
+        tempImage.setFitWidth(transition.getFitWidth());
+        tempImage.setFitHeight(transition.getFitHeight());
+        tempImage.setPreserveRatio(transition.getPreserveRatio());
+        
+        addOverlay(key, tempImage, null, 0, transition);
+        
+        imageObjects.put(key, tempImage);
     }
     
-    //Loops through map to create references for each transition string value
-    //Key-value is enough information passed to mediaPlayer to perform action
+    //Loops through map to create an action for each rate change
     public void createFFMarkers(){
-        FFTransitionModel.getInstance().getFFMarkersMap().forEach((key, value)->{
-            String[] tempArray = value.toString().split(",");
-            videoMarkersObMap.put("Add-FF-" + tempArray[2], Duration.millis( Integer.parseInt(tempArray[0]) ));
-            
-            if(!tempArray[1].equals("*")){
-                videoMarkersObMap.put("Remove-FF-" + tempArray[3], Duration.millis( Integer.parseInt(tempArray[1]) ));
-            }
-        });
+        FFTransitionModel.getInstance().getFFMarkersMap().forEach(this::createFFMarker);
+    }
+    private void createFFMarker(String key, FFTransition transition){
+        double startRate = transition.getStartRate();
+        double stopRate = transition.getStopRate();
+        track(key, scheduler.addAction(pausing(() -> mediaPlayer.setRate(startRate)), transition.getStartTime()));
+        track(key, scheduler.addAction(pausing(() -> mediaPlayer.setRate(stopRate)), transition.getStopTime()));
     }
     
-    //Loops through map to create references for each transition string value
-    //Key-value is enough information passed to mediaPlayer to perform action
+    //Loops through map to create an action for each cut
+    //A cut only seeks once so rewinding past it in the preview does not loop
     public void createCutMarkers(){
-        CutTransitionModel.getInstance().getCutMarkersMap().forEach((key, value)->{
-            String[] tempArray = value.toString().split(",");
-            getProfileMarkersSet().add(tempArray[0]);
-            videoMarkersObMap.put("Add-Cut-" + tempArray[1], Duration.millis( Integer.parseInt(tempArray[0]) ));
-        });
+        CutTransitionModel.getInstance().getCutMarkersMap().forEach(this::createCutMarker);
+    }
+    private void createCutMarker(String key, CutTransition transition){
+        if(transition.hasStartTime()){
+            getProfileMarkersSet().add(Integer.toString(transition.getStartTime()));
+            Duration cutTo = transition.hasStopTime() ? Duration.millis(transition.getStopTime()) : null;
+            track(key, scheduler.addAction(pausing(()->{
+                if(cutTo != null){
+                    //Disabled first, the seek dispatches the overlay actions at the new position
+                    scheduler.disableCurrent();
+                    scheduler.seek(cutTo);
+                }
+            }), transition.getStartTime()));
+        }
     }
     
     //Loops through map to create references for each transition string value
-    //Created objects are stored in another map for retrieval by mediaplayer onMarker listener
+    //Created objects are stored in another map and shown and hidden by the transition scheduler
     public void createAudioMarkers(){
-        AudioTransitionModel.getInstance().getAudioMarkersMap().forEach((key, value)->{
+        AudioTransitionModel.getInstance().getAudioMarkersMap().forEach(this::createAudioMarker);
+    }
+    private void createAudioMarker(String key, AudioTransition transition){
+        WaveformModel.getInstance().build(transition.getAudioPath());
+        MediaPlayer tempPlayer = MediaPlayerCache.getInstance().acquire(transition.getAudioPath(), transition.getPlayRate(), transition.getVolume(), transition.getSeekTime());
         
-            String[] tempArray = value.toString().split(",");
-            
-            MediaPlayer tempPlayer = AudioTransitionModel.getInstance().createAudioObject(tempArray[0]);
-            tempPlayer.setAutoPlay(false);
-            tempPlayer.setRate(Double.parseDouble(tempArray[3]));
-            tempPlayer.setVolume(Double.parseDouble(tempArray[4]));
-            tempPlayer.setOnReady(()->{
-                tempPlayer.seek(tempPlayer.getMedia().getDuration().multiply(Double.parseDouble(tempArray[5])));
-            });
-            
-            videoMarkersObMap.put("Add-Audio-" + key, Duration.millis( Integer.parseInt(tempArray[1]) ));
-            getProfileMarkersSet().add(tempArray[1]);
-
-            if(!tempArray[2].equals("*")){
-                videoMarkersObMap.put("Remove-Audio-" + key, Duration.millis( Integer.parseInt(tempArray[2]) ));
-                getProfileMarkersSet().add(tempArray[2]);
-            }
-            
-            audioObjects.put(key + "", tempPlayer);
-        });
+        addAction(key, ()->{
+            tempPlayer.play();
+            activeAudio.add(tempPlayer);
+        }, ()->{
+            MediaPlayerCache.rewind(tempPlayer, transition.getSeekTime());
+            activeAudio.remove(tempPlayer);
+        }, transition);
+        
+        audioObjects.put(key, tempPlayer);
     }
     
     //Loops through map to create references for each transition string value
-    //Created objects are stored in another map for retrieval by mediaplayer onMarker listener
+    //Created objects are stored in another map and shown and hidden by the transition scheduler
     public void createVideoMarkers(){
-        VideoTransitionModel.getInstance().getVideoMarkersMap().forEach((key,value)->{
-            String[] tempArray = value.toString().split(",");
-            
-            MediaPlayer tempPlayer = VideoTransitionModel.getInstance().createVideoObject(tempArray[0]);
-            tempPlayer.setAutoPlay(false);
-            tempPlayer.setRate(Double.parseDouble(tempArray[3]));
-            tempPlayer.setVolume(Double.parseDouble(tempArray[4]));
-            tempPlayer.setOnReady(()->{
-                Platform.runLater(()->{
-                    tempPlayer.seek(tempPlayer.getMedia().getDuration().multiply(Double.parseDouble(tempArray[9])));
-                });
-            });
-            
-            MediaView tempView = new MediaView(tempPlayer);
-            
-            tempView.setX((Double.parseDouble(tempArray[5]) * Context.getInstance().getWidthRatio()) + Context.getInstance().getLetterBoxingCurrent() / 2);
-            tempView.setY(Double.parseDouble(tempArray[6]) * Context.getInstance().getHeightRatio());
-            tempView.setFitWidth(Double.parseDouble(tempArray[7]) * Context.getInstance().getWidthRatio());
-            tempView.setFitHeight(Double.parseDouble(tempArray[8]) * Context.getInstance().getHeightRatio());
-            tempView.setPreserveRatio(Boolean.parseBoolean(tempArray[10]));
-            
-            videoMarkersObMap.put("Add-Video-" + key, Duration.millis( Integer.parseInt(tempArray[1]) ));
-            getProfileMarkersSet().add(tempArray[1]);
-
-            if(!tempArray[2].equals("*")){
-                videoMarkersObMap.put("Remove-Video-" + key, Duration.millis( Integer.parseInt(tempArray[2]) ));
-                getProfileMarkersSet().add(tempArray[2]);
+        VideoTransitionModel.getInstance().getVideoMarkersMap().forEach(this::createVideoMarker);
+    }
+    private void createVideoMarker(String key, VideoTransition transition){
+        MediaPlayer tempPlayer = MediaPlayerCache.getInstance().acquire(transition.getVideoPath(), transition.getPlayRate(), transition.getVolume(), transition.getSeekTime());
+        
+        MediaView tempView = new MediaView(tempPlayer);
+        
+        tempView.setX(transition.getXPosition());
+        tempView.setY(transition.getYPosition());
+        tempView.setFitWidth(transition.getFitWidth());
+        tempView.setFitHeight(transition.getFitHeight());
+        tempView.setPreserveRatio(transition.getPreserveRatio());
+        
+        addOverlay(key, tempView, tempPlayer, transition.getSeekTime(), transition);
+        
+        videoObjects.put(key, tempView);
+    }
+    
+    //Node overlays are added draggable and removed again, a video overlay also plays while shown
+    //and is paused back at seekTime when removed
+    private void addOverlay(String key, Node node, MediaPlayer player, double seekTime, Transition transition){
+        addAction(key, ()->{
+            if(node.getParent() != overlayLayer){
+                overlayLayer.getChildren().add(node);
+                DraggableModel.getInstance().makeDraggable(node);
+                if(player != null){
+                    player.play();
+                    activeVideo.add((MediaView) node);
+                }
             }
-            
-            videoObjects.put(key + "", tempView);
-        });
+        }, ()->{
+            if(node.getParent() == overlayLayer){
+                overlayLayer.getChildren().remove(node);
+                if(player != null){
+                    MediaPlayerCache.rewind(player, seekTime);
+                    activeVideo.remove((MediaView) node);
+                }
+            }
+        }, transition);
+    }
+    
+    //Registers actions shown over [start, stop) and reserves their timestamps, unset times are skipped
+    //The scheduler reconciles overlays after a seek or time slider scrub
+    private void addAction(String key, Runnable show, Runnable hide, Transition transition){
+        track(key, scheduler.addInterval(pausing(show), pausing(hide), transition.getStartTime(), transition.getStopTime()));
+        if(transition.hasStartTime()){
+            getProfileMarkersSet().add(Integer.toString(transition.getStartTime()));
+        }
+        if(transition.hasStopTime()){
+            getProfileMarkersSet().add(Integer.toString(transition.getStopTime()));
+        }
+    }
+    
+    private void track(String key, int action){
+        if(action >= 0){
+            transitionActions.computeIfAbsent(key, k -> new ArrayList<>()).add(action);
+        }
+    }
+    
+    //Wraps an action with the auto pause of the preview, overlays reconciled after a seek do not pause
+    private Runnable pausing(Runnable action){
+        return ()->{
+            try{
+                if((autoPause.getValue() || editTransitionClicked) && !scheduler.isSeeking()){
+                    MediaPlayer.Status status = mediaPlayer.getStatus();
+                    if (status == MediaPlayer.Status.UNKNOWN  || status == MediaPlayer.Status.HALTED){
+                        System.out.println("Transition skipped  " + status);
+                        return;
+                    }
+                    if ( status != MediaPlayer.Status.PAUSED || status != MediaPlayer.Status.READY || status != MediaPlayer.Status.STOPPED){
+                        mediaPlayer.pause();
+                    }
+                    setEditTransitionClicked(false);
+                }
+                action.run();
+            }catch(Exception e){e.printStackTrace();}
+        };
     }
     
     //Stop all players and clear all objects from list
     public void deleteAllMarkers(){
         try{
-            audioObjects.forEach((key,tempPlayer)->{
-                MediaPlayer.Status status = tempPlayer.getStatus();
-                if (status != MediaPlayer.Status.STOPPED  || status != MediaPlayer.Status.HALTED){
-                   tempPlayer.stop();
-                }
-                tempPlayer.dispose();
-            });
-            videoObjects.forEach((key,tempView)->{
-                MediaPlayer.Status status = tempView.getMediaPlayer().getStatus();
-                if (status != MediaPlayer.Status.STOPPED  || status != MediaPlayer.Status.HALTED){
-                   tempView.getMediaPlayer().stop();
-                }
-                tempView.getMediaPlayer().dispose();
-            });
+            //Players stay warm in the MediaPlayerCache for the rebuilt preview
+            audioObjects.values().forEach(MediaPlayerCache.getInstance()::release);
+            videoObjects.values().forEach(tempView -> MediaPlayerCache.getInstance().release(tempView.getMediaPlayer()));
             activeAudio.clear();
             activeVideo.clear();
             imageObjects.clear();
             textObjects.clear();
             audioObjects.clear();
             videoObjects.clear();
-            videoMarkersObMap.clear();
+            transitionActions.clear();
+            scheduler.clear();
+            overlayLayer.getChildren().clear();
             previewAnchorPane.getChildren().clear();
         }catch(Exception e){e.printStackTrace();}
     }
     
-    //Same as above except clears previewAnchorPane and adds back the main mediaView
+    //Same as above except clears previewAnchorPane and adds back the main mediaView and overlay layer
     public void deleteMarkersForTimeline(){
         try{
-            audioObjects.forEach((key,tempPlayer)->{
-                MediaPlayer.Status status = tempPlayer.getStatus();
-                if (status != MediaPlayer.Status.STOPPED  || status != MediaPlayer.Status.HALTED){
-                   tempPlayer.stop();
-                }
-                tempPlayer.dispose();
-            });
-            videoObjects.forEach((key,tempView)->{
-                MediaPlayer.Status status = tempView.getMediaPlayer().getStatus();
-                if (status != MediaPlayer.Status.STOPPED  || status != MediaPlayer.Status.HALTED){
-                   tempView.getMediaPlayer().stop();
-                }
-                tempView.getMediaPlayer().dispose();
-            });
+            //Players stay warm in the MediaPlayerCache for the rebuilt preview
+            audioObjects.values().forEach(MediaPlayerCache.getInstance()::release);
+            videoObjects.values().forEach(tempView -> MediaPlayerCache.getInstance().release(tempView.getMediaPlayer()));
             activeAudio.clear();
             activeVideo.clear();
             imageObjects.clear();
             textObjects.clear();
             audioObjects.clear();
             videoObjects.clear();
-            videoMarkersObMap.clear();
+            transitionActions.clear();
+            scheduler.clear();
+            overlayLayer.getChildren().clear();
             previewAnchorPane.getChildren().clear();
-            previewAnchorPane.getChildren().add(this.mediaView);
+            previewAnchorPane.getChildren().addAll(this.mediaView, overlayLayer);
         }catch(Exception e){e.printStackTrace();}
     }
     
-    //Move X || Y respectively for the current transition
+    //Rebuilds the objects and actions of a single transition, the player keeps its position and state
+    //Falls back to a full reload when the preview is not running
+    public void updateTransition(String key){
+        Platform.runLater(()->{
+            if(!isPreviewRunning()){
+                if(!ProfileModel.getInstance().getVideoProperties().isEmpty()){
+                    reloadMediaPlayer();
+                }
+                return;
+            }
+            try{
+                deleteTransitionObjects(key);
+                createTransitionObjects(key);
+                scheduler.recompile();
+            }catch(Exception e){e.printStackTrace();}
+        });
+    }
+    
+    //Removes the objects and actions of a deleted transition, the rest of the preview is untouched
+    public void removeTransition(String key){
+        Platform.runLater(()->{
+            try{
+                deleteTransitionObjects(key);
+            }catch(Exception e){e.printStackTrace();}
+        });
+    }
+    
+    //Objects and actions do not depend on the key so a rename only moves them
+    public void renameTransition(String oldKey, String newKey){
+        Platform.runLater(()->{
+            moveKey(textObjects, oldKey, newKey);
+            moveKey(imageObjects, oldKey, newKey);
+            moveKey(audioObjects, oldKey, newKey);
+            moveKey(videoObjects, oldKey, newKey);
+            moveKey(transitionActions, oldKey, newKey);
+        });
+    }
+    
+    //Seeks through the transition scheduler so actions in the skipped part are never dispatched
+    public void seek(Duration time){
+        if(scheduler.isRunning()){
+            scheduler.seek(time);
+        } else if(mediaPlayer != null){
+            mediaPlayer.seek(time);
+        }
+    }
+    
+    //Seeks just before the current transition and plays it instead of reloading the preview
+    public void previewCurrentTransition(){
+        Platform.runLater(()->{
+            if(!isPreviewRunning()){
+                if(!ProfileModel.getInstance().getVideoProperties().isEmpty()){
+                    reloadMediaPlayer();
+                }
+                return;
+            }
+            if(!getStartTimestamp().isEmpty()){
+                seek(Duration.millis(Math.max(0, Double.parseDouble(getStartTimestamp()) - 50)));
+            }
+            mediaPlayer.play();
+        });
+    }
+    
+    private boolean isPreviewRunning(){
+        if(mediaPlayer == null){
+            return false;
+        }
+        MediaPlayer.Status status = mediaPlayer.getStatus();
+        return status != MediaPlayer.Status.DISPOSED && status != MediaPlayer.Status.HALTED && status != MediaPlayer.Status.UNKNOWN;
+    }
+    
+    private <T> void moveKey(Map<String, T> map, String oldKey, String newKey){
+        T value = map.remove(oldKey);
+        if(value != null){
+            map.put(newKey, value);
+        }
+    }
+    
+    private void deleteTransitionObjects(String key){
+        List<Integer> actions = transitionActions.remove(key);
+        if(actions != null){
+            actions.forEach(scheduler::removeAction);
+        }
+        TextFlow tempTextFlow = textObjects.remove(key);
+        if(tempTextFlow != null){
+            overlayLayer.getChildren().remove(tempTextFlow);
+        }
+        ImageView tempImage = imageObjects.remove(key);
+        if(tempImage != null){
+            overlayLayer.getChildren().remove(tempImage);
+        }
+        MediaPlayer tempPlayer = audioObjects.remove(key);
+        if(tempPlayer != null){
+            activeAudio.remove(tempPlayer);
+            MediaPlayerCache.getInstance().release(tempPlayer);
+        }
+        MediaView tempView = videoObjects.remove(key);
+        if(tempView != null){
+            overlayLayer.getChildren().remove(tempView);
+            activeVideo.remove(tempView);
+            MediaPlayerCache.getInstance().release(tempView.getMediaPlayer());
+        }
+    }
+    
+    private void createTransitionObjects(String key){
+        if(TextTransitionModel.getInstance().getTextMarkersMap().containsKey(key)){
+            createTextMarker(key, TextTransitionModel.getInstance().getTextMarkersMap().get(key));
+        } else if(ImageTransitionModel.getInstance().getImageMarkersMap().containsKey(key)){
+            createImageMarker(key, ImageTransitionModel.getInstance().getImageMarkersMap().get(key));
+        } else if(FFTransitionModel.getInstance().getFFMarkersMap().containsKey(key)){
+            createFFMarker(key, FFTransitionModel.getInstance().getFFMarkersMap().get(key));
+        } else if(CutTransitionModel.getInstance().getCutMarkersMap().containsKey(key)){
+            createCutMarker(key, CutTransitionModel.getInstance().getCutMarkersMap().get(key));
+        } else if(AudioTransitionModel.getInstance().getAudioMarkersMap().containsKey(key)){
+            createAudioMarker(key, AudioTransitionModel.getInstance().getAudioMarkersMap().get(key));
+        } else if(VideoTransitionModel.getInstance().getVideoMarkersMap().containsKey(key)){
+            createVideoMarker(key, VideoTransitionModel.getInstance().getVideoMarkersMap().get(key));
+        }
+    }
+    
+    //Move X || Y respectively for the current transition, values are in 1280x720 profile coordinates
     public void moveX(Double newValue, String currentTransition){
         String tempString = currentTransition;
         
@@ -875,27 +899,21 @@ public class PreviewModel {
             Text tempText = (Text)tempTextFlow.getChildren().get(0);
             
             tempText.setX(newValue);
-            
-            newValue = newValue - Context.getInstance().getLetterBoxingCurrent() / 2;
-            TextTransitionModel.getInstance().setXPosition((int) (newValue / Context.getInstance().getWidthRatio()));
+            TextTransitionModel.getInstance().setXPosition(newValue.intValue());
             
         } else if(imageObjects.containsKey(tempString)){
             
             ImageView tempImageView = ((ImageView) getImageObjects().get(tempString));
             
             tempImageView.setX(newValue);
-            
-            newValue = newValue - Context.getInstance().getLetterBoxingCurrent() / 2;
-            ImageTransitionModel.getInstance().setXPosition((int)(newValue.doubleValue() / Context.getInstance().getWidthRatio()));
+            ImageTransitionModel.getInstance().setXPosition(newValue.intValue());
             
         } else if(videoObjects.containsKey(tempString)){
             
             MediaView tempView = ((MediaView) getVideoObjects().get(tempString));
             
             tempView.setX(newValue);
-            
-            newValue = newValue - Context.getInstance().getLetterBoxingCurrent() / 2;
-            VideoTransitionModel.getInstance().setXPosition((int)(newValue.doubleValue() / Context.getInstance().getWidthRatio()));
+            VideoTransitionModel.getInstance().setXPosition(newValue.intValue());
         }          
     }
     public void moveY(Double newValue, String currentTransition){
@@ -906,135 +924,66 @@ public class PreviewModel {
             TextFlow tempTextFlow = ((TextFlow) getTextObjects().get(tempString));
             Text tempText = (Text)tempTextFlow.getChildren().get(0);
             tempText.setY(newValue);
-            TextTransitionModel.getInstance().setYPosition((int)(newValue / Context.getInstance().getHeightRatio()));
+            TextTransitionModel.getInstance().setYPosition(newValue.intValue());
             
         } else if(imageObjects.containsKey(tempString)){
             
             ImageView tempImageView = ((ImageView) getImageObjects().get(tempString));
             tempImageView.setY(newValue);
-            ImageTransitionModel.getInstance().setYPosition((int)(newValue / Context.getInstance().getHeightRatio()));
+            ImageTransitionModel.getInstance().setYPosition(newValue.intValue());
             
         } else if(videoObjects.containsKey(tempString)){
             
             MediaView tempView = ((MediaView) getVideoObjects().get(tempString));
             tempView.setY(newValue);
-            VideoTransitionModel.getInstance().setYPosition((int)(newValue / Context.getInstance().getHeightRatio()));
+            VideoTransitionModel.getInstance().setYPosition(newValue.intValue());
         }
     }
     
     //Grab current time from mediaPlayer and set values to appropriate objects
+    //Only the edited transition is rebuilt, the player stays where the time was captured
+    //Captured times are snapped to the start of the frame on screen
     public void captureStartTime(){
-        String tempString = ProfileModel.getInstance().getVideoProperties().get(0).toString();
-        Duration currentTime = getMediaPlayer().getCurrentTime();
-        setStartTimestamp(((int) currentTime.toMillis()) + "");
-        setStartTimeValue(TheatreModel.getInstance().timeConversion((int)currentTime.toSeconds()));
-        closeMediaPlayer();
-        
-        String currentTransition = getCurrentTransition();
-        
-        if(FFTransitionModel.getInstance().getFFMarkers().containsKey(currentTransition)){
-            Platform.runLater(()->{
-                stopTimeClicked = false;
-                FFTransitionModel.getInstance().editTransitionString();
-                startPreview(tempString);
-            });
-        } else if(CutTransitionModel.getInstance().getCutMarkers().containsKey(currentTransition)){
-            Platform.runLater(()->{
-                if(Integer.parseInt(getStartTimestamp()) > Integer.parseInt(getStopTimestamp())){
-                    rewindCut = true;
-                } else {
-                    rewindCut = false;
-                }
-                stopTimeClicked = false;
-                CutTransitionModel.getInstance().editTransitionString();
-                startPreview(tempString);
-            });
-        } else if(TextTransitionModel.getInstance().getTextMarkers().containsKey(currentTransition)){
-            Platform.runLater(()->{
-                stopTimeClicked = false;
-                TextTransitionModel.getInstance().editTransitionString();
-                startPreview(tempString);
-            });
-        } else if(ImageTransitionModel.getInstance().getImageMarkers().containsKey(currentTransition)){
-            Platform.runLater(()->{
-                stopTimeClicked = false;
-                ImageTransitionModel.getInstance().editTransitionString();
-                startPreview(tempString);
-            });
-        } else if(AudioTransitionModel.getInstance().getAudioMarkers().containsKey(currentTransition)){
-            Platform.runLater(()->{
-                stopTimeClicked = false;
-                AudioTransitionModel.getInstance().editTransitionString();
-                startPreview(tempString);
-            });
-        } else if(VideoTransitionModel.getInstance().getVideoMarkers().containsKey(currentTransition)){
-            Platform.runLater(()->{
-                stopTimeClicked = false;
-                VideoTransitionModel.getInstance().editTransitionString();
-                startPreview(tempString);
-            });
-        }
+        int currentTime = FrameIndexModel.getInstance().snap(getMediaPlayer().getCurrentTime());
+        setStartTimestamp(currentTime + "");
+        setStartTimeValue(TheatreModel.getInstance().timeConversion(currentTime / 1000));
+        captureTime();
     }
     public void captureStopTime(){
-        String tempString = ProfileModel.getInstance().getVideoProperties().get(0).toString();
-        Duration currentTime = getMediaPlayer().getCurrentTime();
-        setStopTimestamp(((int) currentTime.toMillis()) + "");
-        setStopTimeValue(TheatreModel.getInstance().timeConversion((int)currentTime.toSeconds()));
-        closeMediaPlayer();
-        
+        int currentTime = FrameIndexModel.getInstance().snap(getMediaPlayer().getCurrentTime());
+        setStopTimestamp(currentTime + "");
+        setStopTimeValue(TheatreModel.getInstance().timeConversion(currentTime / 1000));
+        captureTime();
+    }
+    private void captureTime(){
         String currentTransition = getCurrentTransition();
-        if(FFTransitionModel.getInstance().getFFMarkers().containsKey(currentTransition)){
-            Platform.runLater(()->{
-                stopTimeClicked = true;
+        Platform.runLater(()->{
+            if(FFTransitionModel.getInstance().getFFMarkers().containsKey(currentTransition)){
                 FFTransitionModel.getInstance().editTransitionString();
-                startPreview(tempString);
-            });
-        } else if(CutTransitionModel.getInstance().getCutMarkers().containsKey(currentTransition)){
-            Platform.runLater(()->{
+            } else if(CutTransitionModel.getInstance().getCutMarkers().containsKey(currentTransition)){
                 if(Integer.parseInt(getStartTimestamp()) > Integer.parseInt(getStopTimestamp())){
                     rewindCut = true;
                 } else {
                     rewindCut = false;
                 }
-                stopTimeClicked = true;
                 CutTransitionModel.getInstance().editTransitionString();
-                startPreview(tempString);
-            });
-        } else if(TextTransitionModel.getInstance().getTextMarkers().containsKey(currentTransition)){
-            Platform.runLater(()->{
-                stopTimeClicked = true;
+            } else if(TextTransitionModel.getInstance().getTextMarkers().containsKey(currentTransition)){
                 TextTransitionModel.getInstance().editTransitionString();
-                startPreview(tempString);
-            });
-        } else if(ImageTransitionModel.getInstance().getImageMarkers().containsKey(currentTransition)){
-            Platform.runLater(()->{
-                stopTimeClicked = true;
+            } else if(ImageTransitionModel.getInstance().getImageMarkers().containsKey(currentTransition)){
                 ImageTransitionModel.getInstance().editTransitionString();
-                startPreview(tempString);
-            });
-        } else if(AudioTransitionModel.getInstance().getAudioMarkers().containsKey(currentTransition)){
-            Platform.runLater(()->{
-                stopTimeClicked = true;
+            } else if(AudioTransitionModel.getInstance().getAudioMarkers().containsKey(currentTransition)){
                 AudioTransitionModel.getInstance().editTransitionString();
-                startPreview(tempString);
-            });
-        } else if(VideoTransitionModel.getInstance().getVideoMarkers().containsKey(currentTransition)){
-            Platform.runLater(()->{
-                stopTimeClicked = true;
+            } else if(VideoTransitionModel.getInstance().getVideoMarkers().containsKey(currentTransition)){
                 VideoTransitionModel.getInstance().editTransitionString();
-                startPreview(tempString);
-            });
-        }
+            }
+        });
+        updateTransition(currentTransition);
     }
     
     //Change Text Profile loading for current object
     public void changeTextProfile(String textProfile){
-        String tempString = ProfileModel.getInstance().getVideoProperties().get(0).toString();
         TextTransitionModel.getInstance().editTransitionString();
-        closeMediaPlayer();
-        Platform.runLater(()->{
-            startPreview(tempString);
-        });
+        updateTransition(getCurrentTransition());
     }
     
     //Update text for current transition
@@ -1064,7 +1013,7 @@ public class PreviewModel {
                     ImageTransitionModel.getInstance().setFitWidth(fitWidth);
                     ImageTransitionModel.getInstance().setFitHeight(fitHeight);
                     ImageTransitionModel.getInstance().editTransitionString();
-                    PreviewModel.getInstance().reloadMediaPlayer();
+                    updateTransition(getCurrentTransition());
                 }
             }
         }catch(Exception e){e.printStackTrace();}
@@ -1078,7 +1027,7 @@ public class PreviewModel {
                     VideoTransitionModel.getInstance().setFitWidth(fitWidth);
                     VideoTransitionModel.getInstance().setFitHeight(fitHeight);
                     VideoTransitionModel.getInstance().editTransitionString();
-                    PreviewModel.getInstance().reloadMediaPlayer();
+                    updateTransition(getCurrentTransition());
                 }
             }
         }catch(Exception e){e.printStackTrace();}
@@ -1113,7 +1062,7 @@ public class PreviewModel {
                 if(!getCurrentTransition().isEmpty()){
                     AudioTransitionModel.getInstance().setVolume(audioVolume);
                     AudioTransitionModel.getInstance().editTransitionString();
-                    reloadMediaPlayer();
+                    updateTransition(getCurrentTransition());
                 }
             }
         }catch(Exception e){e.printStackTrace();}
@@ -1126,7 +1075,7 @@ public class PreviewModel {
                 if(!getCurrentTransition().isEmpty()){
                     AudioTransitionModel.getInstance().setPlayRate(audioRate);
                     AudioTransitionModel.getInstance().editTransitionString();
-                    reloadMediaPlayer();
+                    updateTransition(getCurrentTransition());
                 }
             }
         }catch(Exception e){e.printStackTrace();}
@@ -1139,7 +1088,7 @@ public class PreviewModel {
                 if(!getCurrentTransition().isEmpty()){
                     AudioTransitionModel.getInstance().setSeekTime(audioSeek);
                     AudioTransitionModel.getInstance().editTransitionString();
-                    reloadMediaPlayer();
+                    updateTransition(getCurrentTransition());
                 }
             }
         }catch(Exception e){e.printStackTrace();}
@@ -1152,7 +1101,7 @@ public class PreviewModel {
                 if(!getCurrentTransition().isEmpty()){
                     VideoTransitionModel.getInstance().setVolume(videoVolume);
                     VideoTransitionModel.getInstance().editTransitionString();
-                    reloadMediaPlayer();
+                    updateTransition(getCurrentTransition());
                 }
             }
         }catch(Exception e){e.printStackTrace();}
@@ -1165,7 +1114,7 @@ public class PreviewModel {
                 if(!getCurrentTransition().isEmpty()){
                     VideoTransitionModel.getInstance().setPlayRate(videoRate);
                     VideoTransitionModel.getInstance().editTransitionString();
-                    reloadMediaPlayer();
+                    updateTransition(getCurrentTransition());
                 }
             }
         }catch(Exception e){e.printStackTrace();}
@@ -1178,7 +1127,7 @@ public class PreviewModel {
                 if(!getCurrentTransition().isEmpty()){
                     VideoTransitionModel.getInstance().setSeekTime(videoSeek);
                     VideoTransitionModel.getInstance().editTransitionString();
-                    reloadMediaPlayer();
+                    updateTransition(getCurrentTransition());
                 }
             }
         }catch(Exception e){e.printStackTrace();}
@@ -1197,7 +1146,7 @@ public class PreviewModel {
                         TextTransitionModel.getInstance().setFontSize(fontSize);
                         TextTransitionModel.getInstance().editTransitionString();
                         FontWeight weight = TextModel.getInstance().getFontWeight(tempText.getFont().getStyle().toString());
-                        tempText.setFont(Font.font(tempText.getFont().getFamily(), weight , fontSize * Context.getInstance().getHeightRatio()));
+                        tempText.setFont(Font.font(tempText.getFont().getFamily(), weight , fontSize));
                     }
                 }
             }
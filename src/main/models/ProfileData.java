@@ -0,0 +1,131 @@
+/*************************************************************************************************************************
+ * Source Code Form License Notice
+ *************************************************************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ **************************************************************************************************************************/
+/*************************************************************************************************************************
+ *   Author: Jarek Thomas
+ *
+ *   Decoded Video Profile
+ *
+ *   Holds the video properties and typed transition maps of one profile independently of the transition singletons
+ *   so XML, binary and in-memory profiles can be converted without touching the edit/theatre scene
+ ***************************************************************************************************************************/
+
+package main.models;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public final class ProfileData {
+
+    private final List<String> videoProperties;
+    private final Map<String, TextTransition> textTransitions;
+    private final Map<String, ImageTransition> imageTransitions;
+    private final Map<String, FFTransition> ffTransitions;
+    private final Map<String, CutTransition> cutTransitions;
+    private final Map<String, AudioTransition> audioTransitions;
+    private final Map<String, VideoTransition> videoTransitions;
+
+    public ProfileData(List<String> videoProperties,
+                       Map<String, TextTransition> textTransitions,
+                       Map<String, ImageTransition> imageTransitions,
+                       Map<String, FFTransition> ffTransitions,
+                       Map<String, CutTransition> cutTransitions,
+                       Map<String, AudioTransition> audioTransitions,
+                       Map<String, VideoTransition> videoTransitions){
+        this.videoProperties = Collections.unmodifiableList(new ArrayList<>(videoProperties == null ? Collections.emptyList() : videoProperties));
+        this.textTransitions = copy(textTransitions);
+        this.imageTransitions = copy(imageTransitions);
+        this.ffTransitions = copy(ffTransitions);
+        this.cutTransitions = copy(cutTransitions);
+        this.audioTransitions = copy(audioTransitions);
+        this.videoTransitions = copy(videoTransitions);
+    }
+
+    private static <T> Map<String, T> copy(Map<String, T> transitions){
+        return Collections.unmodifiableMap(transitions == null ? new HashMap<>() : new HashMap<>(transitions));
+    }
+
+    //Decode the string maps read from profile XML
+    public static ProfileData fromWrapper(ProfileWrapper wrapper){
+        return fromWrapper(wrapper, null);
+    }
+
+    //Malformed transition strings are skipped and described in errors when it is not null
+    public static ProfileData fromWrapper(ProfileWrapper wrapper, List<String> errors){
+        return new ProfileData(wrapper.getVideoProperties(),
+                TransitionCodec.decode(wrapper.getTextTransitions(), TextTransition::parse, errors),
+                TransitionCodec.decode(wrapper.getImageTransitions(), ImageTransition::parse, errors),
+                TransitionCodec.decode(wrapper.getFFTransitions(), FFTransition::parse, errors),
+                TransitionCodec.decode(wrapper.getCutTransitions(), CutTransition::parse, errors),
+                TransitionCodec.decode(wrapper.getAudioTransitions(), AudioTransition::parse, errors),
+                TransitionCodec.decode(wrapper.getVideoTransitions(), VideoTransition::parse, errors));
+    }
+
+    //Encode back to the string maps written to profile XML
+    public ProfileWrapper toWrapper(){
+        ProfileWrapper wrapper = new ProfileWrapper();
+        wrapper.setVideoProperties(new ArrayList<>(videoProperties));
+        wrapper.setTextTransitions(TransitionCodec.encode(textTransitions));
+        wrapper.setImageTransitions(TransitionCodec.encode(imageTransitions));
+        wrapper.setFFTransitions(TransitionCodec.encode(ffTransitions));
+        wrapper.setCutTransitions(TransitionCodec.encode(cutTransitions));
+        wrapper.setAudioTransitions(TransitionCodec.encode(audioTransitions));
+        wrapper.setVideoTransitions(TransitionCodec.encode(videoTransitions));
+        return wrapper;
+    }
+
+    //Snapshot of the profile currently held by the transition singletons
+    public static ProfileData fromModels(){
+        List<String> videoProperties = new ArrayList<>();
+        for(Object property : ProfileModel.getInstance().getVideoProperties()){
+            videoProperties.add(property.toString());
+        }
+        return new ProfileData(videoProperties,
+                TextTransitionModel.getInstance().getTextMarkers(),
+                ImageTransitionModel.getInstance().getImageMarkers(),
+                FFTransitionModel.getInstance().getFFMarkers(),
+                CutTransitionModel.getInstance().getCutMarkers(),
+                AudioTransitionModel.getInstance().getAudioMarkers(),
+                VideoTransitionModel.getInstance().getVideoMarkers());
+    }
+
+    public List<String> getVideoProperties(){
+        return this.videoProperties;
+    }
+    public Map<String, TextTransition> getTextTransitions(){
+        return this.textTransitions;
+    }
+    public Map<String, ImageTransition> getImageTransitions(){
+        return this.imageTransitions;
+    }
+    public Map<String, FFTransition> getFFTransitions(){
+        return this.ffTransitions;
+    }
+    public Map<String, CutTransition> getCutTransitions(){
+        return this.cutTransitions;
+    }
+    public Map<String, AudioTransition> getAudioTransitions(){
+        return this.audioTransitions;
+    }
+    public Map<String, VideoTransition> getVideoTransitions(){
+        return this.videoTransitions;
+    }
+
+    public String getVideoPath(){
+        return videoProperties.isEmpty() ? "" : videoProperties.get(0);
+    }
+    public double getVolume(){
+        return videoProperties.size() > 1 ? Double.parseDouble(videoProperties.get(1)) : 1.0;
+    }
+
+    public int getTransitionCount(){
+        return textTransitions.size() + imageTransitions.size() + ffTransitions.size()
+                + cutTransitions.size() + audioTransitions.size() + videoTransitions.size();
+    }
+}
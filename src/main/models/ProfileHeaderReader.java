@@ -0,0 +1,105 @@
+/*************************************************************************************************************************
+ * Source Code Form License Notice
+ *************************************************************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ **************************************************************************************************************************/
+/*************************************************************************************************************************
+ *   Author: Jarek Thomas
+ *
+ *   Header-only Profile Reader
+ *
+ *   Returns the video path and volume of a profile without decoding any transitions. The binary copy is used when
+ *   it is current, otherwise the XML is streamed with StAX and reading stops at the end of the <main> section
+ ***************************************************************************************************************************/
+
+package main.models;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+public final class ProfileHeaderReader {
+
+    private static final XMLInputFactory FACTORY = XMLInputFactory.newInstance();
+
+    static {
+        FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    private ProfileHeaderReader(){
+
+    }
+
+    public static Header read(String profileName) throws IOException, XMLStreamException {
+        File xmlProfile = new File("Profiles//" + profileName + ".xml");
+        File binaryProfile = BinaryProfile.getFile(profileName);
+        if(BinaryProfile.isCurrent(binaryProfile, xmlProfile)){
+            try{
+                return new Header(BinaryProfile.readHeader(binaryProfile));
+            }catch(IOException e){
+                e.printStackTrace();
+            }
+        }
+        return readXML(xmlProfile);
+    }
+
+    public static Header readXML(File xmlProfile) throws IOException, XMLStreamException {
+        List<String> videoProperties = new ArrayList<>();
+        try(InputStream in = new BufferedInputStream(new FileInputStream(xmlProfile))){
+            XMLStreamReader reader = FACTORY.createXMLStreamReader(in);
+            try{
+                //Only direct children of <profile> are checked, transition maps are skipped without binding
+                int depth = 0;
+                boolean inMain = false;
+                while(reader.hasNext()){
+                    int event = reader.next();
+                    if(event == XMLStreamConstants.START_ELEMENT){
+                        depth++;
+                        if(depth == 2 && reader.getLocalName().equals("main")){
+                            inMain = true;
+                        } else if(inMain && depth == 3 && reader.getLocalName().equals("videoproperties")){
+                            videoProperties.add(reader.getElementText());
+                            depth--;
+                        }
+                    } else if(event == XMLStreamConstants.END_ELEMENT){
+                        depth--;
+                        if(inMain && depth == 1){
+                            break;
+                        }
+                    }
+                }
+            }finally{
+                reader.close();
+            }
+        }
+        return new Header(videoProperties);
+    }
+
+    //videoproperties[0] is the video path and videoproperties[1] the volume
+    public static final class Header {
+        private final String videoPath;
+        private final double volume;
+
+        private Header(List<String> videoProperties){
+            this.videoPath = videoProperties.isEmpty() ? "" : videoProperties.get(0);
+            this.volume = videoProperties.size() > 1 ? TransitionCodec.parseDouble(videoProperties.get(1)) : 1.0;
+        }
+
+        public String getVideoPath(){
+            return this.videoPath;
+        }
+        public double getVolume(){
+            return this.volume;
+        }
+    }
+}
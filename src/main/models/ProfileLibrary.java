@@ -0,0 +1,315 @@
+/*************************************************************************************************************************
+ * Source Code Form License Notice
+ *************************************************************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ **************************************************************************************************************************/
+/*************************************************************************************************************************
+ *   Author: Jarek Thomas
+ *
+ *   Persistent Profile Library Index (Profiles//library.idx)
+ *
+ *   Keeps the metadata the main screen needs for every profile so startup only has to list the Profiles folder.
+ *   A profile is only decoded again when its XML file time or size no longer matches the index
+ *
+ *   The lengths of media clips used by transitions are kept as well, keyed by canonical path and file time
+ *
+ *   Single entry updates only mark the index dirty, it is written once they settle and again by flush() on close.
+ *   The index is written to a temp file and moved into place so a crash never leaves it truncated
+ ***************************************************************************************************************************/
+
+package main.models;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class ProfileLibrary {
+    private final static ProfileLibrary INSTANCE = new ProfileLibrary();
+
+    private static final File INDEX_FILE = new File("Profiles//library.idx");
+    private static final String THUMBNAIL_DIRECTORY = "Profiles//Thumbnails//";
+    private static final int MAGIC = 0x42524249;
+    private static final short VERSION = 2;
+    private static final long SAVE_DELAY = 2000;
+
+    private final Map<String, Entry> entries;
+    //Canonical path to { file time, duration in ms }
+    private final Map<String, long[]> clipDurations = new ConcurrentHashMap<>();
+    private boolean loaded, dirty;
+    private final AppScheduler.Debounce saveDebounce;
+
+    private ProfileLibrary(){
+        this.entries = new ConcurrentHashMap<>();
+        this.saveDebounce = AppScheduler.getInstance().debounce(SAVE_DELAY, () -> AppScheduler.getInstance().execute(this::flush));
+    }
+    public static ProfileLibrary getInstance(){
+        return INSTANCE;
+    }
+
+    public Entry getEntry(String profileName){
+        return entries.get(profileName);
+    }
+
+    public File getThumbnailFile(String profileName){
+        return new File(THUMBNAIL_DIRECTORY + profileName + ".png");
+    }
+
+    //Sync the index with the Profiles folder and return the sorted profile names
+    public synchronized List<String> refresh(){
+        if(!loaded){
+            load();
+            loaded = true;
+        }
+        File path = new File("Profiles//");
+        File[] fileList = path.listFiles((File dir, String name) -> name.toLowerCase().endsWith(".xml"));
+        Set<String> names = new HashSet<>();
+        if(fileList != null){
+            for(File file : fileList){
+                String profileName = file.getName().substring( 0,  file.getName().length() - 4 );
+                names.add(profileName);
+                update(profileName, file);
+            }
+        }
+        if(entries.keySet().retainAll(names)){
+            dirty = true;
+        }
+        save();
+
+        List<String> profileNames = new ArrayList<>(names);
+        Collections.sort(profileNames, String.CASE_INSENSITIVE_ORDER);
+        return profileNames;
+    }
+
+    //Re-index a single profile, returns false when the XML file no longer exists
+    public synchronized boolean refresh(String profileName){
+        File file = new File("Profiles//" + profileName + ".xml");
+        boolean exists = file.exists();
+        if(exists){
+            update(profileName, file);
+        } else if(entries.remove(profileName) != null){
+            dirty = true;
+        }
+        scheduleSave();
+        return exists;
+    }
+
+    private void update(String profileName, File file){
+        Entry entry = entries.get(profileName);
+        if(entry != null && entry.lastModified == file.lastModified() && entry.size == file.length()){
+            return;
+        }
+        try{
+            ProfileData profile = ProfileModel.getInstance().readProfile(profileName);
+            File thumbnail = getThumbnailFile(profileName);
+            //The cached duration and thumbnail are only kept while the video stays the same
+            boolean sameVideo = entry != null && entry.videoPath.equals(profile.getVideoPath());
+            entries.put(profileName, new Entry(profileName, file.lastModified(), file.length(), profile.getVideoPath(),
+                    sameVideo ? entry.duration : -1,
+                    new int[]{ profile.getTextTransitions().size(), profile.getImageTransitions().size(),
+                        profile.getFFTransitions().size(), profile.getCutTransitions().size(),
+                        profile.getAudioTransitions().size(), profile.getVideoTransitions().size() },
+                    sameVideo && thumbnail.exists() ? thumbnail.getPath() : ""));
+            if(!sameVideo){
+                thumbnail.delete();
+            }
+            dirty = true;
+        }catch(Exception e){
+            e.printStackTrace();
+        }
+    }
+
+    //Called once the main screen has a duration and thumbnail snapshot for the profile video
+    public synchronized void setMediaInfo(String profileName, long duration, File thumbnail){
+        Entry entry = entries.get(profileName);
+        if(entry != null){
+            entries.put(profileName, new Entry(entry.name, entry.lastModified, entry.size, entry.videoPath, duration,
+                    entry.transitionCounts, thumbnail == null ? entry.thumbnailPath : thumbnail.getPath()));
+            dirty = true;
+            scheduleSave();
+        }
+    }
+
+    //Length of a media clip in ms, -1 when it was never opened or the file changed since
+    public long getClipDuration(String path){
+        File file = getCanonicalFile(path);
+        long[] clip = clipDurations.get(file.getPath());
+        return clip != null && clip[0] == file.lastModified() ? clip[1] : -1;
+    }
+
+    //Called once a clip has been opened, from the preflight threads
+    //A preflight batch opens many clips so the index is written once they stop coming in
+    public synchronized void setClipDuration(String path, long duration){
+        File file = getCanonicalFile(path);
+        long[] clip = clipDurations.get(file.getPath());
+        if(clip == null || clip[0] != file.lastModified() || clip[1] != duration){
+            if(!loaded){
+                load();
+                loaded = true;
+            }
+            clipDurations.put(file.getPath(), new long[]{ file.lastModified(), duration });
+            dirty = true;
+            scheduleSave();
+        }
+    }
+
+    //Canonical path and file time of a clip, the same identity its duration is kept under
+    public String getClipKey(String path){
+        File file = getCanonicalFile(path);
+        return file.getPath() + "|" + file.lastModified();
+    }
+
+    private File getCanonicalFile(String path){
+        try{
+            return new File(path).getCanonicalFile();
+        }catch(IOException e){
+            return new File(path).getAbsoluteFile();
+        }
+    }
+
+    private void load(){
+        if(!INDEX_FILE.exists()){
+            return;
+        }
+        try(DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(INDEX_FILE)))){
+            if(in.readInt() != MAGIC || in.readShort() != VERSION){
+                return;
+            }
+            int count = in.readInt();
+            for(int i = 0; i < count; i++){
+                String name = in.readUTF();
+                long lastModified = in.readLong();
+                long size = in.readLong();
+                String videoPath = in.readUTF();
+                long duration = in.readLong();
+                int[] transitionCounts = new int[BinaryProfile.Section.values().length];
+                for(int j = 0; j < transitionCounts.length; j++){
+                    transitionCounts[j] = in.readInt();
+                }
+                entries.put(name, new Entry(name, lastModified, size, videoPath, duration, transitionCounts, in.readUTF()));
+            }
+            int clipCount = in.readInt();
+            for(int i = 0; i < clipCount; i++){
+                String path = in.readUTF();
+                clipDurations.putIfAbsent(path, new long[]{ in.readLong(), in.readLong() });
+            }
+        }catch(IOException e){
+            //A damaged index is rebuilt from the profiles
+            e.printStackTrace();
+            entries.clear();
+            clipDurations.clear();
+        }
+    }
+
+    //Writes pending changes now, called when the app closes
+    public synchronized void flush(){
+        save();
+    }
+
+    private void scheduleSave(){
+        if(dirty){
+            saveDebounce.trigger();
+        }
+    }
+
+    private void save(){
+        if(!dirty){
+            return;
+        }
+        File tempFile = new File(INDEX_FILE.getPath() + ".tmp");
+        try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))){
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeInt(entries.size());
+            for(Entry entry : entries.values()){
+                out.writeUTF(entry.name);
+                out.writeLong(entry.lastModified);
+                out.writeLong(entry.size);
+                out.writeUTF(entry.videoPath);
+                out.writeLong(entry.duration);
+                for(int count : entry.transitionCounts){
+                    out.writeInt(count);
+                }
+                out.writeUTF(entry.thumbnailPath);
+            }
+            out.writeInt(clipDurations.size());
+            for(Map.Entry<String, long[]> clip : clipDurations.entrySet()){
+                out.writeUTF(clip.getKey());
+                out.writeLong(clip.getValue()[0]);
+                out.writeLong(clip.getValue()[1]);
+            }
+        }catch(IOException e){
+            e.printStackTrace();
+            tempFile.delete();
+            return;
+        }
+        try{
+            try{
+                Files.move(tempFile.toPath(), INDEX_FILE.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            }catch(AtomicMoveNotSupportedException e){
+                Files.move(tempFile.toPath(), INDEX_FILE.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            dirty = false;
+        }catch(IOException e){
+            e.printStackTrace();
+        }
+    }
+
+    //Immutable index entry, transition counts are ordered like BinaryProfile.Section
+    public static final class Entry {
+        private final String name, videoPath, thumbnailPath;
+        private final long lastModified, size, duration;
+        private final int[] transitionCounts;
+
+        private Entry(String name, long lastModified, long size, String videoPath, long duration, int[] transitionCounts, String thumbnailPath){
+            this.name = name;
+            this.lastModified = lastModified;
+            this.size = size;
+            this.videoPath = videoPath;
+            this.duration = duration;
+            this.transitionCounts = transitionCounts;
+            this.thumbnailPath = thumbnailPath;
+        }
+
+        public String getName(){
+            return this.name;
+        }
+        public long getLastModified(){
+            return this.lastModified;
+        }
+        public long getSize(){
+            return this.size;
+        }
+        public String getVideoPath(){
+            return this.videoPath;
+        }
+        //Video duration in ms, -1 until the video has been opened once
+        public long getDuration(){
+            return this.duration;
+        }
+        public int getTransitionCount(BinaryProfile.Section section){
+            return this.transitionCounts[section.ordinal()];
+        }
+        public boolean hasThumbnail(){
+            return !this.thumbnailPath.isEmpty() && new File(this.thumbnailPath).exists();
+        }
+        public String getThumbnailPath(){
+            return this.thumbnailPath;
+        }
+    }
+}
@@ -13,6 +13,12 @@
 package main.models;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import javafx.animation.KeyFrame;
 import javafx.animation.Timeline;
 import javafx.beans.property.BooleanProperty;
@@ -23,6 +29,7 @@ import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.property.StringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.embed.swing.SwingFXUtils;
 import javafx.scene.SnapshotParameters;
 import javafx.scene.control.Alert;
 import javafx.scene.control.DialogPane;
@@ -34,8 +41,9 @@ import javafx.scene.media.MediaPlayer;
 import javafx.scene.media.MediaView;
 import javafx.stage.Stage;
 import javafx.util.Duration;
+import javax.imageio.ImageIO;
 import javax.xml.bind.JAXBContext;
-import javax.xml.bind.Marshaller;
+import javax.xml.bind.JAXBException;
 import javax.xml.bind.Unmarshaller;
 
 
@@ -55,9 +63,11 @@ public class ProfileModel {
     private final Timeline TIMELINE;
     private WritableImage videoThumbnailImage;
     private File tempVideoFile;
+    private String thumbnailProfile;
     private MediaPlayer mediaPlayer;
     private Media media;
     private Stage stage;
+    private JAXBContext profileContext;
     
     private ProfileModel(){
         this.tempMediaView = new MediaView();
@@ -79,13 +89,13 @@ public class ProfileModel {
     public ObservableList getVideoProperties(){
         return this.videoPropsObList;
     }
-    public ObservableList getProfileList(){
+    public ObservableList<String> getProfileList(){
         return this.profileList;
     }
     public ObservableList getMarkerEventsList(){
         return this.markerEventList;
     }
-    public ObservableList getTextProfileList(){
+    public ObservableList<String> getTextProfileList(){
         return this.textProfileList;
     }
     
@@ -143,25 +153,31 @@ public class ProfileModel {
         this.mediaPlayer = mediaPlayer;
     }
     
-    //Load XML profiles from Profiles folder
-    public void getProfiles(){
-        profileList.clear();
-        File path = new File("Profiles//");
-        File[] fileList = path.listFiles((File dir, String name) -> name.toLowerCase().endsWith(".xml"));       
-        for(File file : fileList){
-            profileList.add(file.getName().substring( 0,  file.getName().length() - 4 )); 
+    //JAXBContext is expensive to build so it is created once and shared
+    public synchronized JAXBContext getProfileContext() throws JAXBException {
+        if(profileContext == null){
+            profileContext = JAXBContext.newInstance(ProfileWrapper.class);
         }
+        return profileContext;
+    }
+    
+    //Load profile names from the library index, only changed profiles are decoded
+    public void getProfiles(){
+        profileList.setAll(ProfileLibrary.getInstance().refresh());
     }
     
     //Load XML text profiles from Text folder
     public void getTextProfiles(){
-        textProfileList.clear();
-        textProfileList.add("_DEFAULT");
+        List<String> textNames = new ArrayList<>();
         File path = new File("Text//");
         File[] fileList = path.listFiles((File dir, String name) -> name.toLowerCase().endsWith(".xml"));       
         for(File file : fileList){
-            textProfileList.add(file.getName().substring( 0,  file.getName().length() - 4 )); 
+            textNames.add(file.getName().substring( 0,  file.getName().length() - 4 )); 
         }
+        //Sorted so LibraryWatcher can insert new text profiles in place
+        Collections.sort(textNames, String.CASE_INSENSITIVE_ORDER);
+        textNames.add(0, "_DEFAULT");
+        textProfileList.setAll(textNames);
     }
     
     //Set all list and text to their default values
@@ -180,8 +196,32 @@ public class ProfileModel {
         EffectsModel.getInstance().addEffectToSample();
     }
     
+    //Show the cached thumbnail from the library index, the video is only opened when there is none yet
+    //Never touches the transition singletons
+    public void showThumbnail(String profileName){
+        ProfileLibrary.Entry entry = ProfileLibrary.getInstance().getEntry(profileName);
+        if(entry != null && entry.hasThumbnail()){
+            thumbnailImageProperty().set(new Image(new File(entry.getThumbnailPath()).toURI().toString(), true));
+            return;
+        }
+        try{
+            //Profiles not indexed yet only need the header for the video path
+            String videoPath = entry != null ? entry.getVideoPath() : ProfileHeaderReader.read(profileName).getVideoPath();
+            if(!videoPath.isEmpty()){
+                prepareScreenshot(videoPath);
+                thumbnailProfile = entry != null ? profileName : null;
+            }
+        }catch(Exception e){
+            e.printStackTrace();
+        }
+    }
+    
     //Loads video into mediaplayer temporarily to take screenshot for thumbnail
     public void prepareScreenshot(String videoPath){
+        thumbnailProfile = null;
+        if(mediaPlayer != null){
+            mediaPlayer.dispose();
+        }
         tempVideoFile = new File(videoPath);
         media = new Media(tempVideoFile.toURI().toString());
         mediaPlayer = new MediaPlayer(media);
@@ -199,110 +239,127 @@ public class ProfileModel {
         thumbnailImageProperty().set(videoThumbnailImage);
         this.mediaPlayer.stop();
         TIMELINE.stop();
+        
+        //Store the snapshot and duration so the next selection does not need the video
+        if(thumbnailProfile != null){
+            File thumbnail = ProfileLibrary.getInstance().getThumbnailFile(thumbnailProfile);
+            try{
+                Files.createDirectories(thumbnail.toPath().getParent());
+                ImageIO.write(SwingFXUtils.fromFXImage(videoThumbnailImage, null), "png", thumbnail);
+                ProfileLibrary.getInstance().setMediaInfo(thumbnailProfile, (long) media.getDuration().toMillis(), thumbnail);
+            }catch(IOException e){
+                e.printStackTrace();
+            }
+            thumbnailProfile = null;
+        }
     }
     
-    //Save the profile to XML with all transitions
+    //Snapshot the profile and hand it to the background writer, the result is reported once it is on disk
     public void saveProfileToXML(){
         
-        try{
-            JAXBContext context = JAXBContext.newInstance(ProfileWrapper.class);
-            Marshaller m = context.createMarshaller();
-            m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-            File xmlProfile = new File("Profiles//" + profileNameText.getValue().replaceAll(" ", "_") + ".xml");
-            ProfileWrapper wrapper = new ProfileWrapper();
-
-            wrapper.setVideoProperties(ProfileModel.getInstance().getVideoProperties());
-            wrapper.setTextTransitions(TextTransitionModel.getInstance().getTextMarkers());
-            wrapper.setImageTransitions(ImageTransitionModel.getInstance().getImageMarkers());
-            wrapper.setFFTransitions(FFTransitionModel.getInstance().getFFMarkers());
-            wrapper.setCutTransitions(CutTransitionModel.getInstance().getCutMarkers());
-            wrapper.setAudioTransitions(AudioTransitionModel.getInstance().getAudioMarkers());
-            wrapper.setVideoTransitions(VideoTransitionModel.getInstance().getVideoMarkers());
+        String profileName = profileNameText.getValue().replaceAll(" ", "_");
+        ProfileWriter.getInstance().save(profileName, ProfileData.fromModels(), error -> {
+            if(error == null){
+                ProfileModel.getInstance().getProfiles();
 
-            m.marshal(wrapper, xmlProfile);
+                Alert alert = new Alert(Alert.AlertType.INFORMATION);
+                alert.setTitle("Success!");
+                alert.setHeaderText("Profile saved.");
+                alert.setContentText(profileName + ".xml successfully created.");
+                alert.setGraphic( new ImageView( "main/images/BeeLogo.png" ) );
+                DialogPane dialogPane = alert.getDialogPane();
+                dialogPane.getStylesheets().add("main/stylesheets/dialog.css");
+                dialogPane.getStyleClass().add("success");
+                alert.show();
+            } else {
+                Context.getInstance().setDidSave(false);
 
-            ProfileModel.getInstance().getProfiles();
-
-            Alert alert = new Alert(Alert.AlertType.INFORMATION);
-            alert.setTitle("Success!");
-            alert.setHeaderText("Profile saved.");
-            alert.setContentText(xmlProfile.getName() + " successfully created.");
-            alert.setGraphic( new ImageView( "main/images/BeeLogo.png" ) );
-            DialogPane dialogPane = alert.getDialogPane();
-            dialogPane.getStylesheets().add("main/stylesheets/dialog.css");
-            dialogPane.getStyleClass().add("success");
-            alert.show();
-
-        }catch(Exception e){
-
-            Alert alert = new Alert(Alert.AlertType.ERROR);
-            alert.setTitle("Error");
-            alert.setHeaderText("Woah - Something went wrong.");
-            alert.setContentText("An error occured while trying to save your profile.");
-            alert.showAndWait();
-        }
+                Alert alert = new Alert(Alert.AlertType.ERROR);
+                alert.setTitle("Error");
+                alert.setHeaderText("Woah - Something went wrong.");
+                alert.setContentText("An error occured while trying to save your profile.");
+                alert.showAndWait();
+            }
+        });
     }
     
-    //Load profile from XML by profile name
+    //Load profile by profile name, the binary copy is used while it was made from the XML as it is now
     public void loadProfileFromXML(String profileName){
         
         try{
-            JAXBContext context = JAXBContext.newInstance(ProfileWrapper.class);
-            Unmarshaller u = context.createUnmarshaller();
-            ProfileWrapper wrapper = (ProfileWrapper) u.unmarshal(new File("Profiles//" + profileName + ".xml"));
-            
-            getVideoProperties().addAll(wrapper.getVideoProperties());
-            profileNameTextProperty().set(profileName);
-            
-            getMarkerEventsList().addAll(wrapper.getTextTransitions().keySet());
-            getMarkerEventsList().addAll(wrapper.getImageTransitions().keySet());
-            getMarkerEventsList().addAll(wrapper.getFFTransitions().keySet());
-            getMarkerEventsList().addAll(wrapper.getCutTransitions().keySet());
-            getMarkerEventsList().addAll(wrapper.getAudioTransitions().keySet());
-            getMarkerEventsList().addAll(wrapper.getVideoTransitions().keySet());
-            
-            ImageTransitionModel.getInstance().getImageMarkers().putAll(wrapper.getImageTransitions());
-            TextTransitionModel.getInstance().getTextMarkers().putAll(wrapper.getTextTransitions());
-            FFTransitionModel.getInstance().getFFMarkers().putAll(wrapper.getFFTransitions());
-            CutTransitionModel.getInstance().getCutMarkers().putAll(wrapper.getCutTransitions());
-            AudioTransitionModel.getInstance().getAudioMarkers().putAll(wrapper.getAudioTransitions());
-            VideoTransitionModel.getInstance().getVideoMarkers().putAll(wrapper.getVideoTransitions());
-            
-            for(String temp : wrapper.getTextTransitions().values()){
-                String[] tempArray = temp.split(",");
-                PreviewModel.getInstance().getProfileMarkersSet().add(tempArray[4]);
-                PreviewModel.getInstance().getProfileMarkersSet().add(tempArray[5]);
-            }
-            for(String temp : wrapper.getImageTransitions().values()){
-                String[] tempArray = temp.split(",");
-                PreviewModel.getInstance().getProfileMarkersSet().add(tempArray[5]);
-                PreviewModel.getInstance().getProfileMarkersSet().add(tempArray[6]);
-            }
-            for(String temp : wrapper.getFFTransitions().values()){
-                String[] tempArray = temp.split(",");
-                PreviewModel.getInstance().getProfileMarkersSet().add(tempArray[0]);
-                PreviewModel.getInstance().getProfileMarkersSet().add(tempArray[1]);
-            }
-            for(String temp : wrapper.getCutTransitions().values()){
-                String[] tempArray = temp.split(",");
-                PreviewModel.getInstance().getProfileMarkersSet().add(tempArray[0]);
-                PreviewModel.getInstance().getProfileMarkersSet().add(tempArray[1]);
-            }
-            for(String temp : wrapper.getAudioTransitions().values()){
-                String[] tempArray = temp.split(",");
-                PreviewModel.getInstance().getProfileMarkersSet().add(tempArray[1]);
-                PreviewModel.getInstance().getProfileMarkersSet().add(tempArray[2]);
-            }
-            for(String temp : wrapper.getVideoTransitions().values()){
-                String[] tempArray = temp.split(",");
-                PreviewModel.getInstance().getProfileMarkersSet().add(tempArray[1]);
-                PreviewModel.getInstance().getProfileMarkersSet().add(tempArray[2]);
-            }
-            
+            applyProfile(profileName, readProfile(profileName));
         }catch(Exception e){
             e.printStackTrace();
             ProfileModel.getInstance().getProfiles();
         }
         
     }
+    
+    //Fill the transition singletons from an already decoded profile
+    public void applyProfile(String profileName, ProfileData profile){
+        getVideoProperties().addAll(profile.getVideoProperties());
+        profileNameTextProperty().set(profileName);
+        
+        getMarkerEventsList().addAll(profile.getTextTransitions().keySet());
+        getMarkerEventsList().addAll(profile.getImageTransitions().keySet());
+        getMarkerEventsList().addAll(profile.getFFTransitions().keySet());
+        getMarkerEventsList().addAll(profile.getCutTransitions().keySet());
+        getMarkerEventsList().addAll(profile.getAudioTransitions().keySet());
+        getMarkerEventsList().addAll(profile.getVideoTransitions().keySet());
+        
+        ImageTransitionModel.getInstance().getImageMarkers().putAll(profile.getImageTransitions());
+        TextTransitionModel.getInstance().getTextMarkers().putAll(profile.getTextTransitions());
+        FFTransitionModel.getInstance().getFFMarkers().putAll(profile.getFFTransitions());
+        CutTransitionModel.getInstance().getCutMarkers().putAll(profile.getCutTransitions());
+        AudioTransitionModel.getInstance().getAudioMarkers().putAll(profile.getAudioTransitions());
+        VideoTransitionModel.getInstance().getVideoMarkers().putAll(profile.getVideoTransitions());
+        
+        addProfileMarkers(profile.getTextTransitions().values());
+        addProfileMarkers(profile.getImageTransitions().values());
+        addProfileMarkers(profile.getFFTransitions().values());
+        addProfileMarkers(profile.getCutTransitions().values());
+        addProfileMarkers(profile.getAudioTransitions().values());
+        addProfileMarkers(profile.getVideoTransitions().values());
+    }
+    
+    //Decode a profile without touching the transition singletons
+    public ProfileData readProfile(String profileName) throws IOException, JAXBException {
+        return readProfile(profileName, null);
+    }
+    
+    //Malformed transition strings in the XML are described in errors when it is not null
+    //The XML is always read in that case since the binary copy only holds the entries that decoded
+    public ProfileData readProfile(String profileName, List<String> errors) throws IOException, JAXBException {
+        File xmlProfile = new File("Profiles//" + profileName + ".xml");
+        File binaryProfile = BinaryProfile.getFile(profileName);
+        if(errors == null && BinaryProfile.isCurrent(binaryProfile, xmlProfile)){
+            try{
+                return BinaryProfile.read(binaryProfile);
+            }catch(IOException e){
+                e.printStackTrace();
+            }
+        }
+        Unmarshaller u = getProfileContext().createUnmarshaller();
+        ProfileData profile = ProfileData.fromWrapper((ProfileWrapper) u.unmarshal(xmlProfile), errors);
+        
+        //Older profiles only have XML, keep a binary copy for the next load
+        try{
+            BinaryProfile.writeAtomic(profile, binaryProfile, xmlProfile);
+        }catch(IOException e){
+            e.printStackTrace();
+        }
+        return profile;
+    }
+    
+    //Reserve start/stop timestamps so the editor never places two markers on the same ms
+    private void addProfileMarkers(Collection<? extends Transition> transitions){
+        for(Transition transition : transitions){
+            if(transition.hasStartTime()){
+                PreviewModel.getInstance().getProfileMarkersSet().add(Integer.toString(transition.getStartTime()));
+            }
+            if(transition.hasStopTime()){
+                PreviewModel.getInstance().getProfileMarkersSet().add(Integer.toString(transition.getStopTime()));
+            }
+        }
+    }
 }
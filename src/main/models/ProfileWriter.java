@@ -0,0 +1,150 @@
+/*************************************************************************************************************************
+ * Source Code Form License Notice
+ *************************************************************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ **************************************************************************************************************************/
+/*************************************************************************************************************************
+ *   Author: Jarek Thomas
+ *
+ *   Background Profile Writer
+ *
+ *   Profiles are snapshotted on the FX thread and written on the AppScheduler thread. Each file is written to a .tmp
+ *   file and moved over the old profile so a crash never leaves a truncated profile behind.
+ *   Saves of the same profile that arrive before the writer gets to it are coalesced into the latest snapshot.
+ *
+ *   Autosave is off unless started with -Dbeerb.autosave=true or enabled through setAutosaveEnabled
+ ***************************************************************************************************************************/
+
+package main.models;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import javafx.application.Platform;
+import javax.xml.bind.Marshaller;
+
+public class ProfileWriter {
+    private final static ProfileWriter INSTANCE = new ProfileWriter();
+
+    private static final long AUTOSAVE_DELAY = 5000;
+
+    private final Map<String, PendingSave> pending = new HashMap<>();
+    private final AppScheduler.Debounce autosaveDebounce;
+    private volatile boolean autosaveEnabled = Boolean.getBoolean("beerb.autosave");
+    private int editRevision = 0;
+
+    private ProfileWriter(){
+        this.autosaveDebounce = AppScheduler.getInstance().debounce(AUTOSAVE_DELAY, this::autosave);
+    }
+    public static ProfileWriter getInstance(){
+        return INSTANCE;
+    }
+
+    public boolean getAutosaveEnabled(){
+        return this.autosaveEnabled;
+    }
+    public void setAutosaveEnabled(boolean autosaveEnabled){
+        this.autosaveEnabled = autosaveEnabled;
+    }
+
+    //Queue a snapshot to be written, onComplete runs on the FX thread with null or the error
+    public void save(String profileName, ProfileData profile, Consumer<Exception> onComplete){
+        synchronized(pending){
+            boolean queued = pending.containsKey(profileName);
+            pending.put(profileName, new PendingSave(profile, onComplete));
+            if(!queued){
+                AppScheduler.getInstance().execute(() -> write(profileName));
+            }
+        }
+    }
+
+    private void write(String profileName){
+        PendingSave save;
+        synchronized(pending){
+            save = pending.remove(profileName);
+        }
+        if(save == null){
+            return;
+        }
+        Exception error = null;
+        try{
+            writeFiles(profileName, save.profile);
+            Platform.runLater(() -> QueuePreflight.getInstance().invalidate(profileName));
+        }catch(Exception e){
+            e.printStackTrace();
+            error = e;
+        }
+        if(save.onComplete != null){
+            Exception result = error;
+            Platform.runLater(()->{
+                save.onComplete.accept(result);
+            });
+        }
+    }
+
+    //XML is moved into place first so the binary copy is stamped with the XML it was made from
+    private void writeFiles(String profileName, ProfileData profile) throws Exception {
+        File xmlProfile = new File("Profiles//" + profileName + ".xml");
+        File xmlTemp = new File(xmlProfile.getPath() + ".tmp");
+        Marshaller m = ProfileModel.getInstance().getProfileContext().createMarshaller();
+        m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+        m.marshal(profile.toWrapper(), xmlTemp);
+        moveIntoPlace(xmlTemp, xmlProfile);
+
+        BinaryProfile.writeAtomic(profile, BinaryProfile.getFile(profileName), xmlProfile);
+    }
+
+    private void moveIntoPlace(File source, File target) throws IOException {
+        try{
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }catch(AtomicMoveNotSupportedException e){
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    //Called on every unsaved edit, restarts the autosave delay so a burst of edits is written once
+    public synchronized void scheduleAutosave(){
+        editRevision++;
+        if(!autosaveEnabled){
+            return;
+        }
+        autosaveDebounce.trigger();
+    }
+
+    //Runs on the FX thread so the snapshot sees a consistent set of transitions
+    private void autosave(){
+        String profileName = ProfileModel.getInstance().getProfileName();
+        if(!Context.getInstance().getEditViewOpened() || Context.getInstance().getDidSave()
+                || profileName == null || profileName.isEmpty() || ProfileModel.getInstance().getVideoProperties().isEmpty()){
+            return;
+        }
+        int revision;
+        synchronized(this){
+            revision = editRevision;
+        }
+        save(profileName.replaceAll(" ", "_"), ProfileData.fromModels(), error -> {
+            //Edits made while writing still need saving
+            synchronized(this){
+                if(error == null && revision == editRevision){
+                    Context.getInstance().setDidSave(true);
+                }
+            }
+        });
+    }
+
+    private static final class PendingSave {
+        private final ProfileData profile;
+        private final Consumer<Exception> onComplete;
+
+        private PendingSave(ProfileData profile, Consumer<Exception> onComplete){
+            this.profile = profile;
+            this.onComplete = onComplete;
+        }
+    }
+}
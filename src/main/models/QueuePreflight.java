@@ -0,0 +1,272 @@
+/*************************************************************************************************************************
+ * Source Code Form License Notice
+ *************************************************************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ **************************************************************************************************************************/
+/*************************************************************************************************************************
+ *   Author: Jarek Thomas
+ *
+ *   Queue Preflight
+ *
+ *   Every profile added to the Theatre queue is checked in the background before it can go live: the profile is
+ *   decoded, every referenced file and text profile is verified, media is opened until READY and images are decoded.
+ *   The Theatre uses the decoded profile and images of READY entries and skips FAILED ones
+ *   Saving a profile drops its result through invalidate() and checks it again when it is still queued
+ *   Profiles the Theatre skips are kept with their problems in getSkippedMap() until the next break starts
+ ***************************************************************************************************************************/
+
+package main.models;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableMap;
+import javafx.scene.image.Image;
+import javafx.scene.media.Media;
+import javafx.scene.media.MediaPlayer;
+import javafx.util.Duration;
+
+public class QueuePreflight {
+    private final static QueuePreflight INSTANCE = new QueuePreflight();
+
+    private static final long MEDIA_TIMEOUT = 10;
+
+    public enum Status { PENDING, READY, FAILED }
+
+    private final ExecutorService executor;
+    private final Map<String, Result> results = new ConcurrentHashMap<>();
+    private final ObservableMap<String, Status> statusMap = FXCollections.observableHashMap();
+    //Profiles skipped on air during the current break with their problems, in skip order, FX thread only
+    private final ObservableMap<String, List<String>> skippedMap = FXCollections.observableMap(new LinkedHashMap<>());
+    //Bumped by invalidate() so a check started before a save never publishes its result, FX thread only
+    private final Map<String, Integer> generations = new HashMap<>();
+
+    private QueuePreflight(){
+        this.executor = Executors.newFixedThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "QueuePreflight");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        //Drop results and decoded images once a profile is no longer queued
+        Context.getInstance().getProfileQueueList().addListener((ListChangeListener.Change<? extends String> c) -> {
+            results.keySet().retainAll(Context.getInstance().getProfileQueueList());
+            statusMap.keySet().retainAll(Context.getInstance().getProfileQueueList());
+        });
+    }
+    public static QueuePreflight getInstance(){
+        return INSTANCE;
+    }
+
+    //Status per queued profile name, only changed on the FX thread
+    public ObservableMap<String, Status> getStatusMap(){
+        return this.statusMap;
+    }
+
+    public ObservableMap<String, List<String>> getSkippedMap(){
+        return this.skippedMap;
+    }
+
+    //Called by the Theatre when it drops a queued profile that failed preflight
+    public void reportSkipped(String profileName){
+        Result result = getResult(profileName);
+        List<String> problems = result != null ? result.getProblems() : Collections.emptyList();
+        Platform.runLater(() -> skippedMap.put(profileName, problems));
+    }
+
+    //Called by the Theatre when a profile it has no finished check for can not be read, it is skipped like a failed check
+    public void fail(String profileName, String problem){
+        long lastModified = new File("Profiles//" + profileName + ".xml").lastModified();
+        results.put(profileName, new Result(null, Collections.singletonList(problem), new HashMap<>(), lastModified));
+        Platform.runLater(()->{
+            if(Context.getInstance().getProfileQueueList().contains(profileName)){
+                statusMap.put(profileName, Status.FAILED);
+            }
+        });
+    }
+
+    public void clearSkipped(){
+        Platform.runLater(() -> skippedMap.clear());
+    }
+
+    //Returns the preflight result when it is finished and the profile has not changed since
+    public Result getResult(String profileName){
+        Result result = results.get(profileName);
+        if(result == null || result.lastModified != new File("Profiles//" + profileName + ".xml").lastModified()){
+            return null;
+        }
+        return result;
+    }
+
+    //Decoded image for a path from any finished preflight, null when it was not preloaded
+    public Image getImage(String imagePath){
+        for(Result result : results.values()){
+            Image image = result.images.get(imagePath);
+            if(image != null){
+                return image;
+            }
+        }
+        return null;
+    }
+
+    public void preflight(String profileName){
+        Result previous = getResult(profileName);
+        if(previous != null || statusMap.get(profileName) == Status.PENDING){
+            return;
+        }
+        statusMap.put(profileName, Status.PENDING);
+        Integer generation = generations.get(profileName);
+        executor.execute(() -> {
+            Result result = check(profileName);
+            Platform.runLater(()->{
+                //The profile may have been removed from the queue or saved again while it was checked
+                if(Context.getInstance().getProfileQueueList().contains(profileName) && Objects.equals(generation, generations.get(profileName))){
+                    results.put(profileName, result);
+                    statusMap.put(profileName, result.getStatus());
+                }
+            });
+        });
+    }
+
+    //Called on the FX thread once a profile is saved, the old result no longer describes the file
+    public void invalidate(String profileName){
+        generations.merge(profileName, 1, Integer::sum);
+        results.remove(profileName);
+        statusMap.remove(profileName);
+        if(Context.getInstance().getProfileQueueList().contains(profileName)){
+            preflight(profileName);
+        }
+    }
+
+    private Result check(String profileName){
+        List<String> problems = new ArrayList<>();
+        Map<String, Image> images = new HashMap<>();
+        long lastModified = new File("Profiles//" + profileName + ".xml").lastModified();
+        ProfileData profile = null;
+        try{
+            profile = ProfileModel.getInstance().readProfile(profileName, problems);
+        }catch(Exception e){
+            problems.add("Profile could not be read: " + e.getMessage());
+            return new Result(null, problems, images, lastModified);
+        }
+
+        if(profile.getVideoProperties().size() < 2){
+            problems.add("Profile has no video properties");
+        } else {
+            checkMedia(profile.getVideoPath(), problems);
+        }
+        for(TextTransition transition : profile.getTextTransitions().values()){
+            if(!transition.isDefault() && TextStyleCache.getInstance().getStyle(transition.getTextProfile()) == null){
+                problems.add("Missing text profile: " + transition.getTextProfile());
+            }
+        }
+        //Untouched _DEFAULT transitions have no file and play as nothing, like the text branch above
+        for(ImageTransition transition : profile.getImageTransitions().values()){
+            if(transition.isDefault()){
+                continue;
+            }
+            if(checkFile(transition.getImagePath(), problems) && !images.containsKey(transition.getImagePath())){
+                Image image = new Image(new File(transition.getImagePath()).toURI().toString());
+                if(image.isError()){
+                    problems.add("Image could not be decoded: " + transition.getImagePath());
+                } else {
+                    images.put(transition.getImagePath(), image);
+                }
+            }
+        }
+        for(AudioTransition transition : profile.getAudioTransitions().values()){
+            if(transition.isDefault()){
+                continue;
+            }
+            Duration duration = checkMedia(transition.getAudioPath(), problems);
+            //Lets the Theatre pick the short clip path for this asset
+            if(duration != null){
+                ProfileLibrary.getInstance().setClipDuration(transition.getAudioPath(), (long) duration.toMillis());
+            }
+        }
+        for(VideoTransition transition : profile.getVideoTransitions().values()){
+            if(transition.isDefault()){
+                continue;
+            }
+            checkMedia(transition.getVideoPath(), problems);
+        }
+        return new Result(profile, problems, images, lastModified);
+    }
+
+    private boolean checkFile(String path, List<String> problems){
+        File file = new File(path);
+        if(!file.isFile() || !file.canRead()){
+            problems.add("Missing file: " + path);
+            return false;
+        }
+        return true;
+    }
+
+    //Opens the media until the player reports READY so codec or container problems show up before going live
+    //Returns the media duration, null when it could not be opened
+    private Duration checkMedia(String path, List<String> problems){
+        if(!checkFile(path, problems)){
+            return null;
+        }
+        MediaPlayer player = null;
+        try{
+            Media media = new Media(new File(path).toURI().toString());
+            player = new MediaPlayer(media);
+            CountDownLatch latch = new CountDownLatch(1);
+            player.setOnReady(latch::countDown);
+            player.setOnError(latch::countDown);
+            if(!latch.await(MEDIA_TIMEOUT, TimeUnit.SECONDS)){
+                problems.add("Media did not become ready: " + path);
+            } else if(player.getError() != null || media.getError() != null){
+                problems.add("Media could not be opened: " + path);
+            } else if(!media.getDuration().isUnknown() && !media.getDuration().isIndefinite()){
+                return media.getDuration();
+            }
+        }catch(Exception e){
+            problems.add("Media could not be opened: " + path + " (" + e.getMessage() + ")");
+        }finally{
+            if(player != null){
+                player.dispose();
+            }
+        }
+        return null;
+    }
+
+    public static final class Result {
+        private final ProfileData profile;
+        private final List<String> problems;
+        private final Map<String, Image> images;
+        private final long lastModified;
+
+        private Result(ProfileData profile, List<String> problems, Map<String, Image> images, long lastModified){
+            this.profile = profile;
+            this.problems = Collections.unmodifiableList(problems);
+            this.images = images;
+            this.lastModified = lastModified;
+        }
+
+        public Status getStatus(){
+            return problems.isEmpty() ? Status.READY : Status.FAILED;
+        }
+        public ProfileData getProfile(){
+            return this.profile;
+        }
+        public List<String> getProblems(){
+            return this.problems;
+        }
+    }
+}
@@ -187,6 +187,7 @@ public class TextModel {
             wrapper.setEffects(EffectsModel.getInstance().getEffectsStringList());
             
             m.marshal(wrapper, xmlTextProfile);
+            TextStyleCache.getInstance().invalidate(textName.getValue().replaceAll(" ", "_"));
             
             Alert alert = new Alert(Alert.AlertType.INFORMATION);
             alert.setTitle("Success!");
@@ -235,24 +236,18 @@ public class TextModel {
         Text temp = new Text();
         temp.setFontSmoothingType(FontSmoothingType.LCD);
         temp.scaleZProperty().setValue(0);
-        
+        styleTextObject(temp, textName, fontSize);
+        return temp;
+    }
+    
+    //Applies the fill, font and effect of a text profile, also used on pooled Text objects
+    public void styleTextObject(Text temp, String textName, Double fontSize){
         if(!textName.equals("_DEFAULT")){
-            try {
-                JAXBContext context = JAXBContext.newInstance(TextWrapper.class);
-                Unmarshaller u = context.createUnmarshaller();
-                TextWrapper wrapper = (TextWrapper) u.unmarshal(new File("Text//" + textName + ".xml"));
-
-                Color color = Color.web(wrapper.getFontColor());
-                temp.setFill(color);
-
-                FontWeight weight = getFontWeight( wrapper.getFontWeight() );  
-                Font font = Font.font(wrapper.getFontFamily(), weight, fontSize);
-                temp.setFont(font);
-
-                EffectsModel.getInstance().createEffectsFromList(wrapper.getEffects());
-                EffectsModel.getInstance().addEffectToText(temp);
-            } catch(Exception e){
-                e.printStackTrace();
+            TextStyleCache.TextStyle style = TextStyleCache.getInstance().getStyle(textName);
+            if(style != null){
+                temp.setFill(style.getColor());
+                temp.setFont(style.getFont(fontSize));
+                temp.setEffect(style.getEffect());
             }
         } else {
             Color color = Color.web("FFFFFF");
@@ -261,7 +256,6 @@ public class TextModel {
             Font font = Font.font("System", weight, 60.0);
             temp.setFont(font);
         }
-        return temp;
     }
     
 }//end of class
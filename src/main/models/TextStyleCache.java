@@ -0,0 +1,129 @@
+/*************************************************************************************************************************
+ * Source Code Form License Notice
+ *************************************************************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ **************************************************************************************************************************/
+/*************************************************************************************************************************
+ *   Author: Jarek Thomas
+ *
+ *   Cache of compiled Text Profiles
+ *
+ *   Each Text//<name>.xml is unmarshalled once and kept as an immutable TextStyle (Font family/weight, Color, Effect chain)
+ *   Entries are keyed by text profile name and checked against the file modification time on every lookup
+ ***************************************************************************************************************************/
+
+package main.models;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javafx.scene.effect.Effect;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.Unmarshaller;
+
+public class TextStyleCache {
+    private final static TextStyleCache INSTANCE = new TextStyleCache();
+
+    private final Map<String, TextStyle> styles = new ConcurrentHashMap<>();
+    private JAXBContext context;
+
+    private TextStyleCache(){
+
+    }
+
+    public static TextStyleCache getInstance(){
+        return INSTANCE;
+    }
+
+    //Returns the compiled style for a text profile, recompiling when the XML changed on disk
+    //Returns null when the profile can't be read
+    public TextStyle getStyle(String textName){
+        File xmlTextProfile = new File("Text//" + textName + ".xml");
+        long lastModified = xmlTextProfile.lastModified();
+
+        TextStyle style = styles.get(textName);
+        if(style != null && style.getLastModified() == lastModified){
+            return style;
+        }
+
+        try{
+            Unmarshaller u = getContext().createUnmarshaller();
+            TextWrapper wrapper = (TextWrapper) u.unmarshal(xmlTextProfile);
+            style = new TextStyle(wrapper, lastModified);
+            styles.put(textName, style);
+            return style;
+        }catch(Exception e){
+            e.printStackTrace();
+            styles.remove(textName);
+            return null;
+        }
+    }
+
+    //Called whenever a text profile is rewritten or deleted
+    public void invalidate(String textName){
+        styles.remove(textName);
+    }
+
+    public void clear(){
+        styles.clear();
+    }
+
+    //JAXBContext is thread safe and expensive to build so it is created once
+    private synchronized JAXBContext getContext() throws Exception {
+        if(context == null){
+            context = JAXBContext.newInstance(TextWrapper.class);
+        }
+        return context;
+    }
+
+    //Immutable compiled form of a TextWrapper
+    //The effect chain is built once and shared by every Text node using this style
+    public static class TextStyle {
+        private final String fontFamily;
+        private final FontWeight fontWeight;
+        private final Color color;
+        private final Effect effect;
+        private final List<String> effectStrings;
+        private final long lastModified;
+        private final Map<Double, Font> fonts = new ConcurrentHashMap<>();
+
+        private TextStyle(TextWrapper wrapper, long lastModified){
+            this.fontFamily = wrapper.getFontFamily();
+            this.fontWeight = TextModel.getInstance().getFontWeight(wrapper.getFontWeight());
+            this.color = Color.web(wrapper.getFontColor());
+            this.effectStrings = wrapper.getEffects() == null ? Collections.emptyList() : Collections.unmodifiableList(wrapper.getEffects());
+            this.effect = EffectsModel.getInstance().createEffectChain(this.effectStrings);
+            this.lastModified = lastModified;
+        }
+
+        public String getFontFamily(){
+            return this.fontFamily;
+        }
+        public FontWeight getFontWeight(){
+            return this.fontWeight;
+        }
+        public Color getColor(){
+            return this.color;
+        }
+        public Effect getEffect(){
+            return this.effect;
+        }
+        public List<String> getEffectStrings(){
+            return this.effectStrings;
+        }
+        public long getLastModified(){
+            return this.lastModified;
+        }
+
+        //Fonts are immutable so one instance per size is shared
+        public Font getFont(Double fontSize){
+            return fonts.computeIfAbsent(fontSize, size -> Font.font(fontFamily, fontWeight, size));
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*************************************************************************************************************************
+ * Source Code Form License Notice
+ *************************************************************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ **************************************************************************************************************************/
+/*************************************************************************************************************************
+ *   Author: Jarek Thomas
+ *
+ *   Immutable Text Transition
+ *
+ *   Transition String Format:  TextProfile - FontSize - xPosition - yPosition - StartTime - StopTime - Message
+ ***************************************************************************************************************************/
+
+package main.models;
+
+public final class TextTransition extends Transition {
+
+    private final String textProfile, message;
+    private final double fontSize;
+    private final int xPosition, yPosition;
+
+    public TextTransition(String textProfile, double fontSize, int xPosition, int yPosition, int startTime, int stopTime, String message){
+        super(startTime, stopTime);
+        this.textProfile = textProfile;
+        this.fontSize = fontSize;
+        this.xPosition = xPosition;
+        this.yPosition = yPosition;
+        this.message = message;
+    }
+
+    //Message is the last field and may contain commas
+    public static TextTransition parse(String value){
+        String[] tempArray = TransitionCodec.splitLeading(value, 7);
+        return new TextTransition(tempArray[0],
+                TransitionCodec.parseDouble(tempArray[1]),
+                TransitionCodec.parseInt(tempArray[2]),
+                TransitionCodec.parseInt(tempArray[3]),
+                TransitionCodec.parseTime(tempArray[4]),
+                TransitionCodec.parseTime(tempArray[5]),
+                tempArray[6]);
+    }
+
+    public String getTextProfile(){
+        return this.textProfile;
+    }
+    public double getFontSize(){
+        return this.fontSize;
+    }
+    public int getXPosition(){
+        return this.xPosition;
+    }
+    public int getYPosition(){
+        return this.yPosition;
+    }
+    public String getMessage(){
+        return this.message;
+    }
+
+    @Override
+    public boolean isDefault(){
+        return this.textProfile.equals(TransitionCodec.DEFAULT_TOKEN);
+    }
+
+    @Override
+    public String toTransitionString(){
+        return textProfile + "," + fontSize + "," + xPosition + "," + yPosition + ","
+                + TransitionCodec.formatStartTime(getStartTime()) + "," + TransitionCodec.formatStopTime(getStopTime()) + ","
+                + message;
+    }
+}
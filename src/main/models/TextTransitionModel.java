@@ -38,8 +38,8 @@ public class TextTransitionModel {
     private final SimpleDoubleProperty fontSize = new SimpleDoubleProperty();
     
     
-    private final ObservableMap<String, String> textMarkersObMap;
-    private final Map<String, String> textMarkersHashMap = new HashMap<>();
+    private final ObservableMap<String, TextTransition> textMarkersObMap;
+    private final Map<String, TextTransition> textMarkersHashMap = new HashMap<>();
     private ComboBox textProfileCB;
     
     private TextTransitionModel(){
@@ -54,10 +54,10 @@ public class TextTransitionModel {
         return (TRANSITION_KEY + "0" + getTransitionCounter());
     }
     
-    public final Map getTextMarkersMap(){
+    public final Map<String, TextTransition> getTextMarkersMap(){
         return this.textMarkersHashMap;
     }
-    public final ObservableMap getTextMarkers(){
+    public final ObservableMap<String, TextTransition> getTextMarkers(){
         return this.textMarkersObMap;
     }
     
@@ -125,56 +125,41 @@ public class TextTransitionModel {
     public void createDefaultTransition(){
         String temp = getDefaultTransitionKey();
         ProfileModel.getInstance().getMarkerEventsList().add(temp);
-        getTextMarkers().put(temp, TRANSITION_STRING);
+        getTextMarkers().put(temp, TextTransition.parse(TRANSITION_STRING));
     }
     
     public void editTransitionString(){
         if(!textProfileCB.getValue().toString().isEmpty()){
-            String keyString = "";
-            String valueString = "";
+            String keyString = PreviewModel.getInstance().getCurrentTransition();
             
-            keyString += PreviewModel.getInstance().getCurrentTransition();
-            valueString += textProfileCB.getValue() + ",";
-            valueString += getFontSize() + ",";
-            valueString += getXPosition() + ",";
-            valueString += getYPosition() + ",";
-            valueString += PreviewModel.getInstance().getStartTimestamp() + ",";
-            if(PreviewModel.getInstance().getStopTimestamp().equals("*") || PreviewModel.getInstance().getStopTimestamp().equals("0")){
-                valueString += "*,";
-            } else {
-                valueString += PreviewModel.getInstance().getStopTimestamp() + ",";
-            }
-            valueString += getMessage();
+            TextTransition transition = new TextTransition(
+                    textProfileCB.getValue().toString(),
+                    getFontSize(),
+                    getXPosition(),
+                    getYPosition(),
+                    TransitionCodec.parseTime(PreviewModel.getInstance().getStartTimestamp()),
+                    TransitionCodec.parseStopTimestamp(PreviewModel.getInstance().getStopTimestamp()),
+                    getMessage());
             
-            getTextMarkers().put(keyString, valueString);
+            getTextMarkers().put(keyString, transition);
             Context.getInstance().setDidSave(false);
         }
     }
     
     public void loadTransitionString(String keyString){
-        String tempString = (String)getTextMarkers().get(keyString);
-        String[] tempArray = tempString.split(",");
-        PreviewModel.getInstance().setTextProfileCBValue(tempArray[0]);
-        setFontSize(Double.parseDouble(tempArray[1]));
-        setXPosition(Integer.parseInt(tempArray[2])); 
-        setYPosition(Integer.parseInt(tempArray[3]));
+        TextTransition transition = getTextMarkers().get(keyString);
+        PreviewModel.getInstance().setTextProfileCBValue(transition.getTextProfile());
+        setFontSize(transition.getFontSize());
+        setXPosition(transition.getXPosition()); 
+        setYPosition(transition.getYPosition());
 
-        if(tempArray[0].equals("_DEFAULT")){
+        if(transition.isDefault()){
             PreviewModel.getInstance().setStartTimestamp((int)PreviewModel.getInstance().getMediaPlayer().getCurrentTime().toMillis() + "");
         } else {
-            PreviewModel.getInstance().setStartTimestamp(tempArray[4]);
+            PreviewModel.getInstance().setStartTimestamp(TransitionCodec.formatStartTime(transition.getStartTime()));
         }
 
-        PreviewModel.getInstance().setStopTimestamp(tempArray[5]);     
-
-        String message = "";
-
-        for(int i = 6; i < tempArray.length; i++){
-            if(i != 6){
-                message += ",";
-            }
-            message += tempArray[i];
-        }
-        setMessage(message);
+        PreviewModel.getInstance().setStopTimestamp(TransitionCodec.formatStopTime(transition.getStopTime()));
+        setMessage(transition.getMessage());
     }
 }
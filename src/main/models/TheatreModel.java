@@ -10,55 +10,60 @@
  *   Model for Theatre
  * 
  *   Main Theatre Model that user sources to streaming software (OBS etc)
+ *
+ *   Plays on two decks (MediaViews stacked in the theatre). The next profile starts on the idle deck and crossfades
+ *   over the ending one so breaks run back-to-back. Start with -Dbeerb.crossfade=false for the single deck fade to black
  ***************************************************************************************************************************/
 
 package main.models;
 
 import main.controllers.TheatreController;
-import java.awt.event.ActionListener;
-import java.io.File;
 import java.io.PrintWriter;
 import java.io.StringWriter;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
+import javafx.animation.Animation;
 import javafx.animation.FadeTransition;
 import javafx.animation.Interpolator;
+import javafx.animation.KeyFrame;
+import javafx.animation.KeyValue;
+import javafx.animation.Timeline;
 import javafx.application.Platform;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.property.StringProperty;
-import javafx.collections.ObservableMap;
+import javafx.collections.ListChangeListener;
 import javafx.event.ActionEvent;
+import javafx.scene.Node;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Alert.AlertType;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.AnchorPane;
+import javafx.scene.media.AudioClip;
 import javafx.scene.media.Media;
-import javafx.scene.media.MediaMarkerEvent;
 import javafx.scene.media.MediaPlayer;
 import javafx.scene.media.MediaView;
 import javafx.scene.text.Text;
 import javafx.stage.Stage;
 import javafx.util.Duration;
-import javax.swing.Timer;
 
 
 public class TheatreModel {
     
     private final static TheatreModel INSTANCE = new TheatreModel();
+    private static final double CROSSFADE_TIME = 2000;
+    
     private TheatreController controller;
-    private Map<String, Text> textObjects = new HashMap();
-    private Map<String, ImageView> imageObjects = new HashMap();
-    private Map<String, MediaPlayer> audioObjects = new HashMap();
-    private Map<String, MediaView> videoObjects = new HashMap();
-    private MediaView mediaView;
+    private final MediaView[] mediaViews = new MediaView[2];
+    private int activeDeck;
+    //Running crossfade, it also animates the outgoing overlays so it is stopped before they go back to the OverlayPool
+    private Timeline crossfadeTimeline;
+    private boolean crossfadeEnabled = !"false".equals(System.getProperty("beerb.crossfade"));
     private MediaPlayer mediaPlayer;
-    private Media media;
+    private PreparedProfile playingProfile, preparedProfile, outgoingProfile;
     private Duration duration;
     private Boolean fadeStarted;
-    private ObservableMap<String, Duration> videoMarkers;
-    private int timerCounter, textTransitionCounter, imageTransitionCounter, audioTransitionCounter, videoTransitionCounter, standbyCounter;
-    private final Timer standbyTimer;
+    private int timerCounter;
+    private final AppScheduler.Countdown standbyCountdown;
     private Stage stage;
     private AnchorPane theatreAnchorPane;
     
@@ -69,14 +74,19 @@ public class TheatreModel {
     private TheatreModel(){
         this.commercialBtnText.setValue("Start Commercial Break");
         this.commercialBtnStyle.setValue("-fx-background-color: #228822;");
-        this.mediaView = new MediaView();
-        this.standbyTimer = new Timer(1000, new StartStandby());
+        this.mediaViews[0] = new MediaView();
+        this.mediaViews[1] = new MediaView();
+        this.standbyCountdown = AppScheduler.getInstance().countdown(6, 1000, this::standbyTick);
         this.timerCounter = 0;
-        this.audioTransitionCounter = 0;
-        this.imageTransitionCounter = 0;
-        this.textTransitionCounter = 0;
-        this.videoTransitionCounter = 0;
-        this.standbyCounter = 6;
+        
+        //Keep the pre-rolled profile in step with the queue when it is edited during a break
+        Context.getInstance().getProfileQueueList().addListener((ListChangeListener.Change<? extends String> c) -> {
+            Platform.runLater(()->{
+                if(playingProfile != null && Context.getInstance().getTheatreRunning()){
+                    preRollNext();
+                }
+            });
+        });
     }
     public static TheatreModel getInstance(){
         return INSTANCE;
@@ -97,29 +107,33 @@ public class TheatreModel {
         this.theatreAnchorPane = theatreAnchorPane;
     }
     
-    public final Timer getStandbyTimer(){
-        return this.standbyTimer;
+    public final AppScheduler.Countdown getStandbyCountdown(){
+        return this.standbyCountdown;
     }
     
     public Media getMedia(){
-        return this.media;
-    }
-    public void setMedia(Media media){
-        this.media = media;
+        return playingProfile != null ? playingProfile.getMedia() : null;
     }
     
     public MediaPlayer getMediaPlayer(){
         return this.mediaPlayer;
     }
-    public void setMediaPlayer(MediaPlayer mediaPlayer){
-        this.mediaPlayer = mediaPlayer;
-    }
     
+    //MediaView of the deck that is currently live
     public MediaView getMediaView(){
-        return this.mediaView;
+        return this.mediaViews[activeDeck];
     }
-    public void setMediaView(MediaView mediaView){
-        this.mediaView = mediaView;
+    public void setMediaViews(MediaView deckA, MediaView deckB){
+        this.mediaViews[0] = deckA;
+        this.mediaViews[1] = deckB;
+        this.activeDeck = 0;
+    }
+    
+    public boolean getCrossfadeEnabled(){
+        return this.crossfadeEnabled;
+    }
+    public void setCrossfadeEnabled(boolean crossfadeEnabled){
+        this.crossfadeEnabled = crossfadeEnabled;
     }
     
     public final String getTimerText(){
@@ -159,24 +173,14 @@ public class TheatreModel {
         this.timerCounter = timerCounter;
     }
     
-    public final int getStandbyCounter(){
-        return standbyCounter;
-    }
-    public final void setStandbyCounter(){
-        if(standbyCounter != 0){
-            this.standbyCounter--;
-        } else {
-            this.standbyCounter = 6;
-        }
-        
-    }
-    
     //Starts 5 sec timer for user before launching mediaplayer
     public void startCommercialBreak(){
-        getStandbyTimer().start();
+        QueuePreflight.getInstance().clearSkipped();
+        getStandbyCountdown().start();
         stage.show();
         Platform.runLater(()->{
             stage.toFront();
+            PlaybackTelemetry.getInstance().startBreak();
             Context.getInstance().setTheatreRunning(true);
             commercialBtnText.setValue("Starting Commercial Break");
             commercialBtnStyle.setValue("-fx-background-color: #e07a1a;");
@@ -188,16 +192,37 @@ public class TheatreModel {
     //Clear scene properties and queue list and delete video markers
     //Fades mediaplayer out over 5 secs
     public void stopCommercialBreak(){
-        MediaPlayer.Status status = this.mediaPlayer.getStatus();
-        if ( status != MediaPlayer.Status.PAUSED || status != MediaPlayer.Status.READY || status != MediaPlayer.Status.STOPPED){
-            this.mediaPlayer.pause();
+        if(this.mediaPlayer != null){
+            MediaPlayer.Status status = this.mediaPlayer.getStatus();
+            if ( status != MediaPlayer.Status.PAUSED || status != MediaPlayer.Status.READY || status != MediaPlayer.Status.STOPPED){
+                this.mediaPlayer.pause();
+            }
         }
         Context.getInstance().getProfileQueueList().clear();
         ProfileModel.getInstance().clearSceneProperties();
         setTimerCounter(0);
         deleteVideoMarkers();
+        discardPreparedProfile();
+        //A crossfade may be running, the outgoing deck is released right away
+        if(crossfadeTimeline != null){
+            crossfadeTimeline.stop();
+            crossfadeTimeline = null;
+        }
+        if(outgoingProfile != null && outgoingProfile != playingProfile){
+            for(MediaView deck : mediaViews){
+                if(deck.getMediaPlayer() == outgoingProfile.getMediaPlayer()){
+                    deck.setMediaPlayer(null);
+                    deck.setOpacity(0);
+                }
+            }
+            outgoingProfile.dispose(theatreAnchorPane);
+        }
+        outgoingProfile = null;
+        PreparedProfile stoppedProfile = playingProfile;
+        playingProfile = null;
         
         Platform.runLater(()->{
+            PlaybackTelemetry.getInstance().endBreak();
             FadeTransition fadeOut = new FadeTransition(Duration.millis(5000), TheatreModel.getInstance().getMediaView());
             fadeOut.setFromValue(1);
             fadeOut.setToValue(0);
@@ -207,7 +232,10 @@ public class TheatreModel {
             fadeOut.playFromStart();
             
             fadeOut.setOnFinished((ActionEvent event) -> {
-                mediaPlayer.dispose();
+                if(stoppedProfile != null){
+                    stoppedProfile.dispose(theatreAnchorPane);
+                }
+                mediaPlayer = null;
                 this.stage.setResizable(true);
                 this.stage.hide();
                 Context.getInstance().setTheatreRunning(false);
@@ -218,31 +246,28 @@ public class TheatreModel {
         });
     }
     
-    //Loads next profile in queue and create transition objects
+    //Switches to the pre-rolled profile when it matches the head of the queue, otherwise prepares it now
     public void nextProfile(){
         try{
             if(!Context.getInstance().getProfileQueueList().isEmpty()){
-                ProfileModel.getInstance().loadProfileFromXML(Context.getInstance().getProfileQueueList().get(0).toString());
-                createMedia(ProfileModel.getInstance().getVideoProperties().get(0).toString());
-                
-                if(!AudioTransitionModel.getInstance().getAudioMarkers().isEmpty()){
-                    createAudioMarkers();
+                String profileName = Context.getInstance().getProfileQueueList().get(0).toString();
+                PreparedProfile profile;
+                if(preparedProfile != null && preparedProfile.getProfileName().equals(profileName)){
+                    profile = preparedProfile;
+                    preparedProfile = null;
+                } else {
+                    discardPreparedProfile();
+                    profile = prepareProfile(profileName);
                 }
-                if(!TextTransitionModel.getInstance().getTextMarkers().isEmpty()){
-                    createTextMarkers();
-                }
-                if(!ImageTransitionModel.getInstance().getImageMarkers().isEmpty()){
-                    createImageMarkers();
-                }
-                if(!FFTransitionModel.getInstance().getFFMarkers().isEmpty()){
-                    createFFMarkers();
-                }
-                if(!CutTransitionModel.getInstance().getCutMarkers().isEmpty()){
-                    createCutMarkers();
-                }
-                if(!VideoTransitionModel.getInstance().getVideoMarkers().isEmpty()){
-                    createVideoMarkers();
+                
+                //Profiles that failed preflight are skipped instead of breaking the stream
+                if(profile == null){
+                    QueuePreflight.getInstance().reportSkipped(profileName);
+                    Context.getInstance().getProfileQueueList().remove(0);
+                    nextProfile();
+                    return;
                 }
+                playingProfile = profile;
                 Platform.runLater(()->{
                     loadVideoPlayer();
                 });
@@ -260,28 +285,101 @@ public class TheatreModel {
         }
     }
     
-    //Create media object and initialize media markers
-    public void createMedia(String videoPath){
-        File temp = new File(videoPath);
-        media = new Media(temp.toURI().toString());
-        videoMarkers = media.getMarkers();
+    //Decode a queued profile, using the preflight result when there is one
+    //Returns null when preflight found problems with the profile or it could not be read
+    public PreparedProfile prepareProfile(String profileName) throws Exception {
+        QueuePreflight.Result result = QueuePreflight.getInstance().getResult(profileName);
+        if(result != null && result.getStatus() == QueuePreflight.Status.FAILED){
+            return null;
+        }
+        ProfileData profile;
+        if(result != null){
+            profile = result.getProfile();
+        } else {
+            try{
+                profile = ProfileModel.getInstance().readProfile(profileName);
+            }catch(Exception e){
+                //Not checked yet and unreadable, recorded as a failed check so it is skipped with its reason
+                e.printStackTrace();
+                QueuePreflight.getInstance().fail(profileName, "Profile could not be read: " + e.getMessage());
+                return null;
+            }
+        }
+        return prepareProfile(profileName, profile);
+    }
+    
+    //Create media, player and every transition object with its markers
+    public PreparedProfile prepareProfile(String profileName, ProfileData profile){
+        PreparedProfile prepared = new PreparedProfile(profileName, profile);
+        createAudioMarkers(prepared);
+        createTextMarkers(prepared);
+        createImageMarkers(prepared);
+        createFFMarkers(prepared);
+        createCutMarkers(prepared);
+        createVideoMarkers(prepared);
+        if(PlaybackTelemetry.getInstance().getEnabled()){
+            prepared.getScheduler().setDispatchListener((action, authoredTime, position, pulseNanos, appliedNanos, seeking) -> 
+                PlaybackTelemetry.getInstance().recordAction(profileName, authoredTime, position, pulseNanos, appliedNanos, seeking));
+        }
+        prepared.getScheduler().compile();
+        return prepared;
+    }
+    
+    //Prepare the next playable queue entry while the current one plays so the switch is only a swap
+    private void preRollNext(){
+        if(playingProfile == null){
+            return;
+        }
+        for(int i = 1; i < Context.getInstance().getProfileQueueList().size(); i++){
+            String profileName = Context.getInstance().getProfileQueueList().get(i).toString();
+            if(preparedProfile != null && preparedProfile.getProfileName().equals(profileName)){
+                return;
+            }
+            QueuePreflight.Result result = QueuePreflight.getInstance().getResult(profileName);
+            if(result != null && result.getStatus() == QueuePreflight.Status.FAILED){
+                continue;
+            }
+            discardPreparedProfile();
+            try{
+                preparedProfile = prepareProfile(profileName);
+            }catch(Exception e){
+                e.printStackTrace();
+            }
+            return;
+        }
+        discardPreparedProfile();
+    }
+    
+    private void discardPreparedProfile(){
+        if(preparedProfile != null){
+            preparedProfile.dispose(theatreAnchorPane);
+            preparedProfile = null;
+        }
     }
     
-    //Create mediaplayer and set to autoplay
-    //Loads volume from profile and fades video in and starts video
-    //Uses currentTimeProperty to start fadeout of current profile 5 secs before video ends
+    //Attach the playing profile's player to the theatre
+    //With an outgoing profile the idle deck is used and crossfaded in, otherwise video fades in once the player is ready
+    //Uses currentTimeProperty to start the switch to the next profile 2 secs before video ends
     public void loadVideoPlayer(){
-        mediaPlayer = new MediaPlayer(media);
-        mediaPlayer.setAutoPlay(true);
-        mediaPlayer.setVolume(Double.parseDouble(ProfileModel.getInstance().getVideoProperties().get(1).toString()));
-        
-        Platform.runLater(()->{
-            mediaView.setMediaPlayer(mediaPlayer);
-        });
+        PreparedProfile profile = playingProfile;
+        PreparedProfile outgoing = outgoingProfile;
+        if(outgoing != null){
+            activeDeck = 1 - activeDeck;
+        }
+        MediaView mediaView = mediaViews[activeDeck];
+        mediaPlayer = profile.getMediaPlayer();
+        Media media = profile.getMedia();
+        mediaView.setMediaPlayer(mediaPlayer);
+        if(outgoing != null){
+            crossfade(outgoing, profile);
+        }
         
-        mediaPlayer.setOnReady(()->{
+        Runnable onReady = ()->{
             duration = media.getDuration();
             fadeStarted = false;
+            if(outgoing != null){
+                return;
+            }
             Platform.runLater(()->{
                 FadeTransition fadeIn = new FadeTransition(Duration.millis(2000), TheatreModel.getInstance().getMediaView());
                 fadeIn.setFromValue(0);
@@ -291,151 +389,36 @@ public class TheatreModel {
                 fadeIn.setInterpolator(Interpolator.EASE_IN);
                 fadeIn.playFromStart();
             });
-        });
+        };
+        //A pre-rolled player is usually READY already and will not fire onReady again
+        if(profile.isReady()){
+            onReady.run();
+        } else {
+            duration = Duration.ZERO;
+            mediaPlayer.setOnReady(onReady);
+        }
         
         mediaPlayer.setOnPlaying(()->{
             Platform.runLater(()->{
                 this.stage.setResizable(false);
+                preRollNext();
             });
         });
         
-        mediaPlayer.setOnMarker((MediaMarkerEvent event) -> {
-            String tempKey = event.getMarker().getKey();
-            String[] tempArray = tempKey.split("-");
-
-            if(tempArray[0].equals("Add")){
-                switch(tempArray[1]){
-                    case TextTransitionModel.TRANSITION_KEY:
-                        Platform.runLater(()->{
-                            theatreAnchorPane.getChildren().add(textObjects.get(tempArray[2]));
-                            FadeTransition fadeIn = new FadeTransition(Duration.millis(1250), textObjects.get(tempArray[2]));
-                            fadeIn.setFromValue(0);
-                            fadeIn.setToValue(1);
-                            fadeIn.setCycleCount(1);
-                            fadeIn.setAutoReverse(false);
-                            fadeIn.setInterpolator(Interpolator.LINEAR);
-                            fadeIn.playFromStart();
-                        });
-                        break;
-                    case ImageTransitionModel.TRANSITION_KEY:
-                        Platform.runLater(()->{
-                            theatreAnchorPane.getChildren().add(imageObjects.get(tempArray[2]));
-                            FadeTransition fadeIn = new FadeTransition(Duration.millis(1250), imageObjects.get(tempArray[2]));
-                            fadeIn.setFromValue(0);
-                            fadeIn.setToValue(1);
-                            fadeIn.setCycleCount(1);
-                            fadeIn.setAutoReverse(false);
-                            fadeIn.setInterpolator(Interpolator.LINEAR);
-                            fadeIn.playFromStart();
-                        });
-                        break;
-                    case FFTransitionModel.TRANSITION_KEY:
-                        Platform.runLater(()->{
-                            mediaPlayer.setRate(Double.parseDouble(tempArray[2]));
-                        });
-                        break;
-                    case CutTransitionModel.TRANSITION_KEY:
-                        Platform.runLater(()->{
-                            if(!tempArray[2].equals("*")){
-                                mediaPlayer.seek(Duration.millis(Double.parseDouble(tempArray[2])));
-                            }
-                        });
-                        break;
-                    case AudioTransitionModel.TRANSITION_KEY:
-                        Platform.runLater(()->{
-                            MediaPlayer tempPlayer = audioObjects.get(tempArray[2]);
-                            tempPlayer.play();
-                        });
-                        break;
-                    case VideoTransitionModel.TRANSITION_KEY:
-                        Platform.runLater(()->{
-                            MediaView tempView = videoObjects.get(tempArray[2]);
-                            theatreAnchorPane.getChildren().add(tempView);
-                            FadeTransition fadeIn = new FadeTransition(Duration.millis(1250), tempView);
-                            fadeIn.setFromValue(0);
-                            fadeIn.setToValue(1);
-                            fadeIn.setCycleCount(1);
-                            fadeIn.setAutoReverse(false);
-                            fadeIn.setInterpolator(Interpolator.LINEAR);
-                            fadeIn.playFromStart();
-                            
-                            tempView.getMediaPlayer().play();
-                        });
-                        break;
-                    default:
-                        break;
-                }
-            } else {
-                switch(tempArray[1]){
-                    case TextTransitionModel.TRANSITION_KEY:
-                        Platform.runLater(()->{
-                            FadeTransition fadeOut = new FadeTransition(Duration.millis(1250), textObjects.get(tempArray[2]));
-                            fadeOut.setFromValue(1);
-                            fadeOut.setToValue(0);
-                            fadeOut.setCycleCount(1);
-                            fadeOut.setAutoReverse(false);
-                            fadeOut.setInterpolator(Interpolator.LINEAR);
-                            fadeOut.playFromStart();
-                            fadeOut.setOnFinished((ActionEvent ae) -> {
-                                theatreAnchorPane.getChildren().remove(textObjects.get(tempArray[2]));
-                            });
-                        });
-                        break;
-                    case ImageTransitionModel.TRANSITION_KEY:
-                        Platform.runLater(()->{
-                            FadeTransition fadeOut = new FadeTransition(Duration.millis(1250), imageObjects.get(tempArray[2]));
-                            fadeOut.setFromValue(1);
-                            fadeOut.setToValue(0);
-                            fadeOut.setCycleCount(1);
-                            fadeOut.setAutoReverse(false);
-                            fadeOut.setInterpolator(Interpolator.LINEAR);
-                            fadeOut.playFromStart();
-                            fadeOut.setOnFinished((ActionEvent ae) -> {
-                                theatreAnchorPane.getChildren().remove(imageObjects.get(tempArray[2]));
-                            });
-                        });
-                        break;
-                    case FFTransitionModel.TRANSITION_KEY:
-                        Platform.runLater(()->{
-                            mediaPlayer.setRate(Double.parseDouble(tempArray[2]));
-                        });
-                        break;
-                    case AudioTransitionModel.TRANSITION_KEY:
-                        Platform.runLater(()->{
-                            MediaPlayer tempPlayer = audioObjects.get(tempArray[2]);
-                            tempPlayer.stop();
-                        });
-                        break;
-                    case VideoTransitionModel.TRANSITION_KEY:
-                        Platform.runLater(()->{
-                            FadeTransition fadeOut = new FadeTransition(Duration.millis(1250), videoObjects.get(tempArray[2]));
-                            fadeOut.setFromValue(1);
-                            fadeOut.setToValue(0);
-                            fadeOut.setCycleCount(1);
-                            fadeOut.setAutoReverse(false);
-                            fadeOut.setInterpolator(Interpolator.LINEAR);
-                            fadeOut.playFromStart();
-                            fadeOut.setOnFinished((ActionEvent ae) -> {
-                                theatreAnchorPane.getChildren().remove(videoObjects.get(tempArray[2]));
-                                videoObjects.get(tempArray[2]).getMediaPlayer().stop();
-                            });
-                        });
-                        break;
-                    default:
-                        break;
-                }
-            }
-        });
+        profile.getScheduler().start(mediaPlayer);
         
         mediaPlayer.currentTimeProperty().addListener((ChangeListener) -> {
-            Duration currentTime = mediaPlayer.getCurrentTime();
+            Duration currentTime = profile.getMediaPlayer().getCurrentTime();
             Platform.runLater(()->{
-                if(duration.greaterThan(Duration.ZERO)) {
+                if(profile == playingProfile && duration.greaterThan(Duration.ZERO)) {
                     if(((int)duration.toSeconds() - (int)currentTime.toSeconds()) == 2 && !fadeStarted){
                         Context.getInstance().getProfileQueueList().remove(0);
-                        ProfileModel.getInstance().clearSceneProperties();
                         fadeStarted = true;
-                        if(!Context.getInstance().getProfileQueueList().isEmpty()){
+                        if(!Context.getInstance().getProfileQueueList().isEmpty() && crossfadeEnabled){
+                            //Next profile starts on the other deck while this one finishes
+                            outgoingProfile = profile;
+                            nextProfile();
+                        } else if(!Context.getInstance().getProfileQueueList().isEmpty()){
                             Platform.runLater(()->{
                                 FadeTransition fadeOut = new FadeTransition(Duration.millis(1500), TheatreModel.getInstance().getMediaView());
                                 fadeOut.setFromValue(1);
@@ -445,7 +428,7 @@ public class TheatreModel {
                                 fadeOut.setInterpolator(Interpolator.EASE_IN);
                                 fadeOut.playFromStart();
                                 fadeOut.setOnFinished((ActionEvent event) -> {
-                                    deleteVideoMarkers();
+                                    profile.dispose(theatreAnchorPane);
                                     nextProfile();
                                 });
                             });
@@ -456,226 +439,298 @@ public class TheatreModel {
                 }
             });  
         });
+        
+        mediaPlayer.play();
     }
     
-    //Loops through map to create objects for each transition string value
-    //Created objects are stored in another map for retrieval by mediaplayer onMarker listener
-    public void createTextMarkers(){
-        Iterator it = TextTransitionModel.getInstance().getTextMarkersMap().entrySet().iterator();
+    //Fades the incoming deck in over the outgoing one with the audio of both players and the outgoing overlays following
+    //The outgoing profile is released once it is no longer visible
+    private void crossfade(PreparedProfile outgoing, PreparedProfile incoming){
+        MediaView incomingView = mediaViews[activeDeck];
+        MediaView outgoingView = mediaViews[1 - activeDeck];
+        outgoingView.toBack();
+        incomingView.setOpacity(0);
+        
+        MediaPlayer incomingPlayer = incoming.getMediaPlayer();
+        MediaPlayer outgoingPlayer = outgoing.getMediaPlayer();
+        List<KeyValue> from = new ArrayList<>();
+        List<KeyValue> to = new ArrayList<>();
+        from.add(new KeyValue(incomingView.opacityProperty(), 0));
+        from.add(new KeyValue(incomingPlayer.volumeProperty(), 0));
+        from.add(new KeyValue(outgoingPlayer.volumeProperty(), outgoingPlayer.getVolume()));
+        to.add(new KeyValue(incomingView.opacityProperty(), 1, Interpolator.EASE_IN));
+        to.add(new KeyValue(incomingPlayer.volumeProperty(), incoming.getProfile().getVolume()));
+        to.add(new KeyValue(outgoingPlayer.volumeProperty(), 0));
+        
+        //Outgoing overlays sit above both decks, they stop changing and fade out while the incoming deck fades in
+        outgoing.getScheduler().stop();
+        outgoing.getAnimations().forEach(Animation::stop);
+        List<Node> overlays = new ArrayList<>();
+        overlays.addAll(outgoing.getTextObjects().values());
+        overlays.addAll(outgoing.getImageObjects().values());
+        overlays.addAll(outgoing.getVideoObjects().values());
+        for(Node overlay : overlays){
+            if(overlay.getParent() == theatreAnchorPane){
+                from.add(new KeyValue(overlay.opacityProperty(), overlay.getOpacity()));
+                to.add(new KeyValue(overlay.opacityProperty(), 0, Interpolator.EASE_IN));
+            }
+        }
         
-        while (it.hasNext()) {
-            Map.Entry pair = (Map.Entry)it.next();
+        crossfadeTimeline = new Timeline(
+            new KeyFrame(Duration.ZERO, from.toArray(new KeyValue[0])),
+            new KeyFrame(Duration.millis(CROSSFADE_TIME), to.toArray(new KeyValue[0])));
+        crossfadeTimeline.setOnFinished((ActionEvent event) -> {
+            crossfadeTimeline = null;
+            //stopCommercialBreak may already have released it
+            if(outgoingProfile == outgoing){
+                outgoingProfile = null;
+                outgoing.dispose(theatreAnchorPane);
+                outgoingView.setMediaPlayer(null);
+                outgoingView.setOpacity(0);
+            }
+        });
+        crossfadeTimeline.playFromStart();
+    }
+    
+    //Loops through map to create objects for each transition
+    //Created objects are stored in the prepared profile and shown and hidden by the transition scheduler
+    public void createTextMarkers(PreparedProfile prepared){
+        int textTransitionCounter = 0;
+        for(TextTransition transition : prepared.getProfile().getTextTransitions().values()){
             
-            String[] tempArray = pair.getValue().toString().split(",");
-            TextTransitionModel.getInstance().setFontSize(Double.parseDouble(tempArray[1]));
-            Text tempText = TextModel.getInstance().createTextObject(tempArray[0], Double.parseDouble(tempArray[1]));
-            tempText.setX(Double.parseDouble(tempArray[2]));
-            tempText.setY(Double.parseDouble(tempArray[3]) + (tempText.getFont().getSize() - 15));
+            Text tempText = OverlayPool.getInstance().acquireText(transition.getTextProfile(), transition.getFontSize());
+            tempText.setX(transition.getXPosition());
+            tempText.setY(transition.getYPosition() + (tempText.getFont().getSize() - 15));
             tempText.setScaleX(1.04);
             tempText.setOpacity(0);
             
-            videoMarkers.put("Add-Text-" + textTransitionCounter, Duration.millis( Integer.parseInt(tempArray[4]) ));
-            
-            if(!tempArray[5].equals("*")){
-                videoMarkers.put("Remove-Text-" + textTransitionCounter, Duration.millis( Integer.parseInt(tempArray[5]) ));
-            }
+            addOverlay(prepared, tempText, null, 0, transition);
             
-            String message = "";
-            for(int i = 6; i < tempArray.length; i++){
-                if(i != 6){
-                    message += ",";
-                }
-                message += tempArray[i];
-            }
-            tempText.setText(message);
+            tempText.setText(transition.getMessage());
             
-            textObjects.put("" + textTransitionCounter, tempText);
-            it.remove();
+            prepared.getTextObjects().put("" + textTransitionCounter, tempText);
             textTransitionCounter++;
         }
-        textTransitionCounter = 0;
     }
     
-    //Loops through map to create objects for each transition string value
-    //Created objects are stored in another map for retrieval by mediaplayer onMarker listener
-    public void createImageMarkers(){
-        Iterator it = ImageTransitionModel.getInstance().getImageMarkersMap().entrySet().iterator();
-        
-        while (it.hasNext()) {
-            Map.Entry pair = (Map.Entry)it.next();
+    //Loops through map to create objects for each transition
+    //Created objects are stored in the prepared profile and shown and hidden by the transition scheduler
+    public void createImageMarkers(PreparedProfile prepared){
+        int imageTransitionCounter = 0;
+        for(ImageTransition transition : prepared.getProfile().getImageTransitions().values()){
             
-            String[] tempArray = pair.getValue().toString().split(",");
-            
-            ImageView tempImage = ImageTransitionModel.getInstance().createImageObject(tempArray[0]);
-            tempImage.setX(Double.parseDouble(tempArray[1]));
-            tempImage.setY(Double.parseDouble(tempArray[2]));
-            tempImage.setFitWidth(Double.parseDouble(tempArray[3]));
-            tempImage.setFitHeight(Double.parseDouble(tempArray[4]));
-            tempImage.setPreserveRatio(Boolean.parseBoolean(tempArray[7]));
+            ImageView tempImage = OverlayPool.getInstance().acquireImage(transition.getImagePath());
+            tempImage.setX(transition.getXPosition());
+            tempImage.setY(transition.getYPosition());
+            tempImage.setFitWidth(transition.getFitWidth());
+            tempImage.setFitHeight(transition.getFitHeight());
+            tempImage.setPreserveRatio(transition.getPreserveRatio());
             tempImage.setOpacity(0);
             
-            videoMarkers.put("Add-Image-" + imageTransitionCounter, Duration.millis( Integer.parseInt(tempArray[5]) ));
-
-            if(!tempArray[6].equals("*")){
-                videoMarkers.put("Remove-Image-" + imageTransitionCounter, Duration.millis( Integer.parseInt(tempArray[6]) ));
-            }
+            addOverlay(prepared, tempImage, null, 0, transition);
             
-            imageObjects.put(imageTransitionCounter + "", tempImage);
+            prepared.getImageObjects().put(imageTransitionCounter + "", tempImage);
             
             imageTransitionCounter++;
         }
-        imageTransitionCounter = 0;
     }
     
-    //Loops through map to create references for each transition string value
-    //Key-value is enough information passed to mediaPlayer to perform action
-    public void createFFMarkers(){
-        Iterator it = FFTransitionModel.getInstance().getFFMarkersMap().entrySet().iterator();
-        
-        while (it.hasNext()) {
-            Map.Entry pair = (Map.Entry)it.next();
-            String[] tempArray = pair.getValue().toString().split(",");
-            
-            videoMarkers.put("Add-FF-" + tempArray[2], Duration.millis( Integer.parseInt(tempArray[0]) ));
-            
-            if(!tempArray[1].equals("*")){
-                videoMarkers.put("Remove-FF-" + tempArray[3], Duration.millis( Integer.parseInt(tempArray[1]) ));
-            }
+    //Loops through map to create an action for each rate change
+    public void createFFMarkers(PreparedProfile prepared){
+        MediaPlayer player = prepared.getMediaPlayer();
+        for(FFTransition transition : prepared.getProfile().getFFTransitions().values()){
+            double startRate = transition.getStartRate();
+            double stopRate = transition.getStopRate();
+            prepared.getScheduler().addAction(() -> player.setRate(startRate), transition.getStartTime());
+            prepared.getScheduler().addAction(() -> player.setRate(stopRate), transition.getStopTime());
         }
     }
     
-    //Loops through map to create references for each transition string value
-    //Key-value is enough information passed to mediaPlayer to perform action
-    public void createCutMarkers(){
-        Iterator it = CutTransitionModel.getInstance().getCutMarkersMap().entrySet().iterator();
-        
-        while (it.hasNext()) {
-            Map.Entry pair = (Map.Entry)it.next();
-            String[] tempArray = pair.getValue().toString().split(",");
-            
-            videoMarkers.put("Add-Cut-" + tempArray[1], Duration.millis( Integer.parseInt(tempArray[0]) ));
+    //Loops through map to create an action for each cut, cuts without a stop time do nothing
+    //The scheduler seeks so the actions in the skipped part are not dispatched
+    public void createCutMarkers(PreparedProfile prepared){
+        TransitionScheduler scheduler = prepared.getScheduler();
+        for(CutTransition transition : prepared.getProfile().getCutTransitions().values()){
+            if(transition.hasStopTime()){
+                Duration cutTo = Duration.millis(transition.getStopTime());
+                scheduler.addAction(() -> scheduler.seek(cutTo), transition.getStartTime());
+            }
         }
     }
     
-    //Loops through map to create references for each transition string value
-    //Created objects are stored in another map for retrieval by mediaplayer onMarker listener
-    public void createAudioMarkers(){
-        Iterator it = AudioTransitionModel.getInstance().getAudioMarkersMap().entrySet().iterator();
-        
-        while (it.hasNext()) {
-            Map.Entry pair = (Map.Entry)it.next();
+    //Loops through map to create references for each transition
+    //Created objects are stored in the prepared profile and shown and hidden by the transition scheduler
+    public void createAudioMarkers(PreparedProfile prepared){
+        List<AudioTransition> transitions = new ArrayList<>(prepared.getProfile().getAudioTransitions().values());
+        AudioClip[] clips = getShortClips(prepared, transitions);
+        int audioTransitionCounter = 0;
+        for(int i = 0; i < transitions.size(); i++){
+            AudioTransition transition = transitions.get(i);
             
-            String[] tempArray = pair.getValue().toString().split(",");
+            //Short stingers play from memory for a steady onset, the rest stream through a MediaPlayer
+            AudioClip clip = clips[i];
+            if(clip != null){
+                double volume = transition.getVolume();
+                double rate = transition.getPlayRate();
+                long length = (long) (ProfileLibrary.getInstance().getClipDuration(transition.getAudioPath()) / rate * 1000000);
+                long[] playedAt = { -1 };
+                prepared.getScheduler().addInterval(() -> {
+                    playedAt[0] = System.nanoTime();
+                    clip.play(volume, 0, rate, 0, 0);
+                }, () -> {
+                    //stop() stops every instance of the clip, once this one has finished there is nothing to cut
+                    if(playedAt[0] >= 0 && System.nanoTime() - playedAt[0] < length){
+                        clip.stop();
+                    }
+                    playedAt[0] = -1;
+                }, transition.getStartTime(), transition.getStopTime());
+                continue;
+            }
             
-            MediaPlayer tempPlayer = AudioTransitionModel.getInstance().createAudioObject(tempArray[0]);
-            tempPlayer.setAutoPlay(false);
-            tempPlayer.setRate(Double.parseDouble(tempArray[3]));
-            tempPlayer.setVolume(Double.parseDouble(tempArray[4]));
-            tempPlayer.setOnReady(()->{
-                tempPlayer.seek(tempPlayer.getMedia().getDuration().multiply(Double.parseDouble(tempArray[5])));
-            });
+            MediaPlayer tempPlayer = MediaPlayerCache.getInstance().acquire(transition.getAudioPath(), transition.getPlayRate(), transition.getVolume(), transition.getSeekTime());
             
-            videoMarkers.put("Add-Audio-" + audioTransitionCounter, Duration.millis( Integer.parseInt(tempArray[1]) ));
-
-            if(!tempArray[2].equals("*")){
-                videoMarkers.put("Remove-Audio-" + audioTransitionCounter, Duration.millis( Integer.parseInt(tempArray[2]) ));
-            }
+            double seekTime = transition.getSeekTime();
+            prepared.getScheduler().addInterval(tempPlayer::play, () -> MediaPlayerCache.rewind(tempPlayer, seekTime), transition.getStartTime(), transition.getStopTime());
             
-            audioObjects.put(audioTransitionCounter + "", tempPlayer);
+            prepared.getAudioObjects().put(audioTransitionCounter + "", tempPlayer);
             audioTransitionCounter++;
         }
-        audioTransitionCounter = 0;
     }
     
-    //Loops through map to create references for each transition string value
-    //Created objects are stored in another map for retrieval by mediaplayer onMarker listener
-    public void createVideoMarkers(){
-        VideoTransitionModel.getInstance().getVideoMarkersMap().forEach((key,value)->{
-            String[] tempArray = value.toString().split(",");
+    //Short clip of each transition or null when it has to stream
+    //AudioClip.stop() stops every playing instance of a clip, so transitions that can be audible at the same time as
+    //another one of the same clip stream through their own MediaPlayer. A clip is audible from its start until its
+    //stop time or its length has played, stretched by the fastest rate the profile plays the video at
+    private AudioClip[] getShortClips(PreparedProfile prepared, List<AudioTransition> transitions){
+        double videoRate = 1.0;
+        for(FFTransition transition : prepared.getProfile().getFFTransitions().values()){
+            videoRate = Math.max(videoRate, Math.max(transition.getStartRate(), transition.getStopRate()));
+        }
+        
+        AudioClip[] clips = new AudioClip[transitions.size()];
+        long[] starts = new long[clips.length];
+        long[] stops = new long[clips.length];
+        for(int i = 0; i < clips.length; i++){
+            AudioTransition transition = transitions.get(i);
+            clips[i] = AudioTransitionModel.getInstance().getShortClip(transition);
+            if(!transition.hasStartTime()){
+                //Never shown, an empty window overlaps nothing
+                starts[i] = Long.MAX_VALUE;
+                stops[i] = Long.MIN_VALUE;
+            } else if(clips[i] != null){
+                starts[i] = transition.getStartTime();
+                stops[i] = starts[i] + (long) Math.ceil(ProfileLibrary.getInstance().getClipDuration(transition.getAudioPath())
+                        / transition.getPlayRate() * videoRate);
+                if(transition.hasStopTime()){
+                    stops[i] = Math.min(stops[i], transition.getStopTime());
+                }
+            }
+        }
+        
+        boolean[] shared = new boolean[clips.length];
+        for(int i = 0; i < clips.length; i++){
+            for(int j = i + 1; clips[i] != null && j < clips.length; j++){
+                //Touching windows count, the stop of one and the start of the other can run in either order
+                if(clips[j] == clips[i] && starts[i] <= stops[j] && starts[j] <= stops[i]){
+                    shared[i] = true;
+                    shared[j] = true;
+                }
+            }
+        }
+        for(int i = 0; i < clips.length; i++){
+            if(shared[i]){
+                clips[i] = null;
+            }
+        }
+        return clips;
+    }
+    
+    //Loops through map to create references for each transition
+    //Created objects are stored in the prepared profile and shown and hidden by the transition scheduler
+    public void createVideoMarkers(PreparedProfile prepared){
+        int videoTransitionCounter = 0;
+        for(VideoTransition transition : prepared.getProfile().getVideoTransitions().values()){
             
-            MediaPlayer tempPlayer = VideoTransitionModel.getInstance().createVideoObject(tempArray[0]);
-            tempPlayer.setAutoPlay(false);
-            tempPlayer.setRate(Double.parseDouble(tempArray[3]));
-            tempPlayer.setVolume(Double.parseDouble(tempArray[4]));
-            tempPlayer.setOnReady(()->{
-                tempPlayer.seek(tempPlayer.getMedia().getDuration().multiply(Double.parseDouble(tempArray[9])));
-            });
+            MediaPlayer tempPlayer = MediaPlayerCache.getInstance().acquire(transition.getVideoPath(), transition.getPlayRate(), transition.getVolume(), transition.getSeekTime());
             
-            MediaView tempView = new MediaView(tempPlayer);
-            tempView.setX(Double.parseDouble(tempArray[5]));
-            tempView.setY(Double.parseDouble(tempArray[6]));
-            tempView.setFitWidth(Double.parseDouble(tempArray[7]));
-            tempView.setFitHeight(Double.parseDouble(tempArray[8]));
-            tempView.setPreserveRatio(Boolean.parseBoolean(tempArray[10]));
+            MediaView tempView = OverlayPool.getInstance().acquireVideo(tempPlayer);
+            tempView.setX(transition.getXPosition());
+            tempView.setY(transition.getYPosition());
+            tempView.setFitWidth(transition.getFitWidth());
+            tempView.setFitHeight(transition.getFitHeight());
+            tempView.setPreserveRatio(transition.getPreserveRatio());
             
-            videoMarkers.put("Add-Video-" + videoTransitionCounter, Duration.millis( Integer.parseInt(tempArray[1]) ));
-
-            if(!tempArray[2].equals("*")){
-                videoMarkers.put("Remove-Video-" + videoTransitionCounter, Duration.millis( Integer.parseInt(tempArray[2]) ));
-            }
+            addOverlay(prepared, tempView, tempPlayer, transition.getSeekTime(), transition);
             
-            videoObjects.put(videoTransitionCounter + "", tempView);
+            prepared.getVideoObjects().put(videoTransitionCounter + "", tempView);
             videoTransitionCounter++;
+        }
+    }
+    
+    //Overlays are shown over [start, stop) and reconciled by the scheduler after a seek
+    //Fades are created once per overlay, showing and hiding it only restarts them. Unset times are skipped
+    //A player is paused back at seekTime when hidden so the overlay starts from there when it is shown again
+    private void addOverlay(PreparedProfile prepared, Node node, MediaPlayer player, double seekTime, Transition transition){
+        FadeTransition fadeIn = new FadeTransition(Duration.millis(1250), node);
+        fadeIn.setFromValue(0);
+        fadeIn.setToValue(1);
+        fadeIn.setCycleCount(1);
+        fadeIn.setAutoReverse(false);
+        fadeIn.setInterpolator(Interpolator.LINEAR);
+        fadeIn.setOnFinished((ActionEvent ae) -> {
+            PlaybackTelemetry.getInstance().recordFade(prepared.getProfileName(), transition.getStartTime(),
+                    (long) prepared.getMediaPlayer().getCurrentTime().toMillis());
+        });
+        
+        FadeTransition fadeOut = new FadeTransition(Duration.millis(1250), node);
+        fadeOut.setFromValue(1);
+        fadeOut.setToValue(0);
+        fadeOut.setCycleCount(1);
+        fadeOut.setAutoReverse(false);
+        fadeOut.setInterpolator(Interpolator.LINEAR);
+        fadeOut.setOnFinished((ActionEvent ae) -> {
+            theatreAnchorPane.getChildren().remove(node);
+            if(player != null){
+                MediaPlayerCache.rewind(player, seekTime);
+            }
         });
-        videoTransitionCounter = 0;
+        prepared.getAnimations().add(fadeIn);
+        prepared.getAnimations().add(fadeOut);
+        
+        prepared.getScheduler().addInterval(()->{
+            fadeOut.stop();
+            if(node.getParent() != theatreAnchorPane){
+                theatreAnchorPane.getChildren().add(node);
+            }
+            fadeIn.playFromStart();
+            if(player != null){
+                player.play();
+            }
+        }, ()->{
+            fadeIn.stop();
+            fadeOut.playFromStart();
+        }, transition.getStartTime(), transition.getStopTime());
     }
     
-    //Stop all players and remove all objects from scene
-    //Clear all objects out of list
+    //Stop all overlay players and remove all overlay objects of the playing profile from scene
     public void deleteVideoMarkers(){
         try{
-            audioObjects.forEach((key,tempPlayer)->{
-                MediaPlayer.Status status = tempPlayer.getStatus();
-                if (status != MediaPlayer.Status.STOPPED  || status != MediaPlayer.Status.HALTED){
-                   tempPlayer.stop();
-                }
-                tempPlayer.dispose();
-            });
-            videoObjects.forEach((key,tempView)->{
-                MediaPlayer.Status status = tempView.getMediaPlayer().getStatus();
-                if (status != MediaPlayer.Status.STOPPED  || status != MediaPlayer.Status.HALTED || status != MediaPlayer.Status.PAUSED){
-                   tempView.getMediaPlayer().stop();
-                }
-                tempView.getMediaPlayer().dispose();
-            });
-            theatreAnchorPane.getChildren().removeAll(videoObjects.values());
-            theatreAnchorPane.getChildren().removeAll(imageObjects.values());
-            theatreAnchorPane.getChildren().removeAll(textObjects.values());
-            videoObjects.clear();
-            audioObjects.clear();
-            imageObjects.clear();
-            textObjects.clear();
-            
-            videoMarkers.clear();
+            if(playingProfile != null){
+                playingProfile.clearOverlays(theatreAnchorPane);
+            }
         }catch(Exception e){e.printStackTrace();}
     }
     
-    //Used for displaying countdown timer to user before video plays
-    private class StartStandby implements ActionListener {
-        @Override
-        public void actionPerformed(java.awt.event.ActionEvent ae) {
-            setStandbyCounter();
-            switch(getStandbyCounter()){
-                case 0:
-                    Platform.runLater(()->{
-                        timerTextProperty().set(" ");
-                        ProfileModel.getInstance().clearSceneProperties();
-                        nextProfile();
-                        commercialBtnText.setValue("Stop Commercial Break");
-                        commercialBtnStyle.setValue("-fx-background-color: #882222;");
-                        getStandbyTimer().stop();
-                    });
-                    break;
-                case 1:
-                case 2:
-                case 3:
-                case 4:
-                case 5:
-                    Platform.runLater(()->{
-                        timerTextProperty().set(timeConversion(getStandbyCounter()));
-                    });
-                    break;
-            }
+    //Used for displaying countdown timer to user before video plays, runs on the FX thread
+    private void standbyTick(int remaining){
+        if(remaining == 0){
+            timerTextProperty().set(" ");
+            ProfileModel.getInstance().clearSceneProperties();
+            nextProfile();
+            commercialBtnText.setValue("Stop Commercial Break");
+            commercialBtnStyle.setValue("-fx-background-color: #882222;");
+        } else {
+            timerTextProperty().set(timeConversion(remaining));
         }
     }
     
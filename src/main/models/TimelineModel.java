@@ -0,0 +1,175 @@
+/*************************************************************************************************************************
+ * Source Code Form License Notice
+ *************************************************************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ **************************************************************************************************************************/
+/*************************************************************************************************************************
+ *   Author: Jarek Thomas
+ *
+ *   Transition Timeline Index
+ *
+ *   Every transition of the profile in parallel arrays sorted by start time, used by the edit view to draw only the
+ *   transitions inside the visible time window. The window is looked up in an IntervalIndex so a long transition early
+ *   in the video does not make every query walk the transitions between it and the window
+ *
+ *   The transition maps are watched and any change marks the index stale, it is rebuilt once on the next query so a
+ *   profile load with thousands of puts only sorts once. Types are ordered like BinaryProfile.Section, one track each
+ ***************************************************************************************************************************/
+
+package main.models;
+
+import java.util.Arrays;
+import java.util.Map;
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.SimpleIntegerProperty;
+import javafx.collections.MapChangeListener;
+
+public class TimelineModel {
+    private final static TimelineModel INSTANCE = new TimelineModel();
+
+    //Stop of transitions that stay until the end of the video
+    public static final int END = Integer.MAX_VALUE;
+    private static final BinaryProfile.Section[] TYPES = BinaryProfile.Section.values();
+
+    private String[] keys = new String[0];
+    private int[] starts = new int[0];
+    private int[] stops = new int[0];
+    private byte[] types = new byte[0];
+    private int size;
+    //Ids are indexes into the arrays above
+    private final IntervalIndex index = new IntervalIndex();
+    private int[] found = new int[0];
+    private boolean stale = true;
+    //Incremented on every change of a transition map, used to redraw
+    private final SimpleIntegerProperty revision = new SimpleIntegerProperty();
+
+    private TimelineModel(){
+        MapChangeListener<String, Transition> listener = change -> invalidate();
+        TextTransitionModel.getInstance().getTextMarkers().addListener(listener);
+        ImageTransitionModel.getInstance().getImageMarkers().addListener(listener);
+        FFTransitionModel.getInstance().getFFMarkers().addListener(listener);
+        CutTransitionModel.getInstance().getCutMarkers().addListener(listener);
+        AudioTransitionModel.getInstance().getAudioMarkers().addListener(listener);
+        VideoTransitionModel.getInstance().getVideoMarkers().addListener(listener);
+    }
+    public static TimelineModel getInstance(){
+        return INSTANCE;
+    }
+
+    public ReadOnlyIntegerProperty revisionProperty(){
+        return revision;
+    }
+
+    public void invalidate(){
+        stale = true;
+        revision.set(revision.get() + 1);
+    }
+
+    public int size(){
+        update();
+        return this.size;
+    }
+
+    public String getKey(int index){
+        return keys[index];
+    }
+    public int getStart(int index){
+        return starts[index];
+    }
+    //Same as the start for Cut transitions, END when the transition has no stop time
+    public int getStop(int index){
+        return stops[index];
+    }
+    public BinaryProfile.Section getType(int index){
+        return TYPES[types[index]];
+    }
+
+    //Writes the indexes of the transitions overlapping [from, to] into result in start order, result holds size() entries
+    public int query(long from, long to, int[] result){
+        update();
+        return index.query(from, to, result);
+    }
+
+    //Key of the transition of type at time with tolerance (ms) on both sides, the latest starting one wins like it is drawn
+    public String find(BinaryProfile.Section type, long time, long tolerance){
+        //Rebuilt first, the buffer is resized with the index
+        update();
+        int count = index.query(time - tolerance, time + tolerance, found);
+        for(int i = count - 1; i >= 0; i--){
+            if(types[found[i]] == type.ordinal()){
+                return keys[found[i]];
+            }
+        }
+        return null;
+    }
+
+    private void update(){
+        if(!stale){
+            return;
+        }
+        stale = false;
+        int count = TextTransitionModel.getInstance().getTextMarkersMap().size()
+                + ImageTransitionModel.getInstance().getImageMarkersMap().size()
+                + FFTransitionModel.getInstance().getFFMarkersMap().size()
+                + CutTransitionModel.getInstance().getCutMarkersMap().size()
+                + AudioTransitionModel.getInstance().getAudioMarkersMap().size()
+                + VideoTransitionModel.getInstance().getVideoMarkersMap().size();
+        String[] newKeys = new String[count];
+        int[] newStarts = new int[count];
+        int[] newStops = new int[count];
+        byte[] newTypes = new byte[count];
+        size = 0;
+        size = collect(TextTransitionModel.getInstance().getTextMarkersMap(), BinaryProfile.Section.TEXT, newKeys, newStarts, newStops, newTypes, size);
+        size = collect(ImageTransitionModel.getInstance().getImageMarkersMap(), BinaryProfile.Section.IMAGE, newKeys, newStarts, newStops, newTypes, size);
+        size = collect(FFTransitionModel.getInstance().getFFMarkersMap(), BinaryProfile.Section.FF, newKeys, newStarts, newStops, newTypes, size);
+        size = collect(CutTransitionModel.getInstance().getCutMarkersMap(), BinaryProfile.Section.CUT, newKeys, newStarts, newStops, newTypes, size);
+        size = collect(AudioTransitionModel.getInstance().getAudioMarkersMap(), BinaryProfile.Section.AUDIO, newKeys, newStarts, newStops, newTypes, size);
+        size = collect(VideoTransitionModel.getInstance().getVideoMarkersMap(), BinaryProfile.Section.VIDEO, newKeys, newStarts, newStops, newTypes, size);
+
+        //Start in the high bits and the collected position in the low bits sorts both at once
+        long[] sorted = new long[size];
+        for(int i = 0; i < size; i++){
+            sorted[i] = ((long) newStarts[i] << 32) | i;
+        }
+        Arrays.sort(sorted);
+        keys = new String[size];
+        starts = new int[size];
+        stops = new int[size];
+        types = new byte[size];
+        found = new int[size];
+        index.clear();
+        for(int i = 0; i < size; i++){
+            int from = (int) sorted[i];
+            keys[i] = newKeys[from];
+            starts[i] = newStarts[from];
+            stops[i] = newStops[from];
+            types[i] = newTypes[from];
+            //Stops are inclusive here, a Cut is a single point
+            index.add(starts[i], stops[i] == END ? Long.MAX_VALUE : stops[i] + 1L, i);
+        }
+        index.build();
+    }
+
+    //Transitions without a start time are never shown and are left out
+    private int collect(Map<String, ? extends Transition> markers, BinaryProfile.Section type,
+            String[] keys, int[] starts, int[] stops, byte[] types, int size){
+        for(Map.Entry<String, ? extends Transition> marker : markers.entrySet()){
+            Transition transition = marker.getValue();
+            if(!transition.hasStartTime()){
+                continue;
+            }
+            keys[size] = marker.getKey();
+            starts[size] = transition.getStartTime();
+            if(type == BinaryProfile.Section.CUT){
+                //The stop time of a Cut is where it jumps to
+                stops[size] = transition.getStartTime();
+            } else {
+                stops[size] = transition.hasStopTime() ? Math.max(transition.getStartTime(), transition.getStopTime()) : END;
+            }
+            types[size] = (byte) type.ordinal();
+            size++;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,52 @@
+/*************************************************************************************************************************
+ * Source Code Form License Notice
+ *************************************************************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ **************************************************************************************************************************/
+/*************************************************************************************************************************
+ *   Author: Jarek Thomas
+ *
+ *   Base for the typed, immutable transition records
+ *
+ *   Every transition is parsed once from its transition string when a profile loads and shared by the
+ *   preview, theatre and persistence paths. Times are stored in ms with NONE for "_DEFAULT" / "*"
+ ***************************************************************************************************************************/
+
+package main.models;
+
+public abstract class Transition {
+    public static final int NONE = -1;
+
+    private final int startTime, stopTime;
+
+    protected Transition(int startTime, int stopTime){
+        this.startTime = startTime;
+        this.stopTime = stopTime;
+    }
+
+    public final int getStartTime(){
+        return this.startTime;
+    }
+    public final int getStopTime(){
+        return this.stopTime;
+    }
+
+    public final boolean hasStartTime(){
+        return this.startTime != NONE;
+    }
+    public final boolean hasStopTime(){
+        return this.stopTime != NONE;
+    }
+
+    //True for transitions created from TRANSITION_STRING that the user hasn't edited yet
+    public abstract boolean isDefault();
+
+    //Legacy comma separated form stored in ProfileWrapper XML
+    public abstract String toTransitionString();
+
+    @Override
+    public String toString(){
+        return toTransitionString();
+    }
+}
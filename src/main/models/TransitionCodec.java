@@ -0,0 +1,133 @@
+/*************************************************************************************************************************
+ * Source Code Form License Notice
+ *************************************************************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ **************************************************************************************************************************/
+/*************************************************************************************************************************
+ *   Author: Jarek Thomas
+ *
+ *   Compatibility codec between the comma separated transition strings in ProfileWrapper XML and the typed records
+ *
+ *   File paths are read from the right so paths containing commas survive, and text messages are read
+ *   with a split limit so commas and trailing empty fields in the message are kept
+ ***************************************************************************************************************************/
+
+package main.models;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+public final class TransitionCodec {
+
+    public static final String DEFAULT_TOKEN = "_DEFAULT";
+    public static final String OPEN_TOKEN = "*";
+
+    private TransitionCodec(){
+
+    }
+
+    //Splits into exactly fieldCount fields, the last field keeps any remaining commas
+    public static String[] splitLeading(String value, int fieldCount){
+        String[] tempArray = value.split(",", fieldCount);
+        if(tempArray.length != fieldCount){
+            throw new IllegalArgumentException("Malformed transition string: " + value);
+        }
+        return tempArray;
+    }
+
+    //Splits into exactly trailingCount + 1 fields, the first field keeps any remaining commas
+    public static String[] splitTrailing(String value, int trailingCount){
+        String[] tempArray = new String[trailingCount + 1];
+        int end = value.length();
+        for(int i = trailingCount; i > 0; i--){
+            int comma = value.lastIndexOf(',', end - 1);
+            if(comma < 0){
+                throw new IllegalArgumentException("Malformed transition string: " + value);
+            }
+            tempArray[i] = value.substring(comma + 1, end);
+            end = comma;
+        }
+        tempArray[0] = value.substring(0, end);
+        return tempArray;
+    }
+
+    //"_DEFAULT" and "*" both map to Transition.NONE
+    public static int parseTime(String value){
+        String tempString = value.trim();
+        if(tempString.equals(DEFAULT_TOKEN) || tempString.equals(OPEN_TOKEN) || tempString.isEmpty()){
+            return Transition.NONE;
+        }
+        return (int) Double.parseDouble(tempString);
+    }
+
+    //The edit view uses "0" as well as "*" for a transition without a stop time
+    public static int parseStopTimestamp(String value){
+        return value.trim().equals("0") ? Transition.NONE : parseTime(value);
+    }
+
+    public static String formatStartTime(int startTime){
+        return startTime == Transition.NONE ? DEFAULT_TOKEN : Integer.toString(startTime);
+    }
+
+    public static String formatStopTime(int stopTime){
+        return stopTime == Transition.NONE ? OPEN_TOKEN : Integer.toString(stopTime);
+    }
+
+    //Positions are saved as ints but older profiles may contain decimals
+    public static int parseInt(String value){
+        return (int) parseDouble(value);
+    }
+
+    //Empty fields from the size text fields are treated as 0
+    public static double parseDouble(String value){
+        String tempString = value.trim();
+        if(tempString.isEmpty()){
+            return 0;
+        }
+        return Double.parseDouble(tempString);
+    }
+
+    //Whole numbers are written without a decimal so the size text fields show what the user typed
+    public static String formatSize(double value){
+        if(value == Math.rint(value) && !Double.isInfinite(value)){
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    //Decode one transition map from ProfileWrapper, malformed entries are skipped
+    public static <T extends Transition> Map<String, T> decode(Map<String, String> values, Function<String, T> parser){
+        return decode(values, parser, null);
+    }
+
+    //Same as decode but collects a message for every skipped entry when errors is not null, otherwise the trace is printed
+    public static <T extends Transition> Map<String, T> decode(Map<String, String> values, Function<String, T> parser, List<String> errors){
+        Map<String, T> transitions = new HashMap<>();
+        if(values != null){
+            values.forEach((key, value) -> {
+                try{
+                    transitions.put(key, parser.apply(value));
+                }catch(Exception e){
+                    if(errors != null){
+                        errors.add("Malformed transition " + key + ": " + value);
+                    } else {
+                        e.printStackTrace();
+                    }
+                }
+            });
+        }
+        return transitions;
+    }
+
+    //Encode one transition map back to the string form stored in ProfileWrapper
+    public static Map<String, String> encode(Map<String, ? extends Transition> transitions){
+        Map<String, String> values = new HashMap<>();
+        transitions.forEach((key, value) -> {
+            values.put(key, value.toTransitionString());
+        });
+        return values;
+    }
+}
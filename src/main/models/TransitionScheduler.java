@@ -0,0 +1,392 @@
+/*************************************************************************************************************************
+ * Source Code Form License Notice
+ *************************************************************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ **************************************************************************************************************************/
+/*************************************************************************************************************************
+ *   Author: Jarek Thomas
+ *
+ *   Transition Scheduler
+ *
+ *   Replaces Media markers for transition timing. A profile's actions are compiled into parallel arrays of timestamps
+ *   and action ids sorted by time. Every action is a Runnable built when the profile is loaded with its nodes,
+ *   players and animations already resolved, so dispatching is an index into the action table. An AnimationTimer
+ *   reads the player position on every pulse and dispatches the due actions from a cursor. A seek (Cut transitions,
+ *   time slider) or a rate change moves the cursor with a binary search so actions are never replayed or dispatched
+ *   out of order. Actions run on the FX thread
+ *
+ *   Cuts and the preview controls seek through seek(Duration) so the jump they cause is known to be a seek. Any other
+ *   jump forward during playback of at most MAX_CATCH_UP is the player catching up after a stall, the actions it
+ *   skipped are still dispatched in order so no FF or Cut is lost and the overlays are reconciled once at the end
+ *
+ *   Overlays are registered as intervals with an Add and a Remove action. On a seek the overlays active at the new
+ *   position are looked up in an IntervalIndex and the scene is reconciled by dispatching the Remove actions of the
+ *   overlays that should be gone and the Add actions of the ones that are missing
+ *
+ *   Preview edits replace the actions of a single transition while running, removed actions are disabled in place
+ *   and recompile() sorts in the new ones and reconciles the overlays at the current position
+ ***************************************************************************************************************************/
+
+package main.models;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import javafx.animation.AnimationTimer;
+import javafx.beans.InvalidationListener;
+import javafx.scene.media.MediaPlayer;
+import javafx.util.Duration;
+
+public class TransitionScheduler {
+
+    //Position changes further than this from the expected playback position are treated as a seek
+    private static final long SEEK_TOLERANCE = 250;
+    //Longest unexpected jump forward still treated as a stall, a longer one is a seek from outside the scheduler
+    private static final long MAX_CATCH_UP = 2000;
+    //Time of the Remove action of overlays without a stop time, never reached
+    private static final long NEVER = Integer.MAX_VALUE;
+
+    //Notified after every dispatched action, used for playback telemetry
+    public interface DispatchListener {
+        void onDispatch(int action, long authoredTime, long position, long pulseNanos, long appliedNanos, boolean seeking);
+    }
+
+    //Action ids are the insertion order and index the action table
+    private Runnable[] table = new Runnable[16];
+    private long[] authoredTimes = new long[16];
+    private long[] times = new long[16];
+    private int[] actions = new int[16];
+    private boolean[] disabled = new boolean[16];
+    //Interval of each action, id + 1 for Add actions, -(id + 1) for Remove actions and 0 for others
+    private int[] actionIntervals = new int[16];
+    private int size;
+    private boolean compiled;
+
+    private final IntervalIndex intervals = new IntervalIndex();
+    private int[] intervalAdds = new int[16];
+    private int[] intervalRemoves = new int[16];
+    private int[] queryBuffer = new int[0];
+    private int intervalCount;
+    private final BitSet active = new BitSet();
+    private final BitSet target = new BitSet();
+    private boolean seeking;
+    private int current = -1;
+    private DispatchListener listener;
+    private long pulseNanos;
+
+    private int cursor;
+    private long lastPosition, lastNanos;
+    //Target of the last seek(Duration) until the player reports the jump, -1 when none is pending
+    private long pendingSeek = -1;
+    private MediaPlayer mediaPlayer;
+    private final InvalidationListener rateListener = observable -> resync();
+    private final AnimationTimer pulse = new AnimationTimer(){
+        @Override
+        public void handle(long now){
+            tick(now);
+        }
+    };
+
+    //Registers an action at time (ms) and returns its id, unset times are ignored and return -1
+    public int addAction(Runnable action, long time){
+        if(time == Transition.NONE){
+            return -1;
+        }
+        if(size == times.length){
+            table = Arrays.copyOf(table, size * 2);
+            authoredTimes = Arrays.copyOf(authoredTimes, size * 2);
+            times = Arrays.copyOf(times, size * 2);
+            actions = Arrays.copyOf(actions, size * 2);
+            disabled = Arrays.copyOf(disabled, size * 2);
+            actionIntervals = Arrays.copyOf(actionIntervals, size * 2);
+        }
+        times[size] = time;
+        actions[size] = size;
+        actionIntervals[size] = 0;
+        table[size] = action;
+        authoredTimes[size] = time;
+        compiled = false;
+        return size++;
+    }
+
+    //Registers an overlay active over [start, stop) with the actions that show and hide it and returns the show id
+    //Overlays without a start time are never shown and only get their hide action
+    public int addInterval(Runnable show, Runnable hide, long start, long stop){
+        if(start == Transition.NONE){
+            return addAction(hide, stop);
+        }
+        if(intervalCount == intervalAdds.length){
+            intervalAdds = Arrays.copyOf(intervalAdds, intervalCount * 2);
+            intervalRemoves = Arrays.copyOf(intervalRemoves, intervalCount * 2);
+        }
+        int add = addAction(show, start);
+        int remove = addAction(hide, stop == Transition.NONE ? NEVER : stop);
+        actionIntervals[add] = intervalCount + 1;
+        actionIntervals[remove] = -(intervalCount + 1);
+        intervalAdds[intervalCount] = add;
+        intervalRemoves[intervalCount] = remove;
+        intervals.add(start, stop == Transition.NONE ? Long.MAX_VALUE : stop, intervalCount);
+        intervalCount++;
+        return add;
+    }
+
+    //Drops an action for good, removing either action of an overlay drops both and its interval
+    //The slots stay in the arrays until clear() so ids and the sorted order stay valid
+    public void removeAction(int action){
+        if(action < 0){
+            return;
+        }
+        int interval = actionIntervals[action];
+        if(interval != 0){
+            int id = Math.abs(interval) - 1;
+            active.clear(id);
+            drop(intervalAdds[id]);
+            drop(intervalRemoves[id]);
+        } else {
+            drop(action);
+        }
+    }
+
+    private void drop(int action){
+        disabled[action] = true;
+        table[action] = null;
+    }
+
+    public void setDispatchListener(DispatchListener listener){
+        this.listener = listener;
+    }
+
+    //True while actions are dispatched to reconcile overlays after a seek
+    public boolean isSeeking(){
+        return this.seeking;
+    }
+
+    public int size(){
+        return this.size;
+    }
+
+    //Disabled actions stay in place but are never dispatched again
+    public void setEnabled(int action, boolean enabled){
+        disabled[action] = !enabled;
+    }
+
+    //Called from an action to keep it from being dispatched again
+    public void disableCurrent(){
+        if(current >= 0){
+            disabled[current] = true;
+        }
+    }
+
+    //Sorts by time, actions registered at the same time keep their registration order
+    public void compile(){
+        if(compiled){
+            return;
+        }
+        long[] sorted = new long[size];
+        for(int i = 0; i < size; i++){
+            //Time in the high bits and the id in the low bits sorts both at once
+            sorted[i] = (times[i] << 32) | actions[i];
+        }
+        Arrays.sort(sorted);
+        for(int i = 0; i < size; i++){
+            times[i] = sorted[i] >>> 32;
+            actions[i] = (int) sorted[i];
+        }
+        intervals.build();
+        queryBuffer = new int[intervalCount];
+        compiled = true;
+    }
+
+    //Sorts in actions added while running and reconciles the overlays at the current position
+    public void recompile(){
+        compile();
+        if(mediaPlayer != null){
+            lastPosition = (long) mediaPlayer.getCurrentTime().toMillis();
+            lastNanos = 0;
+            seek(lastPosition);
+        }
+    }
+
+    //Starts dispatching actions for the player, actions before the current position are skipped
+    public void start(MediaPlayer mediaPlayer){
+        stop();
+        compile();
+        this.mediaPlayer = mediaPlayer;
+        mediaPlayer.rateProperty().addListener(rateListener);
+        mediaPlayer.currentRateProperty().addListener(rateListener);
+        lastPosition = (long) mediaPlayer.getCurrentTime().toMillis();
+        cursor = lowerBound(lastPosition);
+        lastNanos = 0;
+        active.clear();
+        pulse.start();
+    }
+
+    public void stop(){
+        pulse.stop();
+        if(mediaPlayer != null){
+            mediaPlayer.rateProperty().removeListener(rateListener);
+            mediaPlayer.currentRateProperty().removeListener(rateListener);
+        }
+        mediaPlayer = null;
+        pendingSeek = -1;
+    }
+
+    public boolean isRunning(){
+        return this.mediaPlayer != null;
+    }
+
+    public void clear(){
+        stop();
+        Arrays.fill(table, 0, size, null);
+        Arrays.fill(disabled, 0, size, false);
+        size = 0;
+        cursor = 0;
+        intervals.clear();
+        intervalCount = 0;
+        active.clear();
+        compiled = false;
+        listener = null;
+    }
+
+    //The next pulse measures playback from scratch instead of comparing against the old rate
+    public void resync(){
+        lastNanos = 0;
+    }
+
+    private void tick(long now){
+        pulseNanos = now;
+        long position = (long) mediaPlayer.getCurrentTime().toMillis();
+        boolean playing = mediaPlayer.getStatus() == MediaPlayer.Status.PLAYING;
+        boolean seeked;
+        if(!playing){
+            //Any movement while paused is the time slider or a seek
+            seeked = position != lastPosition;
+        } else if(lastNanos == 0){
+            seeked = position < lastPosition || position > lastPosition + SEEK_TOLERANCE;
+        } else {
+            long expected = lastPosition + (long) ((now - lastNanos) / 1000000.0 * mediaPlayer.getCurrentRate());
+            seeked = position < lastPosition || Math.abs(position - expected) > SEEK_TOLERANCE;
+        }
+        //Only a jump the scheduler did not ask for and no longer than a stall is caught up
+        boolean requested = pendingSeek >= 0 && (seeked || Math.abs(position - pendingSeek) <= SEEK_TOLERANCE);
+        if(requested){
+            pendingSeek = -1;
+        }
+        boolean stall = playing && !requested && position > lastPosition && position - lastPosition <= MAX_CATCH_UP;
+        lastPosition = position;
+        lastNanos = playing ? now : 0;
+        if(seeked && stall){
+            catchUp(position);
+        } else if(seeked){
+            seek(position);
+        }
+        if(!playing){
+            return;
+        }
+
+        //A Cut seeks from inside its action, the rest is dispatched once the player reports the new position
+        while(mediaPlayer != null && pendingSeek < 0 && cursor < size && times[cursor] <= position){
+            int action = actions[cursor++];
+            if(!disabled[action]){
+                dispatch(action);
+            }
+        }
+    }
+
+    private void dispatch(int action){
+        int interval = actionIntervals[action];
+        if(interval > 0){
+            active.set(interval - 1);
+        } else if(interval < 0){
+            active.clear(-interval - 1);
+        }
+        current = action;
+        try{
+            table[action].run();
+        }finally{
+            current = -1;
+        }
+        if(listener != null){
+            listener.onDispatch(action, authoredTimes[action], lastPosition, pulseNanos, System.nanoTime(), seeking);
+        }
+    }
+
+    //Dispatches the actions skipped by a jump forward, overlays that would only flash are reconciled instead
+    private void catchUp(long position){
+        int end = upperBound(position);
+        while(mediaPlayer != null && cursor < end){
+            int action = actions[cursor++];
+            if(!disabled[action] && actionIntervals[action] == 0){
+                dispatch(action);
+                //A Cut in the skipped part seeked and reconciled on its own
+                if(pendingSeek >= 0){
+                    return;
+                }
+            }
+        }
+        cursor = Math.max(cursor, end);
+        reconcile(position);
+    }
+
+    //Seeks the player, the actions between the old and the new position are skipped and the overlays reconciled
+    public void seek(Duration time){
+        if(mediaPlayer == null){
+            return;
+        }
+        pendingSeek = (long) time.toMillis();
+        mediaPlayer.seek(time);
+        seek(pendingSeek);
+    }
+
+    //Moves the cursor past position and makes the active overlays match the intervals containing it
+    private void seek(long position){
+        cursor = upperBound(position);
+        reconcile(position);
+    }
+
+    private void reconcile(long position){
+        if(intervalCount == 0 || mediaPlayer == null){
+            return;
+        }
+        target.clear();
+        int count = intervals.query(position, queryBuffer);
+        for(int i = 0; i < count; i++){
+            target.set(queryBuffer[i]);
+        }
+        seeking = true;
+        try{
+            for(int id = active.nextSetBit(0); id >= 0 && mediaPlayer != null; id = active.nextSetBit(id + 1)){
+                if(!target.get(id)){
+                    dispatch(intervalRemoves[id]);
+                }
+            }
+            for(int id = target.nextSetBit(0); id >= 0 && mediaPlayer != null; id = target.nextSetBit(id + 1)){
+                //Removed overlays stay in the index but are never shown again
+                if(!active.get(id) && !disabled[intervalAdds[id]]){
+                    dispatch(intervalAdds[id]);
+                }
+            }
+        }finally{
+            seeking = false;
+        }
+    }
+
+    //Index of the first action after time
+    private int upperBound(long time){
+        return lowerBound(time + 1);
+    }
+
+    //Index of the first action at or after time
+    private int lowerBound(long time){
+        int low = 0, high = size;
+        while(low < high){
+            int mid = (low + high) >>> 1;
+            if(times[mid] < time){
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,95 @@
+/*************************************************************************************************************************
+ * Source Code Form License Notice
+ *************************************************************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ **************************************************************************************************************************/
+/*************************************************************************************************************************
+ *   Author: Jarek Thomas
+ *
+ *   Immutable Video Transition
+ *
+ *   Transition String Format:  VideoPath - StartTime - StopTime - PlayRate - Volume - xPosition - yPosition - Width - Height - SeekTime - AspectRatioBoolean
+ ***************************************************************************************************************************/
+
+package main.models;
+
+public final class VideoTransition extends Transition {
+
+    private final String videoPath;
+    private final double playRate, volume, fitWidth, fitHeight, seekTime;
+    private final int xPosition, yPosition;
+    private final boolean preserveRatio;
+
+    public VideoTransition(String videoPath, int startTime, int stopTime, double playRate, double volume, int xPosition, int yPosition,
+                           double fitWidth, double fitHeight, double seekTime, boolean preserveRatio){
+        super(startTime, stopTime);
+        this.videoPath = videoPath;
+        this.playRate = playRate;
+        this.volume = volume;
+        this.xPosition = xPosition;
+        this.yPosition = yPosition;
+        this.fitWidth = fitWidth;
+        this.fitHeight = fitHeight;
+        this.seekTime = seekTime;
+        this.preserveRatio = preserveRatio;
+    }
+
+    //File path is read from the right so it may contain commas
+    public static VideoTransition parse(String value){
+        String[] tempArray = TransitionCodec.splitTrailing(value, 10);
+        return new VideoTransition(tempArray[0],
+                TransitionCodec.parseTime(tempArray[1]),
+                TransitionCodec.parseTime(tempArray[2]),
+                TransitionCodec.parseDouble(tempArray[3]),
+                TransitionCodec.parseDouble(tempArray[4]),
+                TransitionCodec.parseInt(tempArray[5]),
+                TransitionCodec.parseInt(tempArray[6]),
+                TransitionCodec.parseDouble(tempArray[7]),
+                TransitionCodec.parseDouble(tempArray[8]),
+                TransitionCodec.parseDouble(tempArray[9]),
+                Boolean.parseBoolean(tempArray[10].trim()));
+    }
+
+    public String getVideoPath(){
+        return this.videoPath;
+    }
+    public double getPlayRate(){
+        return this.playRate;
+    }
+    public double getVolume(){
+        return this.volume;
+    }
+    public int getXPosition(){
+        return this.xPosition;
+    }
+    public int getYPosition(){
+        return this.yPosition;
+    }
+    public double getFitWidth(){
+        return this.fitWidth;
+    }
+    public double getFitHeight(){
+        return this.fitHeight;
+    }
+    public double getSeekTime(){
+        return this.seekTime;
+    }
+    public boolean getPreserveRatio(){
+        return this.preserveRatio;
+    }
+
+    @Override
+    public boolean isDefault(){
+        return this.videoPath.equals(TransitionCodec.DEFAULT_TOKEN);
+    }
+
+    @Override
+    public String toTransitionString(){
+        return videoPath + ","
+                + TransitionCodec.formatStartTime(getStartTime()) + "," + TransitionCodec.formatStopTime(getStopTime()) + ","
+                + playRate + "," + volume + "," + xPosition + "," + yPosition + ","
+                + TransitionCodec.formatSize(fitWidth) + "," + TransitionCodec.formatSize(fitHeight) + ","
+                + seekTime + "," + preserveRatio;
+    }
+}
@@ -44,8 +44,8 @@ public class VideoTransitionModel {
     private final SimpleIntegerProperty xPosition = new SimpleIntegerProperty();
     private final SimpleIntegerProperty yPosition = new SimpleIntegerProperty();
     
-    private final ObservableMap<String, String> videoMarkersObMap;
-    private final Map<String, String> videoMarkersHashMap = new HashMap<>();
+    private final ObservableMap<String, VideoTransition> videoMarkersObMap;
+    private final Map<String, VideoTransition> videoMarkersHashMap = new HashMap<>();
     private String videoPath = "";
     
     private DecimalFormat df = new DecimalFormat("#.00");
@@ -59,11 +59,11 @@ public class VideoTransitionModel {
         return INSTANCE;
     }
     
-    public final Map getVideoMarkersMap(){
+    public final Map<String, VideoTransition> getVideoMarkersMap(){
         return this.videoMarkersHashMap;
     }
     
-    public final ObservableMap getVideoMarkers(){
+    public final ObservableMap<String, VideoTransition> getVideoMarkers(){
         return this.videoMarkersObMap;
     }
     
@@ -173,61 +173,51 @@ public class VideoTransitionModel {
     public void createDefaultTransition(){
         String temp = getDefaultTransitionKey();
         ProfileModel.getInstance().getMarkerEventsList().add(temp);
-        getVideoMarkers().put(temp, TRANSITION_STRING);
+        getVideoMarkers().put(temp, VideoTransition.parse(TRANSITION_STRING));
     }
     
     public void editTransitionString(){
         
-        String keyString = "";
-        String valueString = "";
-
-        keyString += PreviewModel.getInstance().getCurrentTransition();
-        
-        valueString += getVideoPath() + ",";
-        
-        valueString += PreviewModel.getInstance().getStartTimestamp() + ",";
-        
-        if(PreviewModel.getInstance().getStopTimestamp().equals("*") || PreviewModel.getInstance().getStopTimestamp().equals("0")){
-            valueString += "*,";
-        } else {
-            valueString += PreviewModel.getInstance().getStopTimestamp() + ",";
-        }
+        String keyString = PreviewModel.getInstance().getCurrentTransition();
         
-        valueString += getPlayRate() + ",";
-        valueString += getVolume() + ",";
-        valueString += getXPosition() + ",";
-        valueString += getYPosition() + ",";
-        valueString += getFitWidth() + ",";
-        valueString += getFitHeight() + ",";
-        valueString += getSeekTime() + ",";
-        valueString += PreviewModel.getInstance().getVideoLinkBtnActive();
+        VideoTransition transition = new VideoTransition(
+                getVideoPath(),
+                TransitionCodec.parseTime(PreviewModel.getInstance().getStartTimestamp()),
+                TransitionCodec.parseStopTimestamp(PreviewModel.getInstance().getStopTimestamp()),
+                getPlayRate(),
+                getVolume(),
+                getXPosition(),
+                getYPosition(),
+                TransitionCodec.parseDouble(getFitWidth()),
+                TransitionCodec.parseDouble(getFitHeight()),
+                getSeekTime(),
+                PreviewModel.getInstance().getVideoLinkBtnActive());
         
-        getVideoMarkers().put(keyString, valueString);
+        getVideoMarkers().put(keyString, transition);
         
         Context.getInstance().setDidSave(false);
     }
     
     public void loadTransitionString(String keyString){
         
-        String tempString = (String)getVideoMarkers().get(keyString);
-        String[] tempArray = tempString.split(",");
+        VideoTransition transition = getVideoMarkers().get(keyString);
         
-        setVideoPath(tempArray[0]);
-        setPlayRate(Double.parseDouble(tempArray[3]));
-        setVolume(Double.parseDouble(tempArray[4]));
-        setXPosition(Integer.parseInt(tempArray[5])); 
-        setYPosition(Integer.parseInt(tempArray[6]));
-        setFitWidth(tempArray[7]);
-        setFitHeight(tempArray[8]);
-        setSeekTime(Double.parseDouble(tempArray[9]));
-        PreviewModel.getInstance().setVideoLinkBtnActive(Boolean.parseBoolean(tempArray[10]));
+        setVideoPath(transition.getVideoPath());
+        setPlayRate(transition.getPlayRate());
+        setVolume(transition.getVolume());
+        setXPosition(transition.getXPosition()); 
+        setYPosition(transition.getYPosition());
+        setFitWidth(TransitionCodec.formatSize(transition.getFitWidth()));
+        setFitHeight(TransitionCodec.formatSize(transition.getFitHeight()));
+        setSeekTime(transition.getSeekTime());
+        PreviewModel.getInstance().setVideoLinkBtnActive(transition.getPreserveRatio());
 
-        if(tempArray[0].equals("_DEFAULT")){
+        if(transition.isDefault()){
             PreviewModel.getInstance().setStartTimestamp((int)PreviewModel.getInstance().getMediaPlayer().getCurrentTime().toMillis() + "");
         } else {
-            PreviewModel.getInstance().setStartTimestamp(tempArray[1]);
+            PreviewModel.getInstance().setStartTimestamp(TransitionCodec.formatStartTime(transition.getStartTime()));
         }
         
-        PreviewModel.getInstance().setStopTimestamp(tempArray[2]);
+        PreviewModel.getInstance().setStopTimestamp(TransitionCodec.formatStopTime(transition.getStopTime()));
     }
 }
@@ -0,0 +1,453 @@
+/*************************************************************************************************************************
+ * Source Code Form License Notice
+ *************************************************************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ **************************************************************************************************************************/
+/*************************************************************************************************************************
+ *   Author: Jarek Thomas
+ *
+ *   Audio Waveform Overview (Profiles//Waveforms//<key>.peaks)
+ *
+ *   Each overlay audio file is decoded once on a background thread into a pyramid of min/max peaks. Level 0 holds one
+ *   peak per BASE_SAMPLES frames and every level above merges two peaks of the one below, so any zoom reads from the
+ *   level closest to its samples per pixel and touches at most three peaks per pixel. Files are named like the
+ *   filmstrips (see MediaCache), a file made from an older version of the audio is decoded again over it
+ *
+ *   Magic(int) - Version(short) - Modified(long) - BaseSamples(int) - SampleRate(float) - FrameCount(long)
+ *                - LevelCount(int) - Levels
+ *   Level:          PeakCount(int) - Min(short) Max(short)...
+ *
+ *   Decoding goes through javax.sound.sampled since JavaFX media does not expose samples. Videos and the formats it has
+ *   no decoder for (mp4, m4a, mp3 without an SPI on the classpath) get a loudness envelope instead: a hidden muted
+ *   MediaPlayer plays them at ENVELOPE_RATE and every audio spectrum update becomes one level 0 peak, the loudest band
+ *   mapped from ENVELOPE_THRESHOLD - 0 dB to 0 - 1 and drawn symmetric. Its sample rate is BASE_SAMPLES frames per
+ *   update so it is read and cached like decoded peaks. One envelope player runs at a time
+ ***************************************************************************************************************************/
+
+package main.models;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.SimpleIntegerProperty;
+import javafx.scene.media.AudioSpectrumListener;
+import javafx.scene.media.Media;
+import javafx.scene.media.MediaPlayer;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+public class WaveformModel {
+    private final static WaveformModel INSTANCE = new WaveformModel();
+
+    private static final String WAVEFORM_DIRECTORY = "Profiles//Waveforms//";
+    private static final int MAGIC = 0x42525746;
+    private static final short VERSION = 2;
+    //Audio frames per level 0 peak, about 6ms at 44.1kHz
+    public static final int BASE_SAMPLES = 256;
+    //Seconds of media per envelope peak
+    private static final double ENVELOPE_INTERVAL = 0.02;
+    private static final int ENVELOPE_BANDS = 32;
+    private static final int ENVELOPE_THRESHOLD = -60;
+    //Fastest rate MediaPlayer allows
+    private static final double ENVELOPE_RATE = 8.0;
+
+    private final Map<String, Waveform> waveforms = new ConcurrentHashMap<>();
+    //Paths queued, built or skipped this session so each file is only decoded once
+    private final Set<String> requested = ConcurrentHashMap.newKeySet();
+    private final SimpleIntegerProperty waveformsBuilt = new SimpleIntegerProperty();
+    //Decoding a long file takes seconds so it gets its own thread instead of holding up AppScheduler's writes
+    private final ExecutorService builder = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "WaveformBuilder");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+    //Files waiting for the envelope player, only used on the FX thread
+    private final ArrayDeque<String> envelopeQueue = new ArrayDeque<>();
+    private MediaPlayer envelopePlayer;
+
+    private WaveformModel(){
+
+    }
+    public static WaveformModel getInstance(){
+        return INSTANCE;
+    }
+
+    //Incremented on the FX thread every time a waveform becomes available, used to redraw
+    public ReadOnlyIntegerProperty waveformsBuiltProperty(){
+        return waveformsBuilt;
+    }
+
+    //Waveform of the file or null while it is being built or could not be decoded
+    public Waveform get(String path){
+        return waveforms.get(MediaCache.getCanonicalPath(path));
+    }
+
+    //Loads the cached peaks of the file or decodes it in the background
+    public void build(String path){
+        String canonicalPath = MediaCache.getCanonicalPath(path);
+        if(!requested.add(canonicalPath)){
+            return;
+        }
+        builder.execute(() -> {
+            File source = new File(canonicalPath);
+            File cacheFile = MediaCache.getFile(WAVEFORM_DIRECTORY, canonicalPath, ".peaks");
+            long lastModified = source.lastModified();
+            Waveform waveform = read(cacheFile, lastModified);
+            if(waveform == null){
+                try{
+                    waveform = decode(source);
+                    write(waveform, cacheFile, lastModified);
+                }catch(UnsupportedAudioFileException | IllegalArgumentException e){
+                    //No decoder or no conversion to PCM, JavaFX media can still play it
+                    Platform.runLater(() -> queueEnvelope(canonicalPath));
+                    return;
+                }catch(IOException e){
+                    e.printStackTrace();
+                    return;
+                }
+            }
+            waveforms.put(canonicalPath, waveform);
+            Platform.runLater(() -> waveformsBuilt.set(waveformsBuilt.get() + 1));
+        });
+    }
+
+    /*********************************************************************************************************************
+     *  Decoding
+     *********************************************************************************************************************/
+
+    private Waveform decode(File source) throws IOException, UnsupportedAudioFileException {
+        try(AudioInputStream encoded = AudioSystem.getAudioInputStream(source)){
+            AudioFormat format = encoded.getFormat();
+            //Everything is read as 16 bit signed, compressed formats are decoded by their SPI here
+            AudioFormat pcm = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED, format.getSampleRate(), 16,
+                    format.getChannels(), format.getChannels() * 2, format.getSampleRate(), false);
+            try(AudioInputStream in = isPcm16(format) ? encoded : AudioSystem.getAudioInputStream(pcm, encoded)){
+                return readPeaks(in, in.getFormat());
+            }
+        }
+    }
+
+    private boolean isPcm16(AudioFormat format){
+        return format.getEncoding() == AudioFormat.Encoding.PCM_SIGNED && format.getSampleSizeInBits() == 16;
+    }
+
+    //Channels are folded together, a peak is the lowest and highest sample of any channel in its frames
+    private Waveform readPeaks(AudioInputStream in, AudioFormat format) throws IOException {
+        int channels = format.getChannels();
+        int frameSize = format.getFrameSize();
+        boolean bigEndian = format.isBigEndian();
+        byte[] buffer = new byte[frameSize * BASE_SAMPLES * 16];
+        short[] peaks = new short[1024];
+        int peakCount = 0;
+        long frames = 0;
+        short min = Short.MAX_VALUE, max = Short.MIN_VALUE;
+        int inPeak = 0;
+        int filled = 0;
+        int read;
+        while((read = in.read(buffer, filled, buffer.length - filled)) != -1){
+            filled += read;
+            int usable = filled - filled % frameSize;
+            for(int offset = 0; offset < usable; offset += frameSize){
+                for(int channel = 0; channel < channels; channel++){
+                    int index = offset + channel * 2;
+                    short sample = bigEndian
+                            ? (short) ((buffer[index] << 8) | (buffer[index + 1] & 0xFF))
+                            : (short) ((buffer[index + 1] << 8) | (buffer[index] & 0xFF));
+                    if(sample < min){
+                        min = sample;
+                    }
+                    if(sample > max){
+                        max = sample;
+                    }
+                }
+                if(++inPeak == BASE_SAMPLES){
+                    if(peakCount * 2 == peaks.length){
+                        peaks = Arrays.copyOf(peaks, peaks.length * 2);
+                    }
+                    peaks[peakCount * 2] = min;
+                    peaks[peakCount * 2 + 1] = max;
+                    peakCount++;
+                    min = Short.MAX_VALUE;
+                    max = Short.MIN_VALUE;
+                    inPeak = 0;
+                }
+            }
+            frames += usable / frameSize;
+            //Keeps a partial frame for the next read
+            System.arraycopy(buffer, usable, buffer, 0, filled - usable);
+            filled -= usable;
+        }
+        if(inPeak > 0){
+            if(peakCount * 2 == peaks.length){
+                peaks = Arrays.copyOf(peaks, peaks.length + 2);
+            }
+            peaks[peakCount * 2] = min;
+            peaks[peakCount * 2 + 1] = max;
+            peakCount++;
+        }
+        return new Waveform(format.getSampleRate(), frames, buildLevels(Arrays.copyOf(peaks, peakCount * 2)));
+    }
+
+    //Level 0 is the decoded peaks, each level above halves the one below until a single peak is left
+    private short[][] buildLevels(short[] base){
+        short[][] levels = new short[32][];
+        levels[0] = base;
+        int count = 1;
+        while(levels[count - 1].length > 2){
+            short[] below = levels[count - 1];
+            int peaks = below.length / 2;
+            short[] level = new short[((peaks + 1) / 2) * 2];
+            for(int i = 0; i < peaks; i += 2){
+                int next = Math.min(i + 1, peaks - 1);
+                level[i] = (short) Math.min(below[i * 2], below[next * 2]);
+                level[i + 1] = (short) Math.max(below[i * 2 + 1], below[next * 2 + 1]);
+            }
+            levels[count++] = level;
+        }
+        return Arrays.copyOf(levels, count);
+    }
+
+    /*********************************************************************************************************************
+     *  Loudness Envelope
+     *********************************************************************************************************************/
+
+    private void queueEnvelope(String canonicalPath){
+        envelopeQueue.add(canonicalPath);
+        if(envelopePlayer == null){
+            nextEnvelope();
+        }
+    }
+
+    private void nextEnvelope(){
+        String canonicalPath = envelopeQueue.poll();
+        if(canonicalPath == null){
+            return;
+        }
+        File source = new File(canonicalPath);
+        long lastModified = source.lastModified();
+        MediaPlayer player;
+        try{
+            player = new MediaPlayer(new Media(source.toURI().toString()));
+        }catch(Exception e){
+            e.printStackTrace();
+            nextEnvelope();
+            return;
+        }
+        envelopePlayer = player;
+        Envelope envelope = new Envelope();
+        player.setMute(true);
+        player.setAutoPlay(false);
+        player.setAudioSpectrumInterval(ENVELOPE_INTERVAL);
+        player.setAudioSpectrumNumBands(ENVELOPE_BANDS);
+        player.setAudioSpectrumThreshold(ENVELOPE_THRESHOLD);
+        player.setAudioSpectrumListener(envelope);
+        player.setOnReady(() -> {
+            player.setRate(ENVELOPE_RATE);
+            player.play();
+        });
+        player.setOnEndOfMedia(() -> {
+            double seconds = player.getMedia().getDuration().toSeconds();
+            finishEnvelope(player);
+            Waveform waveform = envelope.toWaveform(seconds);
+            waveforms.put(canonicalPath, waveform);
+            waveformsBuilt.set(waveformsBuilt.get() + 1);
+            builder.execute(() -> {
+                try{
+                    write(waveform, MediaCache.getFile(WAVEFORM_DIRECTORY, canonicalPath, ".peaks"), lastModified);
+                }catch(IOException e){
+                    e.printStackTrace();
+                }
+            });
+        });
+        player.setOnError(() -> {
+            player.getError().printStackTrace();
+            finishEnvelope(player);
+        });
+        player.setOnHalted(() -> finishEnvelope(player));
+    }
+
+    private void finishEnvelope(MediaPlayer player){
+        if(envelopePlayer != player){
+            return;
+        }
+        envelopePlayer = null;
+        player.setAudioSpectrumListener(null);
+        player.dispose();
+        nextEnvelope();
+    }
+
+    //Peaks by media time, updates the player skipped repeat the one before so a stall does not read as silence
+    private class Envelope implements AudioSpectrumListener {
+        private short[] peaks = new short[1024];
+        private int peakCount;
+
+        @Override
+        public void spectrumDataUpdate(double timestamp, double duration, float[] magnitudes, float[] phases){
+            float loudest = ENVELOPE_THRESHOLD;
+            for(float magnitude : magnitudes){
+                loudest = Math.max(loudest, magnitude);
+            }
+            double level = Math.min(1, (loudest - ENVELOPE_THRESHOLD) / -ENVELOPE_THRESHOLD);
+            short amplitude = (short) Math.round(level * Short.MAX_VALUE);
+            int peak = (int) (timestamp / ENVELOPE_INTERVAL);
+            if(peak < peakCount){
+                peaks[peak * 2] = (short) Math.min(peaks[peak * 2], -amplitude);
+                peaks[peak * 2 + 1] = (short) Math.max(peaks[peak * 2 + 1], amplitude);
+                return;
+            }
+            short last = peakCount > 0 ? peaks[peakCount * 2 - 1] : 0;
+            fill(peak, last);
+            peaks[peak * 2] = (short) -amplitude;
+            peaks[peak * 2 + 1] = amplitude;
+            peakCount = peak + 1;
+        }
+
+        private void fill(int to, short amplitude){
+            if(to * 2 + 2 > peaks.length){
+                peaks = Arrays.copyOf(peaks, Math.max(peaks.length * 2, to * 2 + 2));
+            }
+            for(int i = peakCount; i < to; i++){
+                peaks[i * 2] = (short) -amplitude;
+                peaks[i * 2 + 1] = amplitude;
+            }
+        }
+
+        //The tail the player ended before reporting is silent
+        private Waveform toWaveform(double seconds){
+            int count = Math.max(1, Math.max(peakCount, (int) Math.ceil(seconds / ENVELOPE_INTERVAL)));
+            if(count > peakCount){
+                fill(count - 1, (short) 0);
+                peaks[count * 2 - 2] = 0;
+                peaks[count * 2 - 1] = 0;
+            }
+            return new Waveform((float) (BASE_SAMPLES / ENVELOPE_INTERVAL), (long) count * BASE_SAMPLES,
+                    buildLevels(Arrays.copyOf(peaks, count * 2)));
+        }
+    }
+
+    /*********************************************************************************************************************
+     *  Cache Files
+     *********************************************************************************************************************/
+
+    //Null when the file is missing, damaged or was made from another version of the audio
+    private Waveform read(File cacheFile, long lastModified){
+        if(!cacheFile.exists()){
+            return null;
+        }
+        try(DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)))){
+            if(in.readInt() != MAGIC || in.readShort() != VERSION
+                    || in.readLong() != lastModified || in.readInt() != BASE_SAMPLES){
+                return null;
+            }
+            float sampleRate = in.readFloat();
+            long frames = in.readLong();
+            short[][] levels = new short[in.readInt()][];
+            for(int i = 0; i < levels.length; i++){
+                levels[i] = new short[in.readInt() * 2];
+                for(int j = 0; j < levels[i].length; j++){
+                    levels[i][j] = in.readShort();
+                }
+            }
+            return new Waveform(sampleRate, frames, levels);
+        }catch(IOException e){
+            //A damaged file is decoded again
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private void write(Waveform waveform, File cacheFile, long lastModified) throws IOException {
+        Files.createDirectories(cacheFile.toPath().getParent());
+        File temp = new File(cacheFile.getPath() + ".tmp");
+        try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))){
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeLong(lastModified);
+            out.writeInt(BASE_SAMPLES);
+            out.writeFloat(waveform.sampleRate);
+            out.writeLong(waveform.frames);
+            out.writeInt(waveform.levels.length);
+            for(short[] level : waveform.levels){
+                out.writeInt(level.length / 2);
+                for(short peak : level){
+                    out.writeShort(peak);
+                }
+            }
+        }
+        Files.move(temp.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    //Immutable peak pyramid, peaks are stored as min, max pairs
+    public static final class Waveform {
+        private final float sampleRate;
+        private final long frames;
+        private final short[][] levels;
+
+        private Waveform(float sampleRate, long frames, short[][] levels){
+            this.sampleRate = sampleRate;
+            this.frames = frames;
+            this.levels = levels;
+        }
+
+        public double getDurationMillis(){
+            return frames * 1000.0 / sampleRate;
+        }
+
+        //Fills min and max (-1 - 1) for pixels columns starting at start (ms) with millisPerPixel each
+        //Columns past the end of the audio are 0, returns the number of columns with audio
+        public int getPeaks(double start, double millisPerPixel, int pixels, float[] min, float[] max){
+            double framesPerPixel = millisPerPixel * sampleRate / 1000.0;
+            //Highest level whose peaks are no wider than a pixel
+            int level = 0;
+            while(level + 1 < levels.length && ((long) BASE_SAMPLES << (level + 1)) <= framesPerPixel){
+                level++;
+            }
+            short[] peaks = levels[level];
+            int peakCount = peaks.length / 2;
+            double framesPerPeak = (double) ((long) BASE_SAMPLES << level);
+            double startFrame = start * sampleRate / 1000.0;
+            int filled = 0;
+            for(int x = 0; x < pixels; x++){
+                int first = (int) Math.floor((startFrame + x * framesPerPixel) / framesPerPeak);
+                int last = (int) Math.floor((startFrame + (x + 1) * framesPerPixel) / framesPerPeak);
+                //Zoomed in past level 0 a pixel still shows the peak it falls in
+                last = Math.max(first, last - 1);
+                if(first < 0 || first >= peakCount){
+                    min[x] = 0;
+                    max[x] = 0;
+                    continue;
+                }
+                last = Math.min(last, peakCount - 1);
+                short low = Short.MAX_VALUE, high = Short.MIN_VALUE;
+                for(int peak = first; peak <= last; peak++){
+                    low = (short) Math.min(low, peaks[peak * 2]);
+                    high = (short) Math.max(high, peaks[peak * 2 + 1]);
+                }
+                min[x] = low / 32768f;
+                max[x] = high / 32768f;
+                filled++;
+            }
+            return filled;
+        }
+    }
+}